@@ -10,6 +10,13 @@ SET FOREIGN_KEY_CHECKS = 0;
 -- Drop existing tables if they exist (for clean setup)
 DROP TABLE IF EXISTS payments;
 DROP TABLE IF EXISTS notifications;
+DROP TABLE IF EXISTS loyalty_compaction;
+DROP TABLE IF EXISTS loyalty_balances;
+DROP TABLE IF EXISTS loyalty_ledger;
+DROP TABLE IF EXISTS order_status_events;
+DROP TABLE IF EXISTS order_outbox_dead_letters;
+DROP TABLE IF EXISTS order_outbox;
+DROP TABLE IF EXISTS promotions;
 DROP TABLE IF EXISTS order_items;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS stocks;
@@ -77,6 +84,16 @@ CREATE TABLE orders (
     status VARCHAR(50) DEFAULT 'PENDING',
     total_amount DECIMAL(10,2) DEFAULT 0.00,
     payment_status VARCHAR(50) DEFAULT 'PENDING',
+    idempotency_key VARCHAR(64) NULL,
+    split_group_id BIGINT NULL,
+    UNIQUE KEY uk_orders_idempotency_key (idempotency_key),
+    INDEX idx_orders_split_group (split_group_id),
+    INDEX idx_orders_time_id (order_time, id),
+    INDEX idx_orders_branch_time_id (branch_id, order_time, id),
+    INDEX idx_orders_customer_time_id (customer_id, order_time, id),
+    INDEX idx_orders_status_time_id (status, order_time, id),
+    INDEX idx_orders_branch_status_time_id (branch_id, status, order_time, id),
+    INDEX idx_orders_amount_id (total_amount, id),
     FOREIGN KEY (customer_id) REFERENCES customers(id),
     FOREIGN KEY (branch_id) REFERENCES branches(id)
 );
@@ -90,10 +107,93 @@ CREATE TABLE order_items (
     quantity INT NOT NULL,
     unit_price DECIMAL(10,2) NOT NULL,
     total_price DECIMAL(10,2) GENERATED ALWAYS AS (quantity * unit_price) STORED,
+    discount_amount DECIMAL(10,2) NOT NULL DEFAULT 0.00,
     FOREIGN KEY (order_id) REFERENCES orders(id),
     FOREIGN KEY (drink_id) REFERENCES drinks(id)
 );
 
+-- Create promotions table
+CREATE TABLE promotions (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    branch_id BIGINT NULL,
+    drink_id BIGINT NULL,
+    discount_percent DECIMAL(5,2) NOT NULL,
+    min_quantity INT NOT NULL DEFAULT 1,
+    start_time TIME NULL,
+    end_time TIME NULL,
+    valid_from DATETIME NULL,
+    valid_until DATETIME NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    FOREIGN KEY (branch_id) REFERENCES branches(id),
+    FOREIGN KEY (drink_id) REFERENCES drinks(id)
+);
+
+-- Create order_outbox table (order events written with the order, relayed to in-process consumers)
+CREATE TABLE order_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_type VARCHAR(30) NOT NULL,
+    order_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    dispatched_at TIMESTAMP NULL,
+    INDEX idx_outbox_pending (dispatched_at, id),
+    INDEX idx_outbox_branch (branch_id, id)
+);
+
+-- Create order_outbox_dead_letters table (events a relay consumer failed on, kept per consumer)
+CREATE TABLE order_outbox_dead_letters (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_id BIGINT NOT NULL,
+    consumer VARCHAR(100) NOT NULL,
+    event_type VARCHAR(30) NOT NULL,
+    order_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    error VARCHAR(500) NULL,
+    failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_dead_letters_event_consumer (event_id, consumer)
+);
+
+-- Create order_status_events table (when each order reached each status; status is the OrderStatus ordinal)
+CREATE TABLE order_status_events (
+    order_id BIGINT NOT NULL,
+    status TINYINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (order_id, status),
+    INDEX idx_status_events_status_time (status, changed_at)
+);
+
+-- Create loyalty tables (append-only points ledger, compacted into per-customer balances)
+CREATE TABLE loyalty_ledger (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    customer_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    points INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_loyalty_ledger_order (order_id),
+    INDEX idx_loyalty_ledger_customer (customer_id, id)
+);
+
+CREATE TABLE loyalty_balances (
+    customer_id BIGINT PRIMARY KEY,
+    points BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE loyalty_compaction (
+    id TINYINT PRIMARY KEY,
+    ledger_id BIGINT NOT NULL
+);
+
+INSERT INTO loyalty_compaction (id, ledger_id) VALUES (1, 0);
+
 -- Create notifications table
 CREATE TABLE notifications (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -276,15 +376,15 @@ INSERT INTO stocks (branch_id, drink_id, quantity, threshold) VALUES
 (4, 16, 45, 10);  -- Protein Shake
 
 -- Insert orders
-INSERT INTO orders (customer_id, branch_id, order_time, status) VALUES
-(1, 1, '2024-01-15 10:30:00', 'pending'),
-(2, 2, '2024-01-15 14:20:00', 'pending'),
-(3, 3, '2024-01-16 09:15:00', 'pending'),
-(1, 4, '2024-01-16 16:45:00', 'pending'),
-(2, 1, '2024-01-17 11:30:00', 'pending'),
-(3, 2, '2024-01-17 13:45:00', 'pending'),
-(1, 3, '2024-01-18 08:20:00', 'pending'),
-(2, 4, '2024-01-18 15:30:00', 'pending');
+INSERT INTO orders (id, customer_id, branch_id, order_time, status) VALUES
+(1, 1, 1, '2024-01-15 10:30:00', 'pending'),
+(2, 2, 2, '2024-01-15 14:20:00', 'pending'),
+(3, 3, 3, '2024-01-16 09:15:00', 'pending'),
+(4, 1, 4, '2024-01-16 16:45:00', 'pending'),
+(5, 2, 1, '2024-01-17 11:30:00', 'pending'),
+(6, 3, 2, '2024-01-17 13:45:00', 'pending'),
+(7, 1, 3, '2024-01-18 08:20:00', 'pending'),
+(8, 2, 4, '2024-01-18 15:30:00', 'pending');
 
 -- Insert order items
 INSERT INTO order_items (order_id, drink_id, drink_name, quantity, unit_price) VALUES
@@ -328,19 +428,19 @@ UPDATE orders o SET total_amount = (
 );
 
 -- Insert notifications
-INSERT INTO notifications (user_id, title, message, type, priority) VALUES
-(1, 'Welcome!', 'Welcome to the Drink Business RMI System', 'INFO', 'NORMAL'),
-(2, 'Order Confirmed', 'Your order has been confirmed and is being processed', 'ORDER_CONFIRMED', 'HIGH'),
-(3, 'Stock Alert', 'Low stock alert for Soda at Kisumu branch', 'STOCK_LOW', 'HIGH'),
-(4, 'System Update', 'System maintenance scheduled for tonight', 'SYSTEM_ALERT', 'NORMAL'),
-(5, 'New Drinks Added', 'Check out our new smoothies and protein shakes!', 'PRODUCT_UPDATE', 'NORMAL'),
-(6, 'Inventory Update', 'Stock levels have been updated across all branches', 'INVENTORY_UPDATE', 'NORMAL');
+INSERT INTO notifications (id, user_id, title, message, type, priority) VALUES
+(1, 1, 'Welcome!', 'Welcome to the Drink Business RMI System', 'INFO', 'NORMAL'),
+(2, 2, 'Order Confirmed', 'Your order has been confirmed and is being processed', 'ORDER_CONFIRMED', 'HIGH'),
+(3, 3, 'Stock Alert', 'Low stock alert for Soda at Kisumu branch', 'STOCK_LOW', 'HIGH'),
+(4, 4, 'System Update', 'System maintenance scheduled for tonight', 'SYSTEM_ALERT', 'NORMAL'),
+(5, 5, 'New Drinks Added', 'Check out our new smoothies and protein shakes!', 'PRODUCT_UPDATE', 'NORMAL'),
+(6, 6, 'Inventory Update', 'Stock levels have been updated across all branches', 'INVENTORY_UPDATE', 'NORMAL');
 
 -- Insert sample payments
-INSERT INTO payments (order_id, customer_id, amount, payment_method, transaction_id, status) VALUES
-(1, '1', 130.0, 'CREDIT_CARD', 'TXN_001', 'SUCCESS'),
-(2, '2', 220.0, 'MPESA', 'TXN_002', 'SUCCESS'),
-(3, '3', 310.0, 'CASH', 'TXN_003', 'PENDING');
+INSERT INTO payments (id, order_id, customer_id, amount, payment_method, transaction_id, status) VALUES
+(1, 1, '1', 130.0, 'CREDIT_CARD', 'TXN_001', 'SUCCESS'),
+(2, 2, '2', 220.0, 'MPESA', 'TXN_002', 'SUCCESS'),
+(3, 3, '3', 310.0, 'CASH', 'TXN_003', 'PENDING');
 
 -- Update stock quantities based on orders (simulating consumption)
 UPDATE stocks SET quantity = quantity - 2 WHERE branch_id = 1 AND drink_id = 1; -- Nakuru Soda
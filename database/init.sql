@@ -229,15 +229,15 @@ INSERT INTO users (username, password_hash, role, branch_id, customer_id) VALUES
 ('customer3', '$2a$10$8K1p/a0dL2LkqvQOuiLigOeVFh5rtVNWjr2TU.iWZWY8xO7qPJLWG', 'customer', NULL, 3);
 
 -- Insert sample orders
-INSERT INTO orders (customer_id, branch_id, order_time, status) VALUES
-(1, 1, '2024-01-15 10:30:00', 'pending'),
-(2, 2, '2024-01-15 14:20:00', 'pending'),
-(3, 3, '2024-01-16 09:15:00', 'pending'),
-(1, 4, '2024-01-16 16:45:00', 'pending'),
-(2, 1, '2024-01-17 11:30:00', 'pending'),
-(3, 2, '2024-01-17 13:45:00', 'pending'),
-(4, 3, '2024-01-18 08:20:00', 'pending'),
-(5, 4, '2024-01-18 15:30:00', 'pending');
+INSERT INTO orders (id, customer_id, branch_id, order_time, status) VALUES
+(1, 1, 1, '2024-01-15 10:30:00', 'pending'),
+(2, 2, 2, '2024-01-15 14:20:00', 'pending'),
+(3, 3, 3, '2024-01-16 09:15:00', 'pending'),
+(4, 1, 4, '2024-01-16 16:45:00', 'pending'),
+(5, 2, 1, '2024-01-17 11:30:00', 'pending'),
+(6, 3, 2, '2024-01-17 13:45:00', 'pending'),
+(7, 4, 3, '2024-01-18 08:20:00', 'pending'),
+(8, 5, 4, '2024-01-18 15:30:00', 'pending');
 
 -- Insert sample order items (including new drinks)
 INSERT INTO order_items (order_id, drink_id, drink_name, quantity, unit_price) VALUES
@@ -312,13 +312,13 @@ CREATE INDEX idx_payments_transaction_id ON payments(transaction_id);
 ALTER TABLE orders ADD COLUMN IF NOT EXISTS payment_status VARCHAR(50) DEFAULT 'PENDING';
 
 -- Insert sample notifications
-INSERT INTO notifications (user_id, title, message, type, priority) VALUES
-(1, 'Welcome!', 'Welcome to the Drink Business RMI System', 'INFO', 'NORMAL'),
-(2, 'Order Confirmed', 'Your order #2 has been confirmed', 'ORDER_CONFIRMED', 'HIGH'),
-(3, 'Stock Alert', 'Low stock alert for Soda at Kisumu branch', 'STOCK_LOW', 'HIGH'),
-(4, 'System Update', 'System maintenance scheduled for tonight', 'SYSTEM_ALERT', 'NORMAL'),
-(5, 'New Drinks Added', 'Check out our new smoothies and protein shakes!', 'PRODUCT_UPDATE', 'NORMAL'),
-(6, 'Inventory Update', 'Stock levels have been updated across all branches', 'INVENTORY_UPDATE', 'NORMAL');
+INSERT INTO notifications (id, user_id, title, message, type, priority) VALUES
+(1, 1, 'Welcome!', 'Welcome to the Drink Business RMI System', 'INFO', 'NORMAL'),
+(2, 2, 'Order Confirmed', 'Your order #2 has been confirmed', 'ORDER_CONFIRMED', 'HIGH'),
+(3, 3, 'Stock Alert', 'Low stock alert for Soda at Kisumu branch', 'STOCK_LOW', 'HIGH'),
+(4, 4, 'System Update', 'System maintenance scheduled for tonight', 'SYSTEM_ALERT', 'NORMAL'),
+(5, 5, 'New Drinks Added', 'Check out our new smoothies and protein shakes!', 'PRODUCT_UPDATE', 'NORMAL'),
+(6, 6, 'Inventory Update', 'Stock levels have been updated across all branches', 'INVENTORY_UPDATE', 'NORMAL');
 
 -- Update stock quantities based on orders
 UPDATE stocks SET quantity = quantity - 2 WHERE branch_id = 1 AND drink_id = 1; -- Nakuru Soda
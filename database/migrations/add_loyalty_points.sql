@@ -0,0 +1,28 @@
+-- Migration to add loyalty points, awarded when an order is paid
+
+-- Append-only ledger, written in batches by the HQ server from PAID order events.
+-- One row per paid order; the unique key makes a redelivered event a no-op.
+CREATE TABLE IF NOT EXISTS loyalty_ledger (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    customer_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    points INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_loyalty_ledger_order (order_id),
+    INDEX idx_loyalty_ledger_customer (customer_id, id)
+);
+
+-- Ledger rows up to loyalty_compaction.ledger_id summed per customer, so a balance is one row
+-- plus the few ledger rows written since the last compaction
+CREATE TABLE IF NOT EXISTS loyalty_balances (
+    customer_id BIGINT PRIMARY KEY,
+    points BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS loyalty_compaction (
+    id TINYINT PRIMARY KEY,
+    ledger_id BIGINT NOT NULL
+);
+
+INSERT IGNORE INTO loyalty_compaction (id, ledger_id) VALUES (1, 0);
@@ -0,0 +1,29 @@
+-- Migration to deduplicate retried order placements
+
+-- Client-generated key sent with placeOrder/createOrder; NULL for orders placed without one
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND COLUMN_NAME = 'idempotency_key') = 0,
+    'ALTER TABLE orders ADD COLUMN idempotency_key VARCHAR(64) NULL;',
+    'SELECT "idempotency_key column already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- At most one order per key; MySQL allows any number of NULLs in a unique index
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'uk_orders_idempotency_key') = 0,
+    'CREATE UNIQUE INDEX uk_orders_idempotency_key ON orders(idempotency_key);',
+    'SELECT "uk_orders_idempotency_key already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,16 @@
+-- Migration to add the order event outbox
+
+-- Order events are written in the same transaction as the order change and relayed
+-- to in-process consumers (notifications, stock alerts) by the HQ server
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_type VARCHAR(30) NOT NULL,
+    order_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    dispatched_at TIMESTAMP NULL,
+    INDEX idx_outbox_pending (dispatched_at, id)
+);
@@ -0,0 +1,29 @@
+-- Migration to support keyset paging of orders, newest first
+
+-- getAllOrdersPage: ORDER BY order_time DESC, id DESC
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_time_id') = 0,
+    'CREATE INDEX idx_orders_time_id ON orders(order_time, id);',
+    'SELECT "idx_orders_time_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- getBranchOrdersPage: WHERE branch_id = ? ORDER BY order_time DESC, id DESC
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_branch_time_id') = 0,
+    'CREATE INDEX idx_orders_branch_time_id ON orders(branch_id, order_time, id);',
+    'SELECT "idx_orders_branch_time_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,63 @@
+-- Migration to support searchOrders with keyset paging
+-- Each index ends in the sort key and id. A page filtered on a single status, branch or customer is read
+-- as one index range already in sort order, so the LIMIT stops the scan early.
+-- Not every search gets that: several statuses make several ranges that MySQL merges with a filesort,
+-- and an amount sort combined with a branch or customer filter either filesorts that branch's or
+-- customer's matching rows or walks idx_orders_amount_id discarding other orders. Those pages cost
+-- in proportion to the rows matching the filter, not the page size.
+
+-- Customer's own orders: WHERE customer_id = ? ORDER BY order_time, id
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_customer_time_id') = 0,
+    'CREATE INDEX idx_orders_customer_time_id ON orders(customer_id, order_time, id);',
+    'SELECT "idx_orders_customer_time_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Orders in a status across branches: WHERE status = ? ORDER BY order_time, id
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_status_time_id') = 0,
+    'CREATE INDEX idx_orders_status_time_id ON orders(status, order_time, id);',
+    'SELECT "idx_orders_status_time_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- A branch's orders in a status: WHERE branch_id = ? AND status = ? ORDER BY order_time, id
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_branch_status_time_id') = 0,
+    'CREATE INDEX idx_orders_branch_status_time_id ON orders(branch_id, status, order_time, id);',
+    'SELECT "idx_orders_branch_status_time_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Largest or smallest orders: ORDER BY total_amount, id, also serving amount ranges
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_amount_id') = 0,
+    'CREATE INDEX idx_orders_amount_id ON orders(total_amount, id);',
+    'SELECT "idx_orders_amount_id already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
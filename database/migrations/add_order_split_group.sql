@@ -0,0 +1,29 @@
+-- Migration to link the sub-orders of a cart split across branches
+
+-- ID of the first sub-order, shared by every sub-order of the split; NULL for ordinary orders
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND COLUMN_NAME = 'split_group_id') = 0,
+    'ALTER TABLE orders ADD COLUMN split_group_id BIGINT NULL;',
+    'SELECT "split_group_id column already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Guarded like the column above, so the migration can be rerun
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'orders'
+     AND INDEX_NAME = 'idx_orders_split_group') = 0,
+    'CREATE INDEX idx_orders_split_group ON orders(split_group_id);',
+    'SELECT "idx_orders_split_group already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
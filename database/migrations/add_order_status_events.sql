@@ -0,0 +1,19 @@
+-- Migration to record when each order reached each status, for fulfilment latency reporting
+
+-- One compact row per order and status, written in the same transaction as the change.
+-- status holds the OrderStatus ordinal: 0 PENDING, 1 PAID, 2 PROCESSING, 3 COMPLETED, 4 CANCELLED
+-- (append new statuses at the end; never reorder). Unlike order_outbox rows these are not purged.
+CREATE TABLE IF NOT EXISTS order_status_events (
+    order_id BIGINT NOT NULL,
+    status TINYINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (order_id, status),
+    INDEX idx_status_events_status_time (status, changed_at)
+);
+
+-- Orders placed before this migration count as reaching their current status when they were placed
+INSERT IGNORE INTO order_status_events (order_id, status, branch_id, changed_at)
+SELECT id, FIELD(status, 'PENDING', 'PAID', 'PROCESSING', 'COMPLETED', 'CANCELLED') - 1, branch_id, order_time
+FROM orders
+WHERE status IN ('PENDING', 'PAID', 'PROCESSING', 'COMPLETED', 'CANCELLED');
@@ -0,0 +1,15 @@
+-- Migration to let branch servers follow the order outbox for their own branch
+
+-- Fulfilment queues read a branch's events after the last event ID they have seen
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'order_outbox'
+     AND INDEX_NAME = 'idx_outbox_branch') = 0,
+    'CREATE INDEX idx_outbox_branch ON order_outbox(branch_id, id);',
+    'SELECT "idx_outbox_branch already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
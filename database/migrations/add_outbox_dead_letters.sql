@@ -0,0 +1,18 @@
+-- Migration to keep order events a relay consumer could not handle
+
+-- One row per event and consumer, copied from order_outbox (whose rows are purged a week after dispatch)
+-- after the consumer failed on the event on its own; the other consumers still received it
+CREATE TABLE IF NOT EXISTS order_outbox_dead_letters (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_id BIGINT NOT NULL,
+    consumer VARCHAR(100) NOT NULL,
+    event_type VARCHAR(30) NOT NULL,
+    order_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    error VARCHAR(500) NULL,
+    failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_dead_letters_event_consumer (event_id, consumer)
+);
@@ -0,0 +1,33 @@
+-- Migration to support promotion discounts priced in memory by OrderServiceImpl
+
+-- One row per rule; a NULL branch or drink applies to all branches or drinks.
+-- start_time/end_time give a daily window (end before start spans midnight), valid_from/valid_until a period.
+CREATE TABLE IF NOT EXISTS promotions (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    branch_id BIGINT NULL,
+    drink_id BIGINT NULL,
+    discount_percent DECIMAL(5,2) NOT NULL,
+    min_quantity INT NOT NULL DEFAULT 1,
+    start_time TIME NULL,
+    end_time TIME NULL,
+    valid_from DATETIME NULL,
+    valid_until DATETIME NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    FOREIGN KEY (branch_id) REFERENCES branches(id),
+    FOREIGN KEY (drink_id) REFERENCES drinks(id)
+);
+
+-- Discount taken off each line; total_price stays the undiscounted quantity * unit_price
+SET @sql = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE()
+     AND TABLE_NAME = 'order_items'
+     AND COLUMN_NAME = 'discount_amount') = 0,
+    'ALTER TABLE order_items ADD COLUMN discount_amount DECIMAL(10,2) NOT NULL DEFAULT 0.00;',
+    'SELECT "discount_amount column already exists";'
+));
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -1,6 +1,7 @@
 package com.drinks.rmi.client;
 
 import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.ReceiptDTO;
 import com.drinks.rmi.dto.SalesReportDTO;
 import com.drinks.rmi.dto.StockDTO;
 import com.drinks.rmi.dto.DrinkDTO;
@@ -42,9 +43,83 @@ public class DrinkBusinessClient {
     
     public static void main(String[] args) {
         DrinkBusinessClient client = new DrinkBusinessClient();
+        if (args.length > 0 && "--import".equals(args[0])) {
+            System.exit(client.runImport(args) ? 0 : 1);
+        }
         client.start();
     }
     
+    /**
+     * Non-interactive import of an order file:
+     * --import FILE --server HQ|BRANCH --user NAME [--password PASS] [--format csv|jsonl] [--batch N] [--concurrency N]
+     *   [--source NAME]
+     * The password may also be given in the DRINKS_PASSWORD environment variable. The source (such as a POS
+     * device name) namespaces the file's order references; it defaults to a hash of the file's contents.
+     * 
+     * @return true if every order in the file was accepted
+     */
+    private boolean runImport(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        String file = options.get("--import");
+        String server = options.get("--server");
+        String username = options.get("--user");
+        String password = options.getOrDefault("--password", System.getenv("DRINKS_PASSWORD"));
+        if (file == null || server == null || username == null || password == null) {
+            System.err.println("Usage: --import FILE --server HQ|" + String.join("|", BRANCH_HOSTS.keySet()) +
+                               " --user NAME [--password PASS] [--format csv|jsonl] [--batch N] [--concurrency N]" +
+                               " [--source NAME]");
+            return false;
+        }
+        
+        try {
+            int batchSize = Integer.parseInt(options.getOrDefault("--batch", "200"));
+            int concurrency = Integer.parseInt(options.getOrDefault("--concurrency", "4"));
+            if (batchSize < 1 || batchSize > 500 || concurrency < 1 || concurrency > 64) {
+                System.err.println("Batch size must be 1-500 and concurrency 1-64.");
+                return false;
+            }
+            java.nio.file.Path path = java.nio.file.Paths.get(file);
+            OrderFileReader.Format format = OrderFileReader.Format.of(options.get("--format"), path);
+            String source = options.get("--source");
+            if (source != null && !OrderFileReader.validSource(source)) {
+                System.err.println("Source must be 1-16 letters, digits, '.', '-' or '_'.");
+                return false;
+            }
+            
+            if (!BRANCH_HOSTS.containsKey(server) && !"HQ".equals(server)) {
+                System.err.println("Unknown server: " + server);
+                return false;
+            }
+            if (!connectToServer(server)) {
+                return false;
+            }
+            currentUser = authService.login(username, password);
+            if (currentUser == null) {
+                System.err.println("Invalid username or password.");
+                return false;
+            }
+            
+            if (source == null) {
+                source = OrderFileReader.sourceOf(path);
+            }
+            System.out.println("Importing " + path + " as " + format + " from source " + source + " in batches of " +
+                               batchSize + " with " + concurrency + " in flight...");
+            return new OrderImporter(orderService, currentUser, batchSize, concurrency, System.out)
+                .run(path, format, source);
+            
+        } catch (NumberFormatException e) {
+            System.err.println("Batch size and concurrency must be numbers.");
+            return false;
+        } catch (Exception e) {
+            logger.error("Import failed", e);
+            System.err.println("Import failed: " + e.getMessage());
+            return false;
+        }
+    }
+    
     public void start() {
         System.out.println("=== Welcome to Drink Business RMI System ===");
         
@@ -222,6 +297,7 @@ public class DrinkBusinessClient {
                 System.out.println("2. View Branch Stock");
                 System.out.println("3. Update Stock");
                 System.out.println("4. View Branch Orders");
+                System.out.println("5. Benchmark Quick Sales");
                 break;
                 
             default:
@@ -270,6 +346,11 @@ public class DrinkBusinessClient {
                         viewBranchOrders();
                     }
                     break;
+                case "5":
+                    if ("manager".equals(role) || "staff".equals(role)) {
+                        benchmarkQuickSales();
+                    }
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -485,6 +566,83 @@ public class DrinkBusinessClient {
         }
     }
     
+    /**
+     * Ring up a series of one-drink quick sales and report their latency against the p99 budget
+     * The budget is read from -Ddrinks.pos.p99BudgetMillis, as on the server
+     */
+    private void benchmarkQuickSales() throws Exception {
+        if (currentUser.getBranchId() == null) {
+            System.out.println("Quick sales are only available to branch staff.");
+            return;
+        }
+        
+        System.out.println("\n=== Quick Sale Benchmark ===");
+        System.out.println("Each sale is a real order and takes one unit of stock.");
+        long customerId;
+        long drinkId;
+        int sales;
+        try {
+            System.out.print("Customer ID: ");
+            customerId = Long.parseLong(scanner.nextLine().trim());
+            System.out.print("Drink ID: ");
+            drinkId = Long.parseLong(scanner.nextLine().trim());
+            System.out.print("Number of sales: ");
+            sales = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input.");
+            return;
+        }
+        if (sales <= 0) {
+            System.out.println("Number of sales must be positive.");
+            return;
+        }
+        
+        // The first sales warm up connections and caches and are not measured
+        int warmUp = Math.min(10, sales / 10);
+        long[] roundTrip = new long[sales];
+        long[] server = new long[sales];
+        int measured = 0;
+        int failures = 0;
+        for (int i = 0; i < sales; i++) {
+            long started = System.nanoTime();
+            try {
+                ReceiptDTO receipt = orderService.quickSale(currentUser, customerId, Map.of(drinkId, 1), UUID.randomUUID().toString());
+                if (i >= warmUp) {
+                    roundTrip[measured] = System.nanoTime() - started;
+                    server[measured] = receipt.getProcessingMicros() * 1000;
+                    measured++;
+                }
+            } catch (Exception e) {
+                if (failures++ == 0) {
+                    System.out.println("Sale failed: " + e.getMessage());
+                }
+            }
+        }
+        
+        if (measured == 0) {
+            System.out.println("No sales were measured (" + failures + " failed).");
+            return;
+        }
+        long budget = Long.getLong("drinks.pos.p99BudgetMillis", 50);
+        System.out.printf("%d sales measured, %d warm-up, %d failed%n", measured, warmUp, failures);
+        System.out.printf("%-12s %8s %8s %8s %8s%n", "Latency (ms)", "p50", "p95", "p99", "max");
+        System.out.printf("%-12s %8.2f %8.2f %8.2f %8.2f%n", "Round trip",
+            percentileMillis(roundTrip, measured, 50), percentileMillis(roundTrip, measured, 95),
+            percentileMillis(roundTrip, measured, 99), percentileMillis(roundTrip, measured, 100));
+        System.out.printf("%-12s %8.2f %8.2f %8.2f %8.2f%n", "Server",
+            percentileMillis(server, measured, 50), percentileMillis(server, measured, 95),
+            percentileMillis(server, measured, 99), percentileMillis(server, measured, 100));
+        double p99 = percentileMillis(roundTrip, measured, 99);
+        System.out.printf("p99 round trip %.2f ms is %s the %d ms budget%n", p99, p99 <= budget ? "within" : "OVER", budget);
+    }
+    
+    private static double percentileMillis(long[] nanos, int count, double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(rank, count - 1))] / 1_000_000.0;
+    }
+    
     private void generateSimpleReport() throws Exception {
         if (reportService == null) {
             System.out.println("Reports are only available at HQ.");
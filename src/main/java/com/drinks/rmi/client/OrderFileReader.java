@@ -0,0 +1,489 @@
+package com.drinks.rmi.client;
+
+import com.drinks.rmi.dto.OrderRequestDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams orders from an import file one order at a time, so files of any size use constant memory
+ *
+ * CSV files have one row per order line, with consecutive rows of the same order_ref forming one order:
+ * <pre>
+ * order_ref,customer_id,branch_id,drink_id,quantity
+ * pos7-000123,12,1,3,2
+ * pos7-000123,12,1,7,1
+ * </pre>
+ * JSON-lines files have one order per line:
+ * <pre>
+ * {"orderRef": "pos7-000123", "customerId": 12, "branchId": 1, "items": [{"drinkId": 3, "quantity": 2}]}
+ * </pre>
+ * The order reference, prefixed with the file's source, becomes the order's idempotency key, so importing
+ * a file twice creates each order once while two devices or test files reusing a reference do not collide.
+ * The source is named on the command line, or else is a hash of the file's contents.
+ */
+final class OrderFileReader implements Closeable {
+
+    enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * Format named on the command line, or guessed from the file extension when name is null
+         */
+        static Format of(String name, Path file) {
+            if (name != null) {
+                switch (name.toLowerCase()) {
+                    case "csv": return CSV;
+                    case "jsonl": case "ndjson": case "json": return JSON_LINES;
+                    default: throw new IllegalArgumentException("Unknown import format: " + name);
+                }
+            }
+            String fileName = file.getFileName().toString().toLowerCase();
+            return fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") ? JSON_LINES : CSV;
+        }
+    }
+
+    /**
+     * An order of the file that cannot be imported; reading continues with the next order
+     */
+    static final class InvalidOrderException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final long line;
+        private final String orderRef;
+
+        InvalidOrderException(long line, String orderRef, String message) {
+            super(message);
+            this.line = line;
+            this.orderRef = orderRef;
+        }
+
+        @Override
+        public String getMessage() {
+            return "line " + line + (orderRef != null ? " (" + orderRef + ")" : "") + ": " + super.getMessage();
+        }
+    }
+
+    private static final int MAX_REF_LENGTH = 64;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int MAX_SOURCE_LENGTH = 16;
+    private static final int HASH_CHARS = 12;
+    private static final int MAX_ROWS_PER_ORDER = 1000;
+    private static final String CSV_HEADER = "order_ref";
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final String source;
+    private long lineNumber;
+    private boolean started;
+    private String[] lookahead;     // CSV row read past the end of the previous order
+    private long lookaheadLine;
+
+    OrderFileReader(Path file, Format format, String source) throws IOException {
+        if (!validSource(source)) {
+            throw new IllegalArgumentException("Import source must be 1-" + MAX_SOURCE_LENGTH +
+                                               " letters, digits, '.', '-' or '_'");
+        }
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.format = format;
+        this.source = source;
+    }
+
+    static boolean validSource(String source) {
+        return source != null && source.matches("[A-Za-z0-9._-]{1," + MAX_SOURCE_LENGTH + "}");
+    }
+
+    /**
+     * Default source of a file: a hash of its contents, so the same file maps to the same keys wherever it is
+     */
+    static String sourceOf(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return hex(digest.digest(), HASH_CHARS);
+    }
+
+    /**
+     * The next order of the file, or null at the end of the file
+     * @throws InvalidOrderException if the next order is malformed; the following call moves past it
+     */
+    OrderRequestDTO next() throws IOException, InvalidOrderException {
+        return format == Format.CSV ? nextCsvOrder() : nextJsonOrder();
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private OrderRequestDTO nextCsvOrder() throws IOException, InvalidOrderException {
+        String[] first = lookahead;
+        long firstLine = lookaheadLine;
+        lookahead = null;
+        if (first == null) {
+            String line = nextLine();
+            if (!started && line != null && line.toLowerCase().startsWith(CSV_HEADER)) {
+                line = nextLine();
+            }
+            started = true;
+            if (line == null) {
+                return null;
+            }
+            first = line.split(",", -1);
+            firstLine = lineNumber;
+        }
+
+        String ref = first[0].trim();
+        List<String[]> rows = new ArrayList<>();
+        rows.add(first);
+        long rowCount = 1;
+        // Gather the following rows of the same order; the first row of the next order is kept for the next call
+        String line;
+        while ((line = nextLine()) != null) {
+            String[] row = line.split(",", -1);
+            if (!row[0].trim().equals(ref)) {
+                lookahead = row;
+                lookaheadLine = lineNumber;
+                break;
+            }
+            // Rows past the limit are skipped rather than held, so a runaway order cannot exhaust memory
+            if (++rowCount <= MAX_ROWS_PER_ORDER) {
+                rows.add(row);
+            }
+        }
+        if (rowCount > MAX_ROWS_PER_ORDER) {
+            throw new InvalidOrderException(firstLine, ref, "order has more than " + MAX_ROWS_PER_ORDER + " rows");
+        }
+
+        OrderRequestDTO order = new OrderRequestDTO();
+        order.setIdempotencyKey(ref);
+        for (String[] row : rows) {
+            if (row.length != 5) {
+                throw new InvalidOrderException(firstLine, ref, "expected 5 columns but found " + row.length);
+            }
+            long customerId = parseId(row[1], "customer_id", firstLine, ref);
+            long branchId = parseId(row[2], "branch_id", firstLine, ref);
+            if (order.getCustomerId() == null) {
+                order.setCustomerId(customerId);
+                order.setBranchId(branchId);
+            } else if (order.getCustomerId() != customerId || order.getBranchId() != branchId) {
+                throw new InvalidOrderException(firstLine, ref, "rows of one order must share customer_id and branch_id");
+            }
+            addItem(order, parseId(row[3], "drink_id", firstLine, ref), parseId(row[4], "quantity", firstLine, ref), firstLine);
+        }
+        validate(order, firstLine);
+        return order;
+    }
+
+    private OrderRequestDTO nextJsonOrder() throws IOException, InvalidOrderException {
+        String line = nextLine();
+        if (line == null) {
+            return null;
+        }
+        long number = lineNumber;
+        Map<String, Object> record;
+        try {
+            Object value = new JsonParser(line).parseDocument();
+            if (!(value instanceof Map)) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> object = (Map<String, Object>) value;
+            record = object;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException(number, null, e.getMessage());
+        }
+
+        String ref = record.get("orderRef") instanceof String ? (String) record.get("orderRef") : null;
+        OrderRequestDTO order = new OrderRequestDTO();
+        order.setIdempotencyKey(ref);
+        order.setCustomerId(jsonId(record, "customerId", number, ref));
+        order.setBranchId(jsonId(record, "branchId", number, ref));
+        if (!(record.get("items") instanceof List)) {
+            throw new InvalidOrderException(number, ref, "items must be an array");
+        }
+        for (Object item : (List<?>) record.get("items")) {
+            if (!(item instanceof Map)) {
+                throw new InvalidOrderException(number, ref, "each item must be an object");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fields = (Map<String, Object>) item;
+            addItem(order, jsonId(fields, "drinkId", number, ref), jsonId(fields, "quantity", number, ref), number);
+        }
+        validate(order, number);
+        return order;
+    }
+
+    private static void addItem(OrderRequestDTO order, long drinkId, long quantity, long line) throws InvalidOrderException {
+        long total = order.getItems().getOrDefault(drinkId, 0) + quantity;
+        if (total > Integer.MAX_VALUE) {
+            throw new InvalidOrderException(line, order.getIdempotencyKey(), "quantity of drink " + drinkId + " is too large");
+        }
+        order.getItems().put(drinkId, (int) total);
+    }
+
+    private void validate(OrderRequestDTO order, long line) throws InvalidOrderException {
+        String ref = order.getIdempotencyKey();
+        if (ref == null || ref.isBlank()) {
+            throw new InvalidOrderException(line, null, "order reference is required");
+        }
+        if (ref.length() > MAX_REF_LENGTH) {
+            throw new InvalidOrderException(line, null, "order reference is longer than " + MAX_REF_LENGTH + " characters");
+        }
+        if (order.getItems().isEmpty()) {
+            throw new InvalidOrderException(line, ref, "order has no items");
+        }
+        order.setIdempotencyKey(key(ref));
+    }
+
+    /**
+     * Idempotency key of a reference: source:ref, or for a reference too long to fit,
+     * source:start-of-ref~hash-of-ref so the key stays readable and distinct
+     */
+    private String key(String ref) {
+        String key = source + ":" + ref;
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        String hash = hex(sha256().digest(ref.getBytes(StandardCharsets.UTF_8)), HASH_CHARS);
+        int keep = MAX_KEY_LENGTH - source.length() - 2 - HASH_CHARS;
+        return source + ":" + ref.substring(0, keep) + "~" + hash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes, int chars) {
+        StringBuilder hex = new StringBuilder(chars);
+        for (int i = 0; hex.length() < chars; i++) {
+            hex.append(String.format("%02x", bytes[i]));
+        }
+        hex.setLength(chars);
+        return hex.toString();
+    }
+
+    private static long parseId(String value, String column, long line, String ref) throws InvalidOrderException {
+        try {
+            long id = Long.parseLong(value.trim());
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new InvalidOrderException(line, ref, column + " must be a positive whole number: '" + value.trim() + "'");
+    }
+
+    private static long jsonId(Map<String, Object> record, String field, long line, String ref) throws InvalidOrderException {
+        Object value = record.get(field);
+        if (value instanceof Long && (Long) value > 0) {
+            return (Long) value;
+        }
+        throw new InvalidOrderException(line, ref, field + " must be a positive whole number");
+    }
+
+    /**
+     * Parser for one line of JSON; numbers must be whole and come back as Long
+     */
+    private static final class JsonParser {
+        private final String text;
+        private int pos;
+
+        JsonParser(String text) {
+            this.text = text;
+        }
+
+        Object parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw error("unexpected text after the JSON value");
+            }
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("unexpected end of line");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': return parseObject();
+                case '[': return parseArray();
+                case '"': return parseString();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return parseNumber();
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("expected a field name");
+                }
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(key, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String parseString() {
+            StringBuilder value = new StringBuilder();
+            pos++;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private Long parseNumber() {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start || (pos < text.length() && ".eE".indexOf(text.charAt(pos)) >= 0)) {
+                throw error("expected a whole number");
+            }
+            try {
+                return Long.parseLong(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("number out of range");
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) {
+                throw error("unexpected value");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("invalid JSON at column " + (pos + 1) + ": " + message);
+        }
+    }
+}
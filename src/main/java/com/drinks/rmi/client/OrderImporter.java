@@ -0,0 +1,199 @@
+package com.drinks.rmi.client;
+
+import com.drinks.rmi.dto.OrderRequestDTO;
+import com.drinks.rmi.dto.OrderResultDTO;
+import com.drinks.rmi.dto.UserDTO;
+import com.drinks.rmi.interfaces.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports an order file through OrderService.placeOrders
+ * Orders are read one at a time and grouped by branch; a branch's group is sent as one batch once it
+ * is full. At most a fixed number of batches are in flight, and the reader waits for a free slot,
+ * so memory stays bounded by the batch size and the concurrency.
+ * A batch that fails as a whole is retried; the orders' references make the retry safe.
+ */
+final class OrderImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderImporter.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 500;
+    private static final int MAX_REPORTED_REJECTS = 20;
+    private static final long PROGRESS_EVERY = 100_000;
+    // Partly filled groups held across all branches, in batches, before they are sent early
+    private static final int MAX_PENDING_BATCHES = 16;
+
+    private final OrderService orderService;
+    private final UserDTO currentUser;
+    private final int batchSize;
+    private final int concurrency;
+    private final PrintStream out;
+    private final Map<Long, List<OrderRequestDTO>> pending = new HashMap<>();
+    private final Semaphore slots;
+    private final ExecutorService senders;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<String> rejectSamples = new ArrayList<>();
+    private long read;
+    private int pendingOrders;
+
+    OrderImporter(OrderService orderService, UserDTO currentUser, int batchSize, int concurrency, PrintStream out) {
+        this.orderService = orderService;
+        this.currentUser = currentUser;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.out = out;
+        this.slots = new Semaphore(concurrency);
+        this.senders = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "order-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Import every order of the file and print a summary
+     * @return true if every order was accepted
+     */
+    boolean run(Path file, OrderFileReader.Format format, String source) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        try (OrderFileReader reader = new OrderFileReader(file, format, source)) {
+            while (true) {
+                OrderRequestDTO order;
+                try {
+                    order = reader.next();
+                } catch (OrderFileReader.InvalidOrderException e) {
+                    read++;
+                    reject(e.getMessage());
+                    continue;
+                }
+                if (order == null) {
+                    break;
+                }
+                read++;
+                List<OrderRequestDTO> group = pending.computeIfAbsent(order.getBranchId(), id -> new ArrayList<>(batchSize));
+                group.add(order);
+                pendingOrders++;
+                if (group.size() >= batchSize) {
+                    pendingOrders -= group.size();
+                    send(pending.remove(order.getBranchId()));
+                } else if (pendingOrders >= batchSize * MAX_PENDING_BATCHES) {
+                    // Orders spread over many branches; send the partial groups rather than hold them
+                    flushPending();
+                }
+                if (read % PROGRESS_EVERY == 0) {
+                    out.printf("%,d orders read, %,d accepted, %,d rejected%n", read, accepted.get(), rejected.get());
+                }
+            }
+            flushPending();
+        } finally {
+            // Every slot free means every batch has finished
+            slots.acquire(concurrency);
+            senders.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        out.println("\n=== Import Summary ===");
+        out.printf("Orders read:     %,d%n", read);
+        out.printf("Accepted:        %,d%n", accepted.get());
+        out.printf("Rejected:        %,d%n", rejected.get());
+        out.printf("Elapsed:         %.1f s%n", seconds);
+        out.printf("Throughput:      %,.0f orders/s%n", seconds > 0 ? read / seconds : 0.0);
+        synchronized (rejectSamples) {
+            if (!rejectSamples.isEmpty()) {
+                out.println("First rejects:");
+                rejectSamples.forEach(sample -> out.println("  " + sample));
+            }
+        }
+        return rejected.get() == 0;
+    }
+
+    private void flushPending() throws InterruptedException {
+        for (List<OrderRequestDTO> group : pending.values()) {
+            send(group);
+        }
+        pending.clear();
+        pendingOrders = 0;
+    }
+
+    /**
+     * Hand a batch to a sender, waiting while the maximum number of batches are in flight
+     */
+    private void send(List<OrderRequestDTO> batch) throws InterruptedException {
+        slots.acquire();
+        try {
+            senders.execute(() -> {
+                try {
+                    submit(batch);
+                } catch (RuntimeException e) {
+                    for (OrderRequestDTO order : batch) {
+                        reject(order.getIdempotencyKey() + ": batch failed: " + e);
+                    }
+                    logger.error("Batch of {} orders failed", batch.size(), e);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private void submit(List<OrderRequestDTO> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<OrderResultDTO> results = orderService.placeOrders(currentUser, batch);
+                for (OrderResultDTO result : results) {
+                    if (result.isSuccess()) {
+                        accepted.incrementAndGet();
+                    } else {
+                        reject(batch.get(result.getIndex()).getIdempotencyKey() + ": " + result.getMessage());
+                    }
+                }
+                return;
+            } catch (RemoteException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    logger.error("Batch of {} orders failed after {} attempts", batch.size(), attempt, e);
+                    for (OrderRequestDTO order : batch) {
+                        reject(order.getIdempotencyKey() + ": batch failed: " + e.getMessage());
+                    }
+                    return;
+                }
+                logger.warn("Batch of {} orders failed, retrying: {}", batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    for (OrderRequestDTO order : batch) {
+                        reject(order.getIdempotencyKey() + ": import interrupted before the batch was retried");
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private void reject(String reason) {
+        rejected.incrementAndGet();
+        synchronized (rejectSamples) {
+            if (rejectSamples.size() < MAX_REPORTED_REJECTS) {
+                rejectSamples.add(reason);
+            }
+        }
+    }
+}
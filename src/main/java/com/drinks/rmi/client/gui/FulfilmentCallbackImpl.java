@@ -0,0 +1,49 @@
+package com.drinks.rmi.client.gui;
+
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.interfaces.FulfilmentCallback;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Client-side implementation of FulfilmentCallback
+ * Hands branch fulfilment queue changes to the dashboard on the JavaFX Application Thread
+ */
+public class FulfilmentCallbackImpl extends UnicastRemoteObject implements FulfilmentCallback {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FulfilmentCallbackImpl.class);
+    private static final long serialVersionUID = 1L;
+    
+    private final BiConsumer<List<OrderDTO>, List<Long>> updateHandler;
+    
+    public FulfilmentCallbackImpl(BiConsumer<List<OrderDTO>, List<Long>> updateHandler) throws RemoteException {
+        super();
+        this.updateHandler = updateHandler;
+    }
+    
+    @Override
+    public void onFulfilmentUpdate(List<OrderDTO> changed, List<Long> removedOrderIds) throws RemoteException {
+        Platform.runLater(() -> {
+            try {
+                updateHandler.accept(changed, removedOrderIds);
+            } catch (Exception e) {
+                logger.error("Error applying fulfilment queue update in UI", e);
+            }
+        });
+    }
+    
+    public void shutdown() {
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (Exception e) {
+            logger.warn("Error during FulfilmentCallback shutdown", e);
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.drinks.rmi.dto.CustomerReportDTO;
 import com.drinks.rmi.dto.DrinkPopularityReportDTO;
 import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderItemDTO;
+import com.drinks.rmi.dto.OrderPageDTO;
 import com.drinks.rmi.dto.StockDTO;
+import com.drinks.rmi.interfaces.OrderExportCursor;
 // import com.drinks.rmi.interfaces.*;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -18,11 +21,16 @@ import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.PrintWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.rmi.RemoteException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -39,6 +47,8 @@ import javafx.scene.control.TableColumn;
 public class AuditorDashboardController extends BaseDashboardController implements Initializable {
     
     private static final Logger logger = LoggerFactory.getLogger(AuditorDashboardController.class);
+    private static final int ORDER_PAGE_SIZE = 200;
+    private static final int EXPORT_CHUNK_SIZE = 500;
     
     // Reports Section
     @FXML private ComboBox<String> reportTypeComboBox;
@@ -47,6 +57,7 @@ public class AuditorDashboardController extends BaseDashboardController implemen
     @FXML private ComboBox<String> branchComboBox;
     @FXML private Button generateReportButton;
     @FXML private TextArea reportTextArea;
+    @FXML private Button exportFinancialReportButton;
     
     // Financial Data
     @FXML private TableView<OrderDTO> financialTable;
@@ -158,6 +169,9 @@ public class AuditorDashboardController extends BaseDashboardController implemen
         logoutButton.setOnAction(event -> handleLogout());
         generateDrinkPopularityReportButton.setOnAction(event -> generateDrinkPopularityReport());
         generateCustomerReportButton.setOnAction(event -> generateCustomerReport());
+        if (exportFinancialReportButton != null) {
+            exportFinancialReportButton.setOnAction(event -> exportOrders());
+        }
     }
     
     @Override
@@ -171,20 +185,20 @@ public class AuditorDashboardController extends BaseDashboardController implemen
     private void loadFinancialData() {
         progressIndicator.setVisible(true);
         
-        Task<List<OrderDTO>> task = new Task<>() {
+        Task<OrderPageDTO> task = new Task<>() {
             @Override
-            protected List<OrderDTO> call() throws Exception {
-                // Get all orders for auditing
-                return orderService.getAllOrders();
+            protected OrderPageDTO call() throws Exception {
+                // Get the most recent orders for auditing
+                return orderService.getAllOrdersPage(null, ORDER_PAGE_SIZE);
             }
             
             @Override
             protected void succeeded() {
-                List<OrderDTO> orders = getValue();
+                OrderPageDTO page = getValue();
                 financialData.clear();
-                financialData.addAll(orders);
+                financialData.addAll(page.getOrders());
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Loaded " + orders.size() + " financial transactions");
+                statusLabel.setText("Loaded " + (page.isHasMore() ? "latest " : "") + page.getOrders().size() + " financial transactions");
             }
             
             @Override
@@ -306,6 +320,78 @@ public class AuditorDashboardController extends BaseDashboardController implemen
         new Thread(task).start();
     }
     
+    /**
+     * Stream every order in the selected date range to a CSV file, one chunk at a time
+     */
+    private void exportOrders() {
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            showError("Please select a valid date range");
+            return;
+        }
+        
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Orders");
+        fileChooser.setInitialFileName("orders_" + startDate + "_" + endDate + ".csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = fileChooser.showSaveDialog(progressIndicator.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        progressIndicator.setVisible(true);
+        
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                int exported = 0;
+                OrderExportCursor cursor = orderService.exportOrders(currentUser, startDate, endDate, null);
+                try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+                    writer.println("order_id,order_time,branch,customer,status,drink,quantity,unit_price,order_total");
+                    while (cursor.hasMore()) {
+                        for (OrderDTO order : cursor.next(EXPORT_CHUNK_SIZE)) {
+                            for (OrderItemDTO item : order.getItems()) {
+                                writer.println(order.getId() + "," + order.getOrderTime() + "," +
+                                    csv(order.getBranchName()) + "," + csv(order.getCustomerName()) + "," +
+                                    order.getStatus() + "," + csv(item.getDrinkName()) + "," +
+                                    item.getQuantity() + "," + item.getUnitPrice() + "," + order.getTotalAmount());
+                            }
+                            exported++;
+                        }
+                        updateMessage("Exported " + exported + " orders...");
+                    }
+                } finally {
+                    cursor.close();
+                }
+                return exported;
+            }
+            
+            @Override
+            protected void succeeded() {
+                progressIndicator.setVisible(false);
+                statusLabel.setText("Exported " + getValue() + " orders to " + file.getName());
+            }
+            
+            @Override
+            protected void failed() {
+                Throwable exception = getException();
+                logger.error("Failed to export orders", exception);
+                showError("Failed to export orders: " + exception.getMessage());
+                progressIndicator.setVisible(false);
+            }
+        };
+        
+        new Thread(task).start();
+    }
+    
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+    
     private void generateReport() {
         String reportType = reportTypeComboBox.getValue();
         if (reportType == null) {
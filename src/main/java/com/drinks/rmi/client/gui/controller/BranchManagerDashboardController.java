@@ -1,7 +1,11 @@
 package com.drinks.rmi.client.gui.controller;
 
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
 import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderPageDTO;
+import com.drinks.rmi.dto.OrderSearchDTO;
+import com.drinks.rmi.dto.RecentOrdersDTO;
 import com.drinks.rmi.dto.StockDTO;
 import com.drinks.rmi.dto.DrinkDTO;
 import com.drinks.rmi.dto.UserDTO;
@@ -35,6 +39,8 @@ import java.util.stream.Collectors;
 public class BranchManagerDashboardController extends BaseDashboardController implements Initializable {
     
     private static final Logger logger = LoggerFactory.getLogger(BranchManagerDashboardController.class);
+    private static final int ORDER_PAGE_SIZE = 200;
+    private static final int SEARCH_PAGE_SIZE = 500;
     
     // Branch Info
     @FXML private Label branchNameLabel;
@@ -76,6 +82,17 @@ public class BranchManagerDashboardController extends BaseDashboardController im
     @FXML private DatePicker endDatePicker;
     @FXML private Button updateChartButton;
     
+    // Fulfilment Times
+    @FXML private Label fulfilmentLabel;
+    @FXML private TableView<FulfilmentLatencyDTO.StageLatency> fulfilmentTable;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, String> fulfilmentStageColumn;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, Long> fulfilmentCountColumn;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, String> fulfilmentP50Column;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, String> fulfilmentP90Column;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, String> fulfilmentP99Column;
+    @FXML private TableColumn<FulfilmentLatencyDTO.StageLatency, String> fulfilmentMaxColumn;
+    @FXML private Button refreshFulfilmentButton;
+    
     // Communication
     @FXML private TextArea messageArea;
     @FXML private ComboBox<String> messageTypeComboBox;
@@ -85,7 +102,9 @@ public class BranchManagerDashboardController extends BaseDashboardController im
     private ObservableList<UserDTO> staffData = FXCollections.observableArrayList();
     private ObservableList<StockDTO> stockData = FXCollections.observableArrayList();
     private ObservableList<OrderDTO> ordersData = FXCollections.observableArrayList();
+    private long recentOrdersSeq; // latestSeq of the last recent orders poll, 0 before the first
     private ObservableList<String> drinkNames = FXCollections.observableArrayList();
+    private ObservableList<FulfilmentLatencyDTO.StageLatency> fulfilmentData = FXCollections.observableArrayList();
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -95,10 +114,11 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         setupStaffTable();
         setupStockTable();
         setupOrdersTable();
+        setupFulfilmentTable();
         
         // Initialize combo boxes
         messageTypeComboBox.getItems().addAll("INFO", "STOCK_REQUEST", "ISSUE", "REPORT");
-        orderStatusComboBox.getItems().addAll("PENDING", "PROCESSING", "COMPLETED", "CANCELLED");
+        orderStatusComboBox.getItems().addAll("PROCESSING", "COMPLETED", "CANCELLED");
         
         // Initialize date pickers
         LocalDate now = LocalDate.now();
@@ -139,6 +159,22 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
         
         ordersTable.setItems(ordersData);
+        ordersTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    }
+    
+    private void setupFulfilmentTable() {
+        fulfilmentStageColumn.setCellValueFactory(new PropertyValueFactory<>("stage"));
+        fulfilmentCountColumn.setCellValueFactory(new PropertyValueFactory<>("count"));
+        fulfilmentP50Column.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+            formatDuration(cellData.getValue().getP50Seconds())));
+        fulfilmentP90Column.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+            formatDuration(cellData.getValue().getP90Seconds())));
+        fulfilmentP99Column.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+            formatDuration(cellData.getValue().getP99Seconds())));
+        fulfilmentMaxColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+            formatDuration(cellData.getValue().getMaxSeconds())));
+        
+        fulfilmentTable.setItems(fulfilmentData);
     }
     
     private void setupButtonActions() {
@@ -148,6 +184,7 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         requestStockButton.setOnAction(event -> requestStock());
         updateOrderStatusButton.setOnAction(event -> updateOrderStatus());
         updateChartButton.setOnAction(event -> updateSalesChart());
+        refreshFulfilmentButton.setOnAction(event -> loadFulfilmentLatency());
         sendToHQButton.setOnAction(event -> sendMessageToHQ());
         logoutButton.setOnAction(event -> handleLogout());
     }
@@ -163,6 +200,7 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         loadOrders();
         loadDrinks();
         updateSalesChart();
+        loadFulfilmentLatency();
     }
     
     private void loadStaffMembers() {
@@ -231,20 +269,40 @@ public class BranchManagerDashboardController extends BaseDashboardController im
     
     private void loadOrders() {
         progressIndicator.setVisible(true);
+        long sinceSeq = recentOrdersSeq;
         
-        Task<List<OrderDTO>> task = new Task<>() {
+        Task<RecentOrdersDTO> task = new Task<>() {
             @Override
-            protected List<OrderDTO> call() throws Exception {
-                return orderService.getBranchOrders(currentUser.getBranchId());
+            protected RecentOrdersDTO call() throws Exception {
+                // Served from the order service's in-memory recent orders; only changes since the last poll are sent
+                return orderService.getRecentOrders(currentUser, currentUser.getBranchId(), sinceSeq);
             }
             
             @Override
             protected void succeeded() {
-                List<OrderDTO> orders = getValue();
-                ordersData.clear();
-                ordersData.addAll(orders);
+                RecentOrdersDTO recent = getValue();
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Loaded " + orders.size() + " orders for " + currentUser.getBranchName() + " branch");
+                
+                if (recent.isResyncRequired()) {
+                    recentOrdersSeq = 0;
+                    loadOrders();
+                    return;
+                }
+                if (sinceSeq == 0) {
+                    ordersData.clear();
+                }
+                
+                // Newer versions of an order replace the one already shown
+                for (OrderDTO order : recent.getOrders()) {
+                    ordersData.removeIf(existing -> existing.getId().equals(order.getId()));
+                    ordersData.add(0, order);
+                }
+                if (ordersData.size() > ORDER_PAGE_SIZE) {
+                    ordersData.remove(ORDER_PAGE_SIZE, ordersData.size());
+                }
+                recentOrdersSeq = recent.getLatestSeq();
+                
+                statusLabel.setText("Loaded " + ordersData.size() + " recent orders for " + currentUser.getBranchName() + " branch");
             }
             
             @Override
@@ -489,38 +547,30 @@ public class BranchManagerDashboardController extends BaseDashboardController im
     }
     
     private void updateOrderStatus() {
-        OrderDTO selectedOrder = ordersTable.getSelectionModel().getSelectedItem();
+        List<OrderDTO> selectedOrders = new ArrayList<>(ordersTable.getSelectionModel().getSelectedItems());
         String newStatus = orderStatusComboBox.getValue();
         
-        if (selectedOrder == null || newStatus == null) {
-            showError("Please select an order and status");
+        if (selectedOrders.isEmpty() || newStatus == null) {
+            showError("Please select one or more orders and a status");
             return;
         }
         
         progressIndicator.setVisible(true);
         
-        Task<Void> task = new Task<>() {
+        Task<List<Long>> task = new Task<>() {
             @Override
-            protected Void call() throws Exception {
-                // Update order status
-                orderService.updateOrderStatus(selectedOrder.getId(), newStatus);
-                
-                // Send notification to customer
-                NotificationDTO notification = new NotificationDTO(
-                    "Order Status Updated",
-                    "Your order #" + selectedOrder.getId() + " is now " + newStatus,
-                    NotificationDTO.NotificationType.ORDER_UPDATE
-                );
-                
-                notificationService.sendNotification(selectedOrder.getCustomerId(), notification);
-                
-                return null;
+            protected List<Long> call() throws Exception {
+                // Update all selected orders in one call; orders that cannot make the transition are skipped.
+                // The server notifies the affected customers once the change commits.
+                List<Long> orderIds = selectedOrders.stream().map(OrderDTO::getId).collect(Collectors.toList());
+                return orderService.updateOrderStatuses(currentUser, orderIds, newStatus);
             }
             
             @Override
             protected void succeeded() {
+                List<Long> changed = getValue();
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Order #" + selectedOrder.getId() + " updated to " + newStatus);
+                statusLabel.setText("Updated " + changed.size() + " of " + selectedOrders.size() + " orders to " + newStatus);
                 
                 // Refresh orders
                 loadOrders();
@@ -557,27 +607,26 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         Task<List<OrderDTO>> task = new Task<>() {
             @Override
             protected List<OrderDTO> call() throws Exception {
-                return orderService.getBranchOrders(currentUser.getBranchId());
+                // The server filters by branch and date range; only the range's orders cross the wire
+                OrderSearchDTO criteria = new OrderSearchDTO();
+                criteria.setBranchId(currentUser.getBranchId());
+                criteria.setFromDate(startDate);
+                criteria.setToDate(endDate);
+                criteria.setSort(OrderSearchDTO.Sort.OLDEST);
+                
+                List<OrderDTO> orders = new ArrayList<>();
+                String cursor = null;
+                do {
+                    OrderPageDTO page = orderService.searchOrders(currentUser, criteria, cursor, SEARCH_PAGE_SIZE);
+                    orders.addAll(page.getOrders());
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+                return orders;
             }
             
             @Override
             protected void succeeded() {
-                List<OrderDTO> allOrders = getValue();
-                
-                // Filter by date range
-                List<OrderDTO> filteredOrders = allOrders.stream()
-                    .filter(order -> {
-                        try {
-                            LocalDate orderDate = LocalDate.parse(
-                                order.getOrderDate().split(" ")[0],
-                                DateTimeFormatter.ofPattern("yyyy-MM-dd")
-                            );
-                            return !orderDate.isBefore(startDate) && !orderDate.isAfter(endDate);
-                        } catch (Exception e) {
-                            return false;
-                        }
-                    })
-                    .collect(Collectors.toList());
+                List<OrderDTO> filteredOrders = getValue();
                 
                 // Group by date
                 DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -623,6 +672,41 @@ public class BranchManagerDashboardController extends BaseDashboardController im
         new Thread(task).start();
     }
     
+    private void loadFulfilmentLatency() {
+        Task<FulfilmentLatencyDTO> task = new Task<>() {
+            @Override
+            protected FulfilmentLatencyDTO call() throws Exception {
+                return reportService.getBranchFulfilmentLatency(currentUser, currentUser.getBranchId());
+            }
+            
+            @Override
+            protected void succeeded() {
+                FulfilmentLatencyDTO latency = getValue();
+                fulfilmentLabel.setText("Fulfilment Times (last " + latency.getWindowHours() + " hours)");
+                fulfilmentData.setAll(latency.getToProcess(), latency.getToComplete());
+            }
+            
+            @Override
+            protected void failed() {
+                Throwable exception = getException();
+                logger.error("Failed to load fulfilment times", exception);
+                showError("Failed to load fulfilment times: " + exception.getMessage());
+            }
+        };
+        
+        new Thread(task).start();
+    }
+    
+    private static String formatDuration(long seconds) {
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return String.format("%dm %02ds", seconds / 60, seconds % 60);
+        }
+        return String.format("%dh %02dm", seconds / 3600, seconds % 3600 / 60);
+    }
+    
     private void sendMessageToHQ() {
         String message = messageArea.getText().trim();
         String messageType = messageTypeComboBox.getValue();
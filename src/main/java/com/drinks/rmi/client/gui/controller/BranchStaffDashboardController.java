@@ -1,13 +1,16 @@
 package com.drinks.rmi.client.gui.controller;
 
+import com.drinks.rmi.client.gui.FulfilmentCallbackImpl;
 import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderDTO;
 import com.drinks.rmi.dto.OrderItemDTO;
+import com.drinks.rmi.dto.ReceiptDTO;
 import com.drinks.rmi.dto.StockDTO;
 import com.drinks.rmi.dto.DrinkDTO;
 import com.drinks.rmi.dto.UserDTO;
 // import com.drinks.rmi.interfaces.*;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
@@ -21,11 +24,13 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.rmi.RemoteException;
-import java.time.LocalDateTime;
 // import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -90,7 +95,10 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
     private ObservableList<OrderItemDTO> orderItemsData = FXCollections.observableArrayList();
     private ObservableList<StockDTO> stockData = FXCollections.observableArrayList();
     private ObservableList<OrderItemDTO> cartData = FXCollections.observableArrayList();
+    private String checkoutKey; // Idempotency key for the current cart, reused when an order is retried
+    private FulfilmentCallbackImpl fulfilmentCallback; // Set while the branch queue pushes changes to this screen
     private ObservableList<String> drinkNames = FXCollections.observableArrayList();
+    private Map<String, DrinkDTO> drinksByName = Map.of(); // Drinks of the combo box, so adding to the cart needs no server call
     private ObservableList<String> customerNames = FXCollections.observableArrayList();
     
     @Override
@@ -114,9 +122,15 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         customerNameColumn.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         orderDateColumn.setCellValueFactory(new PropertyValueFactory<>("orderDate"));
         totalAmountColumn.setCellValueFactory(new PropertyValueFactory<>("totalAmount"));
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
+        statusColumn.setCellValueFactory(cellData -> {
+            OrderDTO order = cellData.getValue();
+            return new SimpleStringProperty(order.getClaimedBy() != null
+                ? order.getStatus() + " (" + order.getClaimedBy() + ")"
+                : order.getStatus());
+        });
         
         pendingOrdersTable.setItems(pendingOrdersData);
+        pendingOrdersTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         
         // Add selection listener
         pendingOrdersTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
@@ -172,6 +186,7 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         
         // Load initial data
         loadPendingOrders();
+        subscribeToQueue();
         loadStockData();
         loadDrinks();
         loadCustomers();
@@ -186,10 +201,8 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         Task<List<OrderDTO>> task = new Task<>() {
             @Override
             protected List<OrderDTO> call() throws Exception {
-                List<OrderDTO> allOrders = orderService.getBranchOrders(currentUser.getBranchId());
-                return allOrders.stream()
-                    .filter(order -> "PENDING".equals(order.getStatus()) || "PROCESSING".equals(order.getStatus()))
-                    .collect(Collectors.toList());
+                // Open orders come from the branch server's in-memory queue, already in priority order
+                return orderService.getFulfilmentQueue(currentUser, currentUser.getBranchId());
             }
             
             @Override
@@ -216,6 +229,57 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         new Thread(task).start();
     }
     
+    /**
+     * Have the branch server push queue changes to this screen instead of reloading after every action
+     */
+    private void subscribeToQueue() {
+        Task<FulfilmentCallbackImpl> task = new Task<>() {
+            @Override
+            protected FulfilmentCallbackImpl call() throws Exception {
+                FulfilmentCallbackImpl callback = new FulfilmentCallbackImpl(BranchStaffDashboardController.this::applyQueueUpdate);
+                orderService.subscribeFulfilment(currentUser, currentUser.getBranchId(), callback);
+                return callback;
+            }
+            
+            @Override
+            protected void succeeded() {
+                fulfilmentCallback = getValue();
+                // Changes made between the first load and the subscription are picked up here
+                loadPendingOrders();
+            }
+            
+            @Override
+            protected void failed() {
+                logger.warn("Live order queue unavailable, reloading after changes instead", getException());
+            }
+        };
+        
+        new Thread(task).start();
+    }
+    
+    private void applyQueueUpdate(List<OrderDTO> changed, List<Long> removedOrderIds) {
+        OrderDTO selected = pendingOrdersTable.getSelectionModel().getSelectedItem();
+        List<Long> affected = new ArrayList<>(removedOrderIds);
+        changed.forEach(order -> affected.add(order.getId()));
+        
+        pendingOrdersData.removeIf(order -> affected.contains(order.getId()));
+        pendingOrdersData.addAll(changed);
+        FXCollections.sort(pendingOrdersData, OrderDTO.FULFILMENT_PRIORITY);
+        
+        if (selected != null && removedOrderIds.contains(selected.getId())) {
+            orderItemsData.clear();
+        }
+        if (!changed.isEmpty() || !removedOrderIds.isEmpty()) {
+            statusLabel.setText(pendingOrdersData.size() + " open orders");
+        }
+    }
+    
+    private void refreshPendingOrdersIfNotLive() {
+        if (fulfilmentCallback == null) {
+            loadPendingOrders();
+        }
+    }
+    
     private void loadOrderItems(Long orderId) {
         progressIndicator.setVisible(true);
         
@@ -289,6 +353,8 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
                 List<DrinkDTO> drinks = getValue();
                 drinkNames.clear();
                 drinks.forEach(drink -> drinkNames.add(drink.getName()));
+                drinksByName = drinks.stream()
+                    .collect(Collectors.toMap(DrinkDTO::getName, drink -> drink, (first, second) -> first));
                 
                 // Update drink combo box
                 drinkComboBox.setItems(drinkNames);
@@ -349,104 +415,58 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
     }
     
     private void processOrder() {
-        OrderDTO selectedOrder = pendingOrdersTable.getSelectionModel().getSelectedItem();
-        if (selectedOrder == null) {
-            showError("Please select an order to process");
-            return;
-        }
-        
-        if (!"PENDING".equals(selectedOrder.getStatus())) {
-            showError("Only PENDING orders can be processed");
-            return;
-        }
-        
-        progressIndicator.setVisible(true);
-        
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                // Update order status
-                orderService.updateOrderStatus(selectedOrder.getId(), "PROCESSING");
-                
-                // Send notification to customer
-                NotificationDTO notification = new NotificationDTO(
-                    "Order Status Updated",
-                    "Your order #" + selectedOrder.getId() + " is now being processed",
-                    NotificationDTO.NotificationType.ORDER_UPDATE
-                );
-                
-                notificationService.sendNotification(selectedOrder.getCustomerId(), notification);
-                
-                return null;
-            }
-            
-            @Override
-            protected void succeeded() {
-                progressIndicator.setVisible(false);
-                statusLabel.setText("Order #" + selectedOrder.getId() + " is now being processed");
-                
-                // Refresh orders
-                loadPendingOrders();
-            }
-            
-            @Override
-            protected void failed() {
-                Throwable exception = getException();
-                logger.error("Failed to process order", exception);
-                showError("Failed to process order: " + exception.getMessage());
-                progressIndicator.setVisible(false);
-            }
-        };
-        
-        new Thread(task).start();
+        transitionSelectedOrders("PROCESSING", "process", "is now being processed");
     }
     
     private void completeOrder() {
-        OrderDTO selectedOrder = pendingOrdersTable.getSelectionModel().getSelectedItem();
-        if (selectedOrder == null) {
-            showError("Please select an order to complete");
-            return;
-        }
-        
-        if (!"PROCESSING".equals(selectedOrder.getStatus())) {
-            showError("Only PROCESSING orders can be completed");
+        transitionSelectedOrders("COMPLETED", "complete", "has been completed");
+    }
+    
+    private void cancelOrder() {
+        transitionSelectedOrders("CANCELLED", "cancel", "has been cancelled");
+    }
+    
+    /**
+     * Move all selected orders to a new status in one call; the server skips orders that cannot make the transition
+     */
+    private void transitionSelectedOrders(String newStatus, String action, String outcome) {
+        List<OrderDTO> selectedOrders = new ArrayList<>(pendingOrdersTable.getSelectionModel().getSelectedItems());
+        if (selectedOrders.isEmpty()) {
+            showError("Please select one or more orders to " + action);
             return;
         }
         
         progressIndicator.setVisible(true);
         
-        Task<Void> task = new Task<>() {
+        Task<List<Long>> task = new Task<>() {
             @Override
-            protected Void call() throws Exception {
-                // Update order status
-                orderService.updateOrderStatus(selectedOrder.getId(), "COMPLETED");
-                
-                // Send notification to customer
-                NotificationDTO notification = new NotificationDTO(
-                    "Order Completed",
-                    "Your order #" + selectedOrder.getId() + " has been completed",
-                    NotificationDTO.NotificationType.ORDER_CONFIRMED
-                );
-                
-                notificationService.sendNotification(selectedOrder.getCustomerId(), notification);
-                
-                return null;
+            protected List<Long> call() throws Exception {
+                // The server notifies the affected customers once the change commits
+                List<Long> orderIds = selectedOrders.stream().map(OrderDTO::getId).collect(Collectors.toList());
+                return moveOrders(orderIds, newStatus);
             }
             
             @Override
             protected void succeeded() {
+                List<Long> changed = getValue();
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Order #" + selectedOrder.getId() + " has been completed");
+                if (changed.size() == 1 && selectedOrders.size() == 1) {
+                    statusLabel.setText("Order #" + changed.get(0) + " " + outcome);
+                } else if (changed.size() == selectedOrders.size()) {
+                    statusLabel.setText(changed.size() + " orders moved to " + newStatus);
+                } else {
+                    statusLabel.setText(changed.size() + " of " + selectedOrders.size() + " orders updated; the rest cannot be moved to " + newStatus);
+                }
                 
                 // Refresh orders
-                loadPendingOrders();
+                refreshPendingOrdersIfNotLive();
             }
             
             @Override
             protected void failed() {
                 Throwable exception = getException();
-                logger.error("Failed to complete order", exception);
-                showError("Failed to complete order: " + exception.getMessage());
+                logger.error("Failed to {} orders", action, exception);
+                showError("Failed to " + action + " orders: " + exception.getMessage());
                 progressIndicator.setVisible(false);
             }
         };
@@ -454,57 +474,32 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         new Thread(task).start();
     }
     
-    private void cancelOrder() {
-        OrderDTO selectedOrder = pendingOrdersTable.getSelectionModel().getSelectedItem();
-        if (selectedOrder == null) {
-            showError("Please select an order to cancel");
-            return;
+    /**
+     * Claiming and completing go through the branch queue one order at a time, so the queue records who took
+     * each order; other changes use the batch update. A single order's failure is reported with its reason.
+     */
+    private List<Long> moveOrders(List<Long> orderIds, String newStatus) throws RemoteException {
+        if (!"PROCESSING".equals(newStatus) && !"COMPLETED".equals(newStatus)) {
+            return orderService.updateOrderStatuses(currentUser, orderIds, newStatus);
         }
         
-        if ("COMPLETED".equals(selectedOrder.getStatus()) || "CANCELLED".equals(selectedOrder.getStatus())) {
-            showError("Cannot cancel completed or already cancelled orders");
-            return;
-        }
-        
-        progressIndicator.setVisible(true);
-        
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                // Update order status
-                orderService.updateOrderStatus(selectedOrder.getId(), "CANCELLED");
-                
-                // Send notification to customer
-                NotificationDTO notification = new NotificationDTO(
-                    "Order Cancelled",
-                    "Your order #" + selectedOrder.getId() + " has been cancelled",
-                    NotificationDTO.NotificationType.ORDER_UPDATE
-                );
-                
-                notificationService.sendNotification(selectedOrder.getCustomerId(), notification);
-                
-                return null;
-            }
-            
-            @Override
-            protected void succeeded() {
-                progressIndicator.setVisible(false);
-                statusLabel.setText("Order #" + selectedOrder.getId() + " has been cancelled");
-                
-                // Refresh orders
-                loadPendingOrders();
-            }
-            
-            @Override
-            protected void failed() {
-                Throwable exception = getException();
-                logger.error("Failed to cancel order", exception);
-                showError("Failed to cancel order: " + exception.getMessage());
-                progressIndicator.setVisible(false);
+        List<Long> changed = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            try {
+                if ("PROCESSING".equals(newStatus)) {
+                    orderService.claimOrder(currentUser, orderId);
+                } else {
+                    orderService.completeOrder(currentUser, orderId);
+                }
+                changed.add(orderId);
+            } catch (RemoteException e) {
+                if (orderIds.size() == 1) {
+                    throw e;
+                }
+                logger.warn("Could not move order {} to {}: {}", orderId, newStatus, e.getMessage());
             }
-        };
-        
-        new Thread(task).start();
+        }
+        return changed;
     }
     
     private void searchDrink() {
@@ -580,9 +575,11 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
     
     @FXML
     private void handleAddToCart() {
-        DrinkDTO selectedDrink = null;
+        DrinkDTO selectedDrink = drinksByName.get(drinkComboBox.getValue());
         try {
-            selectedDrink = drinkService.getDrinkByName(drinkComboBox.getValue());
+            if (selectedDrink == null && drinkComboBox.getValue() != null) {
+                selectedDrink = drinkService.getDrinkByName(drinkComboBox.getValue());
+            }
             if (selectedDrink == null) {
                 showError("Please select a drink");
                 return;
@@ -615,6 +612,7 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
     }
     
     private void updateCartTotal() {
+        checkoutKey = null;
         BigDecimal total = cartData.stream()
             .map(OrderItemDTO::getSubtotal)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -671,50 +669,39 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         
         progressIndicator.setVisible(true);
         
-        Task<OrderDTO> task = new Task<>() {
+        // Retrying the same cart reuses the key so the order is only created once
+        if (checkoutKey == null) {
+            checkoutKey = UUID.randomUUID().toString();
+        }
+        String idempotencyKey = checkoutKey;
+        
+        // The cart may hold several lines of one drink; the till sells quantities per drink
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        for (OrderItemDTO line : cartData) {
+            items.merge(line.getDrinkId(), line.getQuantity(), Integer::sum);
+        }
+        
+        Task<ReceiptDTO> task = new Task<>() {
             @Override
-            protected OrderDTO call() throws Exception {
-                // Create order
-                OrderDTO newOrder = new OrderDTO();
-                newOrder.setCustomerId(customerId);
-                newOrder.setBranchId(currentUser.getBranchId());
-                newOrder.setOrderTime(LocalDateTime.now());
-                newOrder.setStatus("PENDING");
-                
-                // Calculate total using BigDecimal
-                BigDecimal subtotal = cartData.stream()
-                    .map(OrderItemDTO::getSubtotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                newOrder.setTotalAmount(subtotal.doubleValue());
-                
-                // Convert cart items to list
-                List<OrderItemDTO> items = new ArrayList<>(cartData);
-                
-                try {
-                    OrderDTO createdOrder = orderService.createOrder(newOrder, items);
-                    return createdOrder;
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                    throw new RuntimeException("Failed to create order", e);
-                }
+            protected ReceiptDTO call() throws Exception {
+                // Priced, stock-checked and committed by the branch server in one call
+                return orderService.quickSale(currentUser, customerId, items, idempotencyKey);
             }
             
             @Override
             protected void succeeded() {
-                OrderDTO createdOrder = getValue();
+                ReceiptDTO receipt = getValue();
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Order #" + createdOrder.getId() + " created successfully");
+                statusLabel.setText(String.format("Order #%d created successfully - Total: KES %.2f",
+                    receipt.getOrderId(), receipt.getTotal()));
                 
                 // Clear cart
                 cartData.clear();
                 updateCartTotal();
                 
-                // Refresh orders and stock
-                loadPendingOrders();
+                // Refresh orders and stock; the customer's confirmation is sent by the server
+                refreshPendingOrdersIfNotLive();
                 loadStockData();
-                
-                // Send notification to customer
-                sendOrderConfirmation(createdOrder.getId(), createdOrder.getCustomerId());
             }
             
             @Override
@@ -729,32 +716,6 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
         new Thread(task).start();
     }
     
-    private void sendOrderConfirmation(Long orderId, Long customerId) {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                // Create notification
-                NotificationDTO notification = new NotificationDTO(
-                    "Order Confirmation",
-                    "Your order #" + orderId + " has been placed at " + currentUser.getBranchName() + " branch",
-                    NotificationDTO.NotificationType.ORDER_CONFIRMED
-                );
-                
-                // Send to customer
-                notificationService.sendNotification(customerId, notification);
-                
-                return null;
-            }
-            
-            @Override
-            protected void failed() {
-                logger.error("Failed to send order confirmation", getException());
-            }
-        };
-        
-        new Thread(task).start();
-    }
-    
     @Override
     protected void handleNotification(NotificationDTO notification) {
         super.handleNotification(notification);
@@ -766,7 +727,7 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
                 statusLabel.setStyle("-fx-text-fill: blue;");
                 
                 // Refresh orders
-                loadPendingOrders();
+                refreshPendingOrdersIfNotLive();
             });
         } else if (notification.getType() == NotificationDTO.NotificationType.STOCK_UPDATE) {
             Platform.runLater(() -> {
@@ -778,4 +739,18 @@ public class BranchStaffDashboardController extends BaseDashboardController impl
             });
         }
     }
+    
+    @Override
+    public void handleLogout() {
+        if (fulfilmentCallback != null) {
+            try {
+                orderService.unsubscribeFulfilment(currentUser, currentUser.getBranchId(), fulfilmentCallback);
+            } catch (RemoteException e) {
+                logger.warn("Failed to unsubscribe from the order queue", e);
+            }
+            fulfilmentCallback.shutdown();
+            fulfilmentCallback = null;
+        }
+        super.handleLogout();
+    }
 }
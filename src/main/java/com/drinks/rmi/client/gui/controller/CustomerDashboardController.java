@@ -2,8 +2,10 @@ package com.drinks.rmi.client.gui.controller;
 
 import com.drinks.rmi.interfaces.*;
 import com.drinks.rmi.client.gui.NotificationCallbackImpl;
+import com.drinks.rmi.dto.CartDTO;
 import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderItemDTO;
 import com.drinks.rmi.dto.DrinkDTO;
 import com.drinks.rmi.dto.UserDTO;
 
@@ -31,8 +33,6 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.util.Enumeration;
 // import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javafx.scene.Parent;
@@ -53,6 +53,7 @@ public class CustomerDashboardController extends BaseDashboardController impleme
     // User Info
     @FXML private Label welcomeLabel;
     @FXML private Label serverInfoLabel;
+    @FXML private Label loyaltyLabel;
     @FXML private Button logoutButton;
     
     // Drinks Catalog
@@ -98,39 +99,7 @@ public class CustomerDashboardController extends BaseDashboardController impleme
     private ObservableList<OrderDTO> ordersData = FXCollections.observableArrayList();
     private ObservableList<String> cartData = FXCollections.observableArrayList();
     
-    private List<CartItem> cartItems = new ArrayList<>();
-    // private double cartTotal = 0.0;
-    
-    // Helper class for cart items
-    private static class CartItem {
-        private DrinkDTO drink;
-        private int quantity;
-        private String branch;
-        
-        CartItem(DrinkDTO drink, int quantity, String branch) {
-            this.drink = drink;
-            this.quantity = quantity;
-            this.branch = branch;
-        }
-        
-        public DrinkDTO getDrink() {
-            return drink;
-        }
-
-        public int getQuantity() {
-            return quantity;
-        }
-        
-        public BigDecimal getSubtotal() {
-            return drink.getPrice().multiply(BigDecimal.valueOf(quantity));
-        }
-        
-        @Override
-        public String toString() {
-            return String.format("%s x%d @ %s - $%.2f", 
-                drink.getName(), quantity, branch, getSubtotal());
-        }
-    }
+    private CartDTO cart; // Server-side cart of this session, null until the first item is added
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -182,6 +151,7 @@ public class CustomerDashboardController extends BaseDashboardController impleme
         addToCartButton.setOnAction(e -> handleAddToCart());
         placeOrderButton.setOnAction(e -> handlePlaceOrder());
         clearCartButton.setOnAction(e -> handleClearCart());
+        branchComboBox.valueProperty().addListener((obs, oldBranch, newBranch) -> handleBranchChange(newBranch));
         refreshOrdersButton.setOnAction(e -> loadOrders());
         logoutButton.setOnAction(e -> handleLogout());
     }
@@ -347,6 +317,35 @@ public class CustomerDashboardController extends BaseDashboardController impleme
         // Load initial data
         loadDrinks();
         loadOrders();
+        loadLoyaltyPoints();
+    }
+    
+    /**
+     * Show the customer's loyalty points; points for a payment arrive shortly after it succeeds
+     */
+    private void loadLoyaltyPoints() {
+        PaymentService payments = getOrCreatePaymentService();
+        if (payments == null) {
+            return;
+        }
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return payments.getLoyaltyPoints(currentUser, currentUser.getCustomerId());
+            }
+            
+            @Override
+            protected void succeeded() {
+                loyaltyLabel.setText("Loyalty points: " + getValue());
+            }
+            
+            @Override
+            protected void failed() {
+                logger.warn("Failed to load loyalty points", getException());
+            }
+        };
+        
+        new Thread(task).start();
     }
     
     private void loadDrinks() {
@@ -450,14 +449,39 @@ public class CustomerDashboardController extends BaseDashboardController impleme
             return;
         }
         
-        String selectedBranch = branchComboBox.getValue();
+        Long branchId = getBranchIdByName(branchComboBox.getValue());
+        if (branchId == null) {
+            showError("Please select a branch");
+            return;
+        }
         int quantity = quantitySpinner.getValue();
         
-        CartItem cartItem = new CartItem(selectedDrink, quantity, selectedBranch);
-        cartItems.add(cartItem);
-        
-        updateCartDisplay();
-        statusLabel.setText("Added " + selectedDrink.getName() + " to cart");
+        try {
+            // The server prices the cart and reports stock as it grows; a placed cart starts a new one
+            if (cart == null || cart.isCheckedOut()) {
+                cart = orderService.openCart(currentUser, currentUser.getCustomerId(), branchId);
+            }
+            cart = orderService.addToCart(currentUser, cart.getCartId(), selectedDrink.getId(), quantity);
+            updateCartDisplay();
+            statusLabel.setText("Added " + selectedDrink.getName() + " to cart");
+        } catch (RemoteException e) {
+            logger.error("Failed to add to cart", e);
+            showError("Failed to add to cart: " + e.getMessage());
+        }
+    }
+    
+    private void handleBranchChange(String branchName) {
+        Long branchId = branchName != null ? getBranchIdByName(branchName) : null;
+        if (cart == null || cart.isCheckedOut() || branchId == null) {
+            return;
+        }
+        try {
+            cart = orderService.setCartBranch(currentUser, cart.getCartId(), branchId);
+            updateCartDisplay();
+        } catch (RemoteException e) {
+            logger.error("Failed to move cart to {}", branchName, e);
+            showError("Failed to move cart to " + branchName + ": " + e.getMessage());
+        }
     }
     
     private void showAlert(String title, String message) {
@@ -470,42 +494,36 @@ public class CustomerDashboardController extends BaseDashboardController impleme
 
     @FXML
     private void handlePlaceOrder() {
-        if (cartItems.isEmpty()) {
+        if (cart == null || cart.isEmpty()) {
             showAlert("Error", "Cart is empty");
             return;
         }
         
         try {
             String selectedBranchName = branchComboBox.getValue();
-            if (selectedBranchName == null) {
-                showAlert("Error", "Please select a branch");
-                return;
-            }
             
-            // Map branch names to IDs
-            Long branchId = getBranchIdByName(selectedBranchName);
-            if (branchId == null) {
-                showAlert("Error", "Invalid branch selection");
+            // One call places the cart; checking out the same cart again returns the same order
+            OrderDTO order;
+            try {
+                order = orderService.checkoutCart(currentUser, cart.getCartId());
+            } catch (RemoteException e) {
+                if (e.getMessage() == null || !e.getMessage().contains("Insufficient stock")) {
+                    throw e;
+                }
+                // Show the current stock of each line before offering to split the order
+                cart = orderService.getCart(currentUser, cart.getCartId());
+                updateCartDisplay();
+                if (!confirmSplitOrder(selectedBranchName)) {
+                    throw e;
+                }
+                placeSplitOrder(cart.getBranchId(), cart.getQuantities());
                 return;
             }
-            
-            Map<Long, Integer> orderItems = new HashMap<>();
-            for (CartItem item : cartItems) {
-                orderItems.put(item.getDrink().getId(), item.getQuantity());
-            }
-            
-            // Calculate total amount for payment
-            BigDecimal totalAmount = cartItems.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // First create the order
-            OrderDTO order = orderService.placeOrder(currentUser, currentUser.getCustomerId(), branchId, orderItems);
-            Long orderId = order.getId();
-            logger.info("Order created with ID: {}", orderId);
+            cart.setOrderId(order.getId());
+            logger.info("Order created with ID: {}", order.getId());
             
             // Now show payment dialog
-            showPaymentDialog(orderId, selectedBranchName, cartItems.size(), totalAmount);
+            showPaymentDialog(order.getId(), selectedBranchName, order.getItems().size(), BigDecimal.valueOf(order.getTotalAmount()));
             
         } catch (RemoteException e) {
             logger.error("Failed to place order", e);
@@ -516,6 +534,35 @@ public class CustomerDashboardController extends BaseDashboardController impleme
         }
     }
     
+    private boolean confirmSplitOrder(String branchName) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Split Order");
+        alert.setHeaderText(branchName + " cannot supply your whole cart");
+        alert.setContentText("Place the order with the items shared between branches that have them in stock?");
+        return alert.showAndWait().filter(ButtonType.OK::equals).isPresent();
+    }
+    
+    /**
+     * Place the cart as one sub-order per fulfilling branch and take payment for each
+     */
+    private void placeSplitOrder(Long branchId, Map<Long, Integer> orderItems) throws RemoteException {
+        // Keyed by the cart, so a retried split of the same cart returns the sub-orders already placed
+        List<OrderDTO> orders = orderService.placeSplitOrder(currentUser, currentUser.getCustomerId(), branchId, orderItems,
+                                                             "split-" + cart.getCartId());
+        clearCart();
+        logger.info("Split order created as {} orders", orders.size());
+        
+        StringBuilder summary = new StringBuilder();
+        for (OrderDTO order : orders) {
+            summary.append(String.format("Order #%d from %s: KES %.2f%n", order.getId(), order.getBranchName(), order.getTotalAmount()));
+        }
+        showAlert("Order Split", summary.toString());
+        
+        for (OrderDTO order : orders) {
+            showPaymentDialog(order.getId(), order.getBranchName(), order.getItems().size(), BigDecimal.valueOf(order.getTotalAmount()));
+        }
+    }
+    
     /**
      * Get or create the payment service
      */
@@ -596,9 +643,9 @@ public class CustomerDashboardController extends BaseDashboardController impleme
                     Platform.runLater(() -> {
                         statusLabel.setText("✅ Payment successful! Order #" + orderId + " confirmed.");
                         statusLabel.setStyle("-fx-text-fill: green;");
-                        cartItems.clear();
-                        updateCartTotal();
+                        clearCart();
                         loadOrders(); // Refresh orders list
+                        loadLoyaltyPoints();
                     });
                 } else if (result != null) {
                     Platform.runLater(() -> {
@@ -629,29 +676,44 @@ public class CustomerDashboardController extends BaseDashboardController impleme
     
     @FXML
     private void handleClearCart() {
-        cartItems.clear();
-        updateCartDisplay();
+        clearCart();
         statusLabel.setText("Cart cleared");
     }
     
-    private void updateCartDisplay() {
-        cartData.clear();
-        double total = calculateCartTotal();
-        totalLabel.setText(String.format("$%.2f", total));
-        placeOrderButton.setDisable(cartItems.isEmpty());
-        clearCartButton.setDisable(cartItems.isEmpty());
-        
-        for (CartItem item : cartItems) {
-            cartData.add(item.toString());
+    /**
+     * Drop the server-side cart and empty the cart view
+     */
+    private void clearCart() {
+        if (cart != null) {
+            String cartId = cart.getCartId();
+            cart = null;
+            try {
+                orderService.discardCart(currentUser, cartId);
+            } catch (RemoteException e) {
+                // The server drops idle carts on its own
+                logger.warn("Failed to discard cart {}", cartId, e);
+            }
         }
+        updateCartDisplay();
     }
     
-    private double calculateCartTotal() {
-        double total = 0.0;
-        for (CartItem item : cartItems) {
-            total += item.getSubtotal().doubleValue();
+    private void updateCartDisplay() {
+        cartData.clear();
+        boolean empty = cart == null || cart.isEmpty();
+        totalLabel.setText(String.format("$%.2f", empty ? BigDecimal.ZERO : cart.getTotal()));
+        placeOrderButton.setDisable(empty);
+        clearCartButton.setDisable(empty);
+        
+        if (!empty) {
+            for (OrderItemDTO item : cart.getItems()) {
+                String line = String.format("%s x%d @ %s - $%.2f", item.getDrinkName(), item.getQuantity(),
+                    cart.getBranchName(), item.getSubtotal().subtract(item.getDiscountAmount()));
+                if (!cart.isInStock(item)) {
+                    line += String.format(" (only %d in stock)", cart.getAvailable(item));
+                }
+                cartData.add(line);
+            }
         }
-        return total;
     }
     
     protected void setupNotifications() {
@@ -737,18 +799,11 @@ public class CustomerDashboardController extends BaseDashboardController impleme
         }
     }
     
-    private void updateCartTotal() {
-        BigDecimal total = cartItems.stream()
-            .map(CartItem::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        Platform.runLater(() -> 
-            totalLabel.setText("Total: $" + String.format("%.2f", total))
-        );
-    }
-    
     @Override
     public void handleLogout() {
         try {
+            clearCart();
+            
             // Cleanup notifications
             if (notificationCallback != null) {
                 notificationCallback.setActive(false);
@@ -2,6 +2,7 @@ package com.drinks.rmi.client.gui.controller;
 
 import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderPageDTO;
 import com.drinks.rmi.dto.StockDTO;
 import com.drinks.rmi.dto.DrinkDTO;
 import com.drinks.rmi.dto.UserDTO;
@@ -35,6 +36,7 @@ import java.util.stream.Collectors;
 public class GlobalManagerDashboardController extends BaseDashboardController implements Initializable {
     
     private static final Logger logger = LoggerFactory.getLogger(GlobalManagerDashboardController.class);
+    private static final int ORDER_PAGE_SIZE = 200;
     
     // Branch Management
     @FXML private TableView<StockDTO> branchStockTable;
@@ -237,19 +239,21 @@ public class GlobalManagerDashboardController extends BaseDashboardController im
     private void loadSalesData() {
         progressIndicator.setVisible(true);
         
-        Task<List<OrderDTO>> task = new Task<>() {
+        Task<OrderPageDTO> task = new Task<>() {
             @Override
-            protected List<OrderDTO> call() throws Exception {
-                return orderService.getAllOrders();
+            protected OrderPageDTO call() throws Exception {
+                return orderService.getAllOrdersPage(null, ORDER_PAGE_SIZE);
             }
             
             @Override
             protected void succeeded() {
-                List<OrderDTO> orders = getValue();
+                OrderPageDTO page = getValue();
                 salesData.clear();
-                salesData.addAll(orders);
+                salesData.addAll(page.getOrders());
                 progressIndicator.setVisible(false);
-                statusLabel.setText("Loaded sales data for all branches");
+                statusLabel.setText(page.isHasMore()
+                    ? "Loaded latest " + page.getOrders().size() + " orders for all branches"
+                    : "Loaded sales data for all branches");
             }
             
             @Override
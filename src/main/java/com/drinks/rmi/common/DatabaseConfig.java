@@ -13,7 +13,7 @@ public class DatabaseConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
 
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/drinkdbsales?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/drinkdbsales?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&rewriteBatchedStatements=true";
     private static final String DB_USERNAME = "dba";
     private static final String DB_PASSWORD = "zIppoRah";
 
@@ -45,7 +45,14 @@ public class DatabaseConfig {
         }
     }
 
+    /**
+     * Get a pooled connection, or the current unit of work's connection if one is active on this thread
+     */
     public static Connection getConnection() throws SQLException {
+        Connection joined = UnitOfWork.joinedConnection();
+        if (joined != null) {
+            return joined;
+        }
         if (dataSource == null) {
             throw new SQLException("DataSource is not initialized");
         }
@@ -0,0 +1,138 @@
+package com.drinks.rmi.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One pooled connection and transaction bound to the current service call
+ * While a unit is active on a thread, DatabaseConfig.getConnection() hands out the unit's connection,
+ * so nested service calls join the same transaction instead of taking connections of their own.
+ * The outermost unit commits or rolls back once; a nested failure or rollback makes it roll back.
+ */
+public final class UnitOfWork {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Work done on the unit's connection
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute(Connection conn) throws SQLException, RemoteException;
+    }
+
+    private final Connection connection;
+    private final Connection joined;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean rollbackOnly;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.joined = (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                        case "commit":
+                        case "setAutoCommit":
+                            // The outermost unit owns the connection and its transaction
+                            return null;
+                        case "getAutoCommit":
+                            return false;
+                        case "rollback":
+                            if (args == null) {
+                                rollbackOnly = true;
+                                return null;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Run work in the current unit, or in a new one committed when the work returns
+     * @throws SQLException if the work fails, or if the unit was marked for rollback
+     */
+    public static <T> T run(Work<T> work) throws SQLException, RemoteException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            try {
+                return work.execute(current.joined);
+            } catch (SQLException | RemoteException | RuntimeException e) {
+                current.rollbackOnly = true;
+                throw e;
+            }
+        }
+        return begin(work);
+    }
+
+    /**
+     * Run an action once the current unit commits, or now if no unit is active
+     * Actions run after the transaction is over, so their failures are logged rather than reported.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * The connection of the current unit, whose close and commit are left to the unit; null if none is active
+     */
+    static Connection joinedConnection() {
+        UnitOfWork current = CURRENT.get();
+        return current != null ? current.joined : null;
+    }
+
+    private static <T> T begin(Work<T> work) throws SQLException, RemoteException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            UnitOfWork unit = new UnitOfWork(conn);
+            conn.setAutoCommit(false);
+            CURRENT.set(unit);
+            T result;
+            try {
+                result = work.execute(conn);
+                if (unit.rollbackOnly) {
+                    throw new SQLException("Transaction rolled back by a nested call");
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                CURRENT.remove();
+                conn.setAutoCommit(true);
+            }
+            for (Runnable action : unit.afterCommit) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.error("After-commit action failed", e);
+                }
+            }
+            return result;
+        }
+    }
+}
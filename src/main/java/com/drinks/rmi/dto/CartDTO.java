@@ -0,0 +1,168 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for a shopping cart kept on the server
+ * Every change to the cart returns a fresh copy with current prices, promotions and stock hints
+ */
+public class CartDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String cartId;                // Server-side cart identifier
+    private Long customerId;              // Customer the cart is for
+    private Long branchId;                // Branch the cart will be ordered from
+    private String branchName;            // Branch name for display
+    private List<OrderItemDTO> items = new ArrayList<>();          // Priced lines, one per drink
+    private Map<Long, Integer> available = new HashMap<>();        // Units on hand at the branch, by drink ID
+    private BigDecimal subtotal = BigDecimal.ZERO;                 // Sum of line subtotals before promotions
+    private BigDecimal discountTotal = BigDecimal.ZERO;            // Sum of promotion discounts
+    private BigDecimal total = BigDecimal.ZERO;                    // Amount the order would cost now
+    private Long orderId;                 // Order created at checkout, null until then
+
+    // Default constructor for serialization
+    public CartDTO() {
+    }
+
+    /**
+     * Units of the line's drink on hand at the branch, as last seen by the server
+     */
+    public int getAvailable(OrderItemDTO item) {
+        Integer onHand = available.get(item.getDrinkId());
+        return onHand != null ? onHand : 0;
+    }
+
+    /**
+     * Whether the branch appears to have enough stock for the line; checkout makes the final check
+     */
+    public boolean isInStock(OrderItemDTO item) {
+        return getAvailable(item) >= item.getQuantity();
+    }
+
+    public boolean isAllInStock() {
+        for (OrderItemDTO item : items) {
+            if (!isInStock(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drink IDs and quantities of the cart, in cart order
+     */
+    public Map<Long, Integer> getQuantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemDTO item : items) {
+            quantities.put(item.getDrinkId(), item.getQuantity());
+        }
+        return quantities;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public boolean isCheckedOut() {
+        return orderId != null;
+    }
+
+    // Getters and setters
+    public String getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(String cartId) {
+        this.cartId = cartId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    public List<OrderItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemDTO> items) {
+        this.items = items;
+    }
+
+    public Map<Long, Integer> getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(Map<Long, Integer> available) {
+        this.available = available;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public BigDecimal getDiscountTotal() {
+        return discountTotal;
+    }
+
+    public void setDiscountTotal(BigDecimal discountTotal) {
+        this.discountTotal = discountTotal;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    @Override
+    public String toString() {
+        return "CartDTO{" +
+                "cartId='" + cartId + '\'' +
+                ", customerId=" + customerId +
+                ", branchId=" + branchId +
+                ", items=" + items.size() +
+                ", total=" + total +
+                ", orderId=" + orderId +
+                '}';
+    }
+}
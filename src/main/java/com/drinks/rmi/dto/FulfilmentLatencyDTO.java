@@ -0,0 +1,150 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+
+/**
+ * Data Transfer Object for how long a branch's orders waited in each fulfilment stage
+ * Covers the orders that finished a stage within the last window hours; durations are in seconds
+ */
+public class FulfilmentLatencyDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Count and percentiles of one stage, from entering it to leaving it
+     */
+    public static class StageLatency implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String stage;                 // Stage name for display
+        private long count;                   // Orders that finished the stage in the window
+        private long p50Seconds;
+        private long p90Seconds;
+        private long p99Seconds;
+        private long maxSeconds;
+
+        // Default constructor for serialization
+        public StageLatency() {
+        }
+
+        public StageLatency(String stage) {
+            this.stage = stage;
+        }
+
+        // Getters and setters
+        public String getStage() {
+            return stage;
+        }
+
+        public void setStage(String stage) {
+            this.stage = stage;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getP50Seconds() {
+            return p50Seconds;
+        }
+
+        public void setP50Seconds(long p50Seconds) {
+            this.p50Seconds = p50Seconds;
+        }
+
+        public long getP90Seconds() {
+            return p90Seconds;
+        }
+
+        public void setP90Seconds(long p90Seconds) {
+            this.p90Seconds = p90Seconds;
+        }
+
+        public long getP99Seconds() {
+            return p99Seconds;
+        }
+
+        public void setP99Seconds(long p99Seconds) {
+            this.p99Seconds = p99Seconds;
+        }
+
+        public long getMaxSeconds() {
+            return maxSeconds;
+        }
+
+        public void setMaxSeconds(long maxSeconds) {
+            this.maxSeconds = maxSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return stage + "{count=" + count + ", p50=" + p50Seconds + "s, p90=" + p90Seconds +
+                   "s, p99=" + p99Seconds + "s, max=" + maxSeconds + "s}";
+        }
+    }
+
+    private Long branchId;
+    private String branchName;
+    private int windowHours;              // Hours of history the percentiles cover
+    private StageLatency toProcess;       // From placement until a staff member claims the order
+    private StageLatency toComplete;      // From the claim until the order is completed
+
+    // Default constructor for serialization
+    public FulfilmentLatencyDTO() {
+    }
+
+    // Getters and setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    public int getWindowHours() {
+        return windowHours;
+    }
+
+    public void setWindowHours(int windowHours) {
+        this.windowHours = windowHours;
+    }
+
+    public StageLatency getToProcess() {
+        return toProcess;
+    }
+
+    public void setToProcess(StageLatency toProcess) {
+        this.toProcess = toProcess;
+    }
+
+    public StageLatency getToComplete() {
+        return toComplete;
+    }
+
+    public void setToComplete(StageLatency toComplete) {
+        this.toComplete = toComplete;
+    }
+
+    @Override
+    public String toString() {
+        return "FulfilmentLatencyDTO{" +
+                "branchId=" + branchId +
+                ", branchName='" + branchName + '\'' +
+                ", windowHours=" + windowHours +
+                ", toProcess=" + toProcess +
+                ", toComplete=" + toComplete +
+                '}';
+    }
+}
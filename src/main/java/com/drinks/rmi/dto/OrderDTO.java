@@ -3,6 +3,7 @@ package com.drinks.rmi.dto;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -13,6 +14,14 @@ public class OrderDTO implements Serializable {
     
     private static final long serialVersionUID = 1L;
     
+    /**
+     * Order in which a branch works through open orders: orders in progress, then paid, then unpaid, oldest first
+     */
+    public static final Comparator<OrderDTO> FULFILMENT_PRIORITY =
+        Comparator.comparingInt((OrderDTO order) -> OrderStatus.fulfilmentRank(order.getStatus()))
+                  .thenComparing(OrderDTO::getOrderTime)
+                  .thenComparing(OrderDTO::getId);
+    
     private Long id;
     private Long customerId;
     private String customerName;
@@ -23,6 +32,9 @@ public class OrderDTO implements Serializable {
     private List<OrderItemDTO> items;
     private String status;
     private String orderDate; // String representation of the order date
+    private String idempotencyKey; // Client-generated key used to deduplicate retried placements
+    private Long splitGroupId; // Shared by the sub-orders of one cart split across branches, null otherwise
+    private String claimedBy; // Username of the staff member working on the order, from the fulfilment queue
     
     // Default constructor required for serialization
     public OrderDTO() {
@@ -128,6 +140,30 @@ public class OrderDTO implements Serializable {
         this.orderDate = orderDate;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public Long getSplitGroupId() {
+        return splitGroupId;
+    }
+    
+    public void setSplitGroupId(Long splitGroupId) {
+        this.splitGroupId = splitGroupId;
+    }
+    
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+    
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+    
     @Override
     public String toString() {
         return "OrderDTO{" +
@@ -141,4 +177,53 @@ public class OrderDTO implements Serializable {
                 ", items=" + items +
                 '}';
     }
+    
+    // Order lifecycle and the statuses each status may be entered from
+    public enum OrderStatus {
+        PENDING,
+        PAID,
+        PROCESSING,
+        COMPLETED,
+        CANCELLED;
+        
+        public List<OrderStatus> getAllowedPreviousStatuses() {
+            switch (this) {
+                case PAID:
+                    return List.of(PENDING);
+                case PROCESSING:
+                    return List.of(PENDING, PAID);
+                case COMPLETED:
+                    return List.of(PROCESSING);
+                case CANCELLED:
+                    return List.of(PENDING, PAID, PROCESSING);
+                default:
+                    return List.of();
+            }
+        }
+        
+        public boolean canTransitionFrom(String status) {
+            return status != null && getAllowedPreviousStatuses().stream().anyMatch(s -> s.name().equalsIgnoreCase(status));
+        }
+        
+        /**
+         * Whether orders in this status still wait for or are being worked on by their branch
+         */
+        public boolean isOpen() {
+            return this == PENDING || this == PAID || this == PROCESSING;
+        }
+        
+        /**
+         * Position of a status in a branch's fulfilment queue, lower first; open statuses only
+         */
+        public static int fulfilmentRank(String status) {
+            switch (String.valueOf(status)) {
+                case "PROCESSING":
+                    return 0;
+                case "PAID":
+                    return 1;
+                default:
+                    return 2;
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@ public class OrderItemDTO implements Serializable {
     private int quantity;
     private BigDecimal unitPrice;
     private BigDecimal subtotal;
+    private BigDecimal discountAmount = BigDecimal.ZERO; // Promotion discount taken off this line's subtotal
     
     // Default constructor required for serialization
     public OrderItemDTO() {
@@ -107,6 +108,14 @@ public class OrderItemDTO implements Serializable {
         this.subtotal = subtotal;
     }
     
+    public BigDecimal getDiscountAmount() {
+        return discountAmount != null ? discountAmount : BigDecimal.ZERO;
+    }
+    
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmount = discountAmount;
+    }
+    
     public BigDecimal getTotalPrice() {
         return subtotal; // Same as subtotal for an individual item
     }
@@ -121,6 +130,7 @@ public class OrderItemDTO implements Serializable {
                 ", quantity=" + quantity +
                 ", unitPrice=" + unitPrice +
                 ", subtotal=" + subtotal +
+                ", discountAmount=" + discountAmount +
                 '}';
     }
 }
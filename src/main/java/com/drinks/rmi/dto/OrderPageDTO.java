@@ -0,0 +1,63 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of orders, newest first
+ * Must implement Serializable for RMI transfer
+ */
+public class OrderPageDTO implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private List<OrderDTO> orders;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+    private boolean hasMore;
+    
+    // Default constructor required for serialization
+    public OrderPageDTO() {
+        this.orders = new ArrayList<>();
+    }
+    
+    public OrderPageDTO(List<OrderDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+    
+    // Getters and setters
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderPageDTO{" +
+                "orders=" + orders.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
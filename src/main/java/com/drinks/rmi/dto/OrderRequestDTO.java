@@ -0,0 +1,80 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for a single cart submitted in a batch of orders
+ * Must implement Serializable for RMI transfer
+ */
+public class OrderRequestDTO implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private Long customerId;
+    private Long branchId;
+    private Map<Long, Integer> items; // Drink ID to quantity
+    private String idempotencyKey; // Optional client-generated key for safe retries
+    
+    // Default constructor required for serialization
+    public OrderRequestDTO() {
+        this.items = new LinkedHashMap<>();
+    }
+    
+    public OrderRequestDTO(Long customerId, Long branchId, Map<Long, Integer> items) {
+        this.customerId = customerId;
+        this.branchId = branchId;
+        this.items = items;
+    }
+    
+    // Getters and setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+    
+    public Long getBranchId() {
+        return branchId;
+    }
+    
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+    
+    public Map<Long, Integer> getItems() {
+        return items;
+    }
+    
+    public void setItems(Map<Long, Integer> items) {
+        this.items = items;
+    }
+    
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public void addItem(Long drinkId, int quantity) {
+        if (this.items == null) {
+            this.items = new LinkedHashMap<>();
+        }
+        this.items.merge(drinkId, quantity, Integer::sum);
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderRequestDTO{" +
+                "customerId=" + customerId +
+                ", branchId=" + branchId +
+                ", items=" + items +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,79 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+
+/**
+ * Data Transfer Object for the outcome of one order in a batch submission
+ * Results are returned in the same order as the submitted requests
+ */
+public class OrderResultDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private int index;          // Position of the request in the submitted batch
+    private boolean success;    // Whether the order was created
+    private OrderDTO order;     // The created order, null on failure
+    private String message;     // Human-readable reason on failure
+    
+    // Default constructor for serialization
+    public OrderResultDTO() {
+    }
+    
+    public OrderResultDTO(int index, boolean success, OrderDTO order, String message) {
+        this.index = index;
+        this.success = success;
+        this.order = order;
+        this.message = message;
+    }
+    
+    // Static factory methods for common responses
+    public static OrderResultDTO success(int index, OrderDTO order) {
+        return new OrderResultDTO(index, true, order, "Order placed successfully");
+    }
+    
+    public static OrderResultDTO failed(int index, String message) {
+        return new OrderResultDTO(index, false, null, message);
+    }
+    
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public OrderDTO getOrder() {
+        return order;
+    }
+    
+    public void setOrder(OrderDTO order) {
+        this.order = order;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderResultDTO{" +
+                "index=" + index +
+                ", success=" + success +
+                ", orderId=" + (order != null ? order.getId() : null) +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the filters and sort order of an order search
+ * Unset filters match every order; the user's role may narrow the search further
+ */
+public class OrderSearchDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Order of the results; ties are broken by order ID in the same direction
+     */
+    public enum Sort {
+        NEWEST,
+        OLDEST,
+        HIGHEST_AMOUNT,
+        LOWEST_AMOUNT
+    }
+
+    private List<String> statuses = new ArrayList<>();   // Any of these statuses, empty for all
+    private LocalDate fromDate;           // First order day (inclusive)
+    private LocalDate toDate;             // Last order day (inclusive)
+    private Long branchId;                // Orders of one branch
+    private Long customerId;              // Orders of one customer
+    private BigDecimal minAmount;         // Lowest total amount (inclusive)
+    private BigDecimal maxAmount;         // Highest total amount (inclusive)
+    private Sort sort = Sort.NEWEST;
+
+    // Default constructor for serialization
+    public OrderSearchDTO() {
+    }
+
+    // Getters and setters
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderSearchDTO{" +
+                "statuses=" + statuses +
+                ", fromDate=" + fromDate +
+                ", toDate=" + toDate +
+                ", branchId=" + branchId +
+                ", customerId=" + customerId +
+                ", minAmount=" + minAmount +
+                ", maxAmount=" + maxAmount +
+                ", sort=" + sort +
+                '}';
+    }
+}
@@ -0,0 +1,142 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for an asynchronously submitted order
+ * A ticket is returned immediately on submission and completed once the order has been committed
+ */
+public class OrderTicketDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String QUEUED = "QUEUED";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String REJECTED = "REJECTED";
+    
+    private String ticketId;              // Unique ticket identifier
+    private String status;                // QUEUED, COMMITTED, REJECTED
+    private Long userId;                  // User who submitted the order
+    private Long customerId;              // Customer the order is for
+    private Long branchId;                // Branch the order is queued at
+    private Long orderId;                 // Created order ID once committed
+    private String message;               // Human-readable message
+    private LocalDateTime submittedAt;    // When the order was queued
+    private LocalDateTime completedAt;    // When the order was committed or rejected
+    
+    // Default constructor for serialization
+    public OrderTicketDTO() {
+    }
+    
+    public OrderTicketDTO(String ticketId, String status, Long userId, Long customerId, Long branchId, String message) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.userId = userId;
+        this.customerId = customerId;
+        this.branchId = branchId;
+        this.message = message;
+        this.submittedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Create a completed copy of this ticket
+     */
+    public OrderTicketDTO complete(String status, Long orderId, String message) {
+        OrderTicketDTO completed = new OrderTicketDTO(ticketId, status, userId, customerId, branchId, message);
+        completed.setSubmittedAt(submittedAt);
+        completed.setOrderId(orderId);
+        completed.setCompletedAt(LocalDateTime.now());
+        return completed;
+    }
+    
+    public boolean isPending() {
+        return QUEUED.equals(status);
+    }
+    
+    // Getters and setters
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+    
+    public Long getBranchId() {
+        return branchId;
+    }
+    
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+    
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+    
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderTicketDTO{" +
+                "ticketId='" + ticketId + '\'' +
+                ", status='" + status + '\'' +
+                ", branchId=" + branchId +
+                ", customerId=" + customerId +
+                ", orderId=" + orderId +
+                ", message='" + message + '\'' +
+                ", submittedAt=" + submittedAt +
+                ", completedAt=" + completedAt +
+                '}';
+    }
+}
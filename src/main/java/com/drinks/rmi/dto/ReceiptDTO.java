@@ -0,0 +1,156 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the receipt of a point-of-sale quick sale
+ * Carries everything the till prints, so no second call is needed after the sale
+ */
+public class ReceiptDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long orderId;                 // Order created for the sale
+    private Long branchId;                // Branch the sale was made at
+    private String branchName;            // Branch name for the receipt header
+    private Long customerId;              // Customer the sale is for
+    private String servedBy;              // Username of the staff member at the till
+    private LocalDateTime issuedAt;       // Order time of the sale
+    private List<OrderItemDTO> items = new ArrayList<>();
+    private BigDecimal subtotal;          // Sum of line subtotals before promotions
+    private BigDecimal discountTotal;     // Sum of promotion discounts
+    private BigDecimal total;             // Amount to pay
+    private long processingMicros;        // Time the server spent on the sale
+
+    // Default constructor for serialization
+    public ReceiptDTO() {
+    }
+
+    /**
+     * Build the receipt of a committed order
+     */
+    public static ReceiptDTO of(OrderDTO order, String servedBy) {
+        ReceiptDTO receipt = new ReceiptDTO();
+        receipt.setOrderId(order.getId());
+        receipt.setBranchId(order.getBranchId());
+        receipt.setBranchName(order.getBranchName());
+        receipt.setCustomerId(order.getCustomerId());
+        receipt.setServedBy(servedBy);
+        receipt.setIssuedAt(order.getOrderTime());
+        receipt.setItems(new ArrayList<>(order.getItems()));
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal discountTotal = BigDecimal.ZERO;
+        for (OrderItemDTO item : order.getItems()) {
+            subtotal = subtotal.add(item.getSubtotal());
+            discountTotal = discountTotal.add(item.getDiscountAmount());
+        }
+        receipt.setSubtotal(subtotal);
+        receipt.setDiscountTotal(discountTotal);
+        receipt.setTotal(subtotal.subtract(discountTotal));
+        return receipt;
+    }
+
+    // Getters and setters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getServedBy() {
+        return servedBy;
+    }
+
+    public void setServedBy(String servedBy) {
+        this.servedBy = servedBy;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(LocalDateTime issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
+    public List<OrderItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemDTO> items) {
+        this.items = items;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public BigDecimal getDiscountTotal() {
+        return discountTotal;
+    }
+
+    public void setDiscountTotal(BigDecimal discountTotal) {
+        this.discountTotal = discountTotal;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getProcessingMicros() {
+        return processingMicros;
+    }
+
+    public void setProcessingMicros(long processingMicros) {
+        this.processingMicros = processingMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiptDTO{" +
+                "orderId=" + orderId +
+                ", branchId=" + branchId +
+                ", customerId=" + customerId +
+                ", items=" + items.size() +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.drinks.rmi.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the orders a branch dashboard has not seen yet
+ * Orders are in commit order; an order whose status changed appears again with its new status
+ */
+public class RecentOrdersDTO implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private long latestSeq;           // Pass back as sinceSeq on the next poll
+    private List<OrderDTO> orders;    // Orders committed or updated after sinceSeq, oldest first
+    private boolean resyncRequired;   // The poll fell too far behind; reload the full order list
+    
+    // Default constructor required for serialization
+    public RecentOrdersDTO() {
+        this.orders = new ArrayList<>();
+    }
+    
+    public RecentOrdersDTO(long latestSeq, List<OrderDTO> orders, boolean resyncRequired) {
+        this.latestSeq = latestSeq;
+        this.orders = orders;
+        this.resyncRequired = resyncRequired;
+    }
+    
+    // Getters and setters
+    public long getLatestSeq() {
+        return latestSeq;
+    }
+    
+    public void setLatestSeq(long latestSeq) {
+        this.latestSeq = latestSeq;
+    }
+    
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+    
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+    
+    public void setResyncRequired(boolean resyncRequired) {
+        this.resyncRequired = resyncRequired;
+    }
+    
+    @Override
+    public String toString() {
+        return "RecentOrdersDTO{" +
+                "latestSeq=" + latestSeq +
+                ", orders=" + orders.size() +
+                ", resyncRequired=" + resyncRequired +
+                '}';
+    }
+}
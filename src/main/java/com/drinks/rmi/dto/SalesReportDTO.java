@@ -21,6 +21,7 @@ public class SalesReportDTO implements Serializable {
     private int totalOrders;
     private BigDecimal totalSales;
     private double totalRevenue;
+    private BigDecimal totalDiscounts; // Promotion discounts already taken off totalSales
     private Map<String, BigDecimal> salesByDrink;
     private Map<LocalDate, BigDecimal> salesByDate;
     
@@ -38,6 +39,7 @@ public class SalesReportDTO implements Serializable {
         this.totalOrders = 0;
         this.totalSales = BigDecimal.ZERO;
         this.totalRevenue = 0.0;
+        this.totalDiscounts = BigDecimal.ZERO;
         this.salesByDrink = new HashMap<>();
         this.salesByDate = new HashMap<>();
     }
@@ -99,6 +101,14 @@ public class SalesReportDTO implements Serializable {
         this.totalRevenue = totalRevenue;
     }
     
+    public BigDecimal getTotalDiscounts() {
+        return totalDiscounts;
+    }
+    
+    public void setTotalDiscounts(BigDecimal totalDiscounts) {
+        this.totalDiscounts = totalDiscounts;
+    }
+    
     public Map<String, BigDecimal> getSalesByDrink() {
         return salesByDrink;
     }
@@ -125,6 +135,7 @@ public class SalesReportDTO implements Serializable {
                 ", totalOrders=" + totalOrders +
                 ", totalSales=" + totalSales +
                 ", totalRevenue=" + totalRevenue +
+                ", totalDiscounts=" + totalDiscounts +
                 ", salesByDrink=" + salesByDrink +
                 ", salesByDate=" + salesByDate +
                 '}';
@@ -0,0 +1,22 @@
+package com.drinks.rmi.interfaces;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+import com.drinks.rmi.dto.OrderDTO;
+
+/**
+ * RMI callback interface for live updates of a branch fulfilment queue
+ * Staff screens implement this interface to follow the queue without polling
+ */
+public interface FulfilmentCallback extends Remote {
+    
+    /**
+     * Called when orders join, change in, or leave the branch queue
+     * @param changed Orders that joined the queue or changed, e.g. were claimed
+     * @param removedOrderIds Orders that left the queue, e.g. completed or cancelled
+     * @throws RemoteException if RMI communication fails
+     */
+    void onFulfilmentUpdate(List<OrderDTO> changed, List<Long> removedOrderIds) throws RemoteException;
+}
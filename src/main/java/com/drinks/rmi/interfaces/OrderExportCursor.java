@@ -0,0 +1,39 @@
+package com.drinks.rmi.interfaces;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+import com.drinks.rmi.dto.OrderDTO;
+
+/**
+ * RMI remote iterator over a streamed order export
+ * Obtained from OrderService.exportOrders; clients pull orders in chunks and close the cursor when done
+ */
+public interface OrderExportCursor extends Remote {
+    
+    /**
+     * Fetch the next chunk of orders, each with its items
+     * 
+     * @param maxOrders Maximum number of orders to return (capped at 1000)
+     * @return The next orders in (order_time, id) order, empty once the export is exhausted
+     * @throws RemoteException if the cursor has been closed or the database read fails
+     */
+    List<OrderDTO> next(int maxOrders) throws RemoteException;
+    
+    /**
+     * Check whether more orders remain
+     * 
+     * @return true if next may return more orders
+     * @throws RemoteException if RMI communication fails
+     */
+    boolean hasMore() throws RemoteException;
+    
+    /**
+     * Release the cursor and its database connection
+     * Cursors that are not closed are released when idle for too long or when the client's lease expires
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    void close() throws RemoteException;
+}
@@ -2,11 +2,20 @@ package com.drinks.rmi.interfaces;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import com.drinks.rmi.dto.CartDTO;
 import com.drinks.rmi.dto.OrderDTO;
 import com.drinks.rmi.dto.OrderItemDTO;
+import com.drinks.rmi.dto.OrderPageDTO;
+import com.drinks.rmi.dto.OrderSearchDTO;
+import com.drinks.rmi.dto.OrderRequestDTO;
+import com.drinks.rmi.dto.OrderResultDTO;
+import com.drinks.rmi.dto.OrderTicketDTO;
+import com.drinks.rmi.dto.ReceiptDTO;
+import com.drinks.rmi.dto.RecentOrdersDTO;
 import com.drinks.rmi.dto.UserDTO;
 
 /**
@@ -26,6 +35,173 @@ public interface OrderService extends Remote {
      */
     OrderDTO placeOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items) throws RemoteException;
     
+    /**
+     * Place a new order that can be safely retried
+     * A repeated call with the same idempotency key returns the order created by the first call
+     * 
+     * @param currentUser The current user making the request
+     * @param customerId The customer ID
+     * @param branchId The branch ID
+     * @param items Map of drink IDs to quantities
+     * @param idempotencyKey Client-generated key for this checkout, at most 64 characters (null disables deduplication)
+     * @return The created order, or the original order on replay
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    OrderDTO placeOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items, String idempotencyKey) throws RemoteException;
+    
+    /**
+     * Place many orders in one call and one transaction
+     * Each order is validated and stock-checked on its own; a rejected order does not affect the others
+     * 
+     * @param currentUser The current user making the request
+     * @param requests The carts to place
+     * @return One result per request, in the same order as the requests
+     * @throws RemoteException RMI exception if user doesn't have permission or the batch could not be written
+     */
+    List<OrderResultDTO> placeOrders(UserDTO currentUser, List<OrderRequestDTO> requests) throws RemoteException;
+    
+    /**
+     * Place an order that may be fulfilled by several branches
+     * The cart is split across the fewest branches that have every line in stock, preferring the given branch.
+     * All sub-orders are placed in one transaction and share a split group ID; with one branch, a plain order is placed.
+     * 
+     * @param currentUser The current user making the request
+     * @param customerId The customer ID
+     * @param preferredBranchId The branch the customer chose
+     * @param items Map of drink IDs to quantities
+     * @return One order per fulfilling branch, the preferred branch first if it is used
+     * @throws RemoteException RMI exception if user doesn't have permission or some drink is not in stock anywhere
+     */
+    List<OrderDTO> placeSplitOrder(UserDTO currentUser, Long customerId, Long preferredBranchId, Map<Long, Integer> items) throws RemoteException;
+    
+    /**
+     * Place an order that may be fulfilled by several branches and can be safely retried
+     * A repeated call with the same idempotency key returns the sub-orders created by the first call
+     * 
+     * @param currentUser The current user making the request
+     * @param customerId The customer ID
+     * @param preferredBranchId The branch the customer chose
+     * @param items Map of drink IDs to quantities
+     * @param idempotencyKey Client-generated key for this checkout, at most 64 characters (null disables deduplication)
+     * @return One order per fulfilling branch, the preferred branch first if it is used
+     * @throws RemoteException RMI exception if user doesn't have permission or some drink is not in stock anywhere
+     */
+    List<OrderDTO> placeSplitOrder(UserDTO currentUser, Long customerId, Long preferredBranchId, Map<Long, Integer> items,
+                                   String idempotencyKey) throws RemoteException;
+    
+    /**
+     * Ring up a walk-in sale at the till of the staff member's own branch in one call
+     * Drinks are priced from the server's in-memory price list, stock is reserved and the order is
+     * committed before the receipt is returned. A repeated call with the same idempotency key returns
+     * the receipt of the first call.
+     * 
+     * @param currentUser The staff member at the till
+     * @param customerId The customer the sale is for
+     * @param items Map of drink IDs to quantities
+     * @param idempotencyKey Client-generated key for this sale, at most 64 characters (null disables deduplication)
+     * @return The receipt of the sale
+     * @throws RemoteException RMI exception if user doesn't have permission or some drink is out of stock
+     */
+    ReceiptDTO quickSale(UserDTO currentUser, Long customerId, Map<Long, Integer> items, String idempotencyKey) throws RemoteException;
+    
+    /**
+     * Open an empty cart on the server for the current session
+     * 
+     * @param currentUser The current user making the request
+     * @param customerId The customer the cart is for
+     * @param branchId The branch the cart will be ordered from
+     * @return The new cart
+     * @throws RemoteException RMI exception if user doesn't have permission or too many carts are open
+     */
+    CartDTO openCart(UserDTO currentUser, Long customerId, Long branchId) throws RemoteException;
+    
+    /**
+     * Add units of a drink to a cart
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @param drinkId The drink ID
+     * @param quantity Units to add
+     * @return The cart with current prices and stock hints
+     * @throws RemoteException RMI exception if the cart is unknown, checked out or the drink does not exist
+     */
+    CartDTO addToCart(UserDTO currentUser, String cartId, Long drinkId, int quantity) throws RemoteException;
+    
+    /**
+     * Remove a drink from a cart
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @param drinkId The drink ID
+     * @return The cart with current prices and stock hints
+     * @throws RemoteException RMI exception if the cart is unknown or checked out
+     */
+    CartDTO removeFromCart(UserDTO currentUser, String cartId, Long drinkId) throws RemoteException;
+    
+    /**
+     * Order a cart from a different branch
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @param branchId The new branch ID
+     * @return The cart with the new branch's prices and stock hints
+     * @throws RemoteException RMI exception if the cart is unknown or checked out, or the user cannot order from the branch
+     */
+    CartDTO setCartBranch(UserDTO currentUser, String cartId, Long branchId) throws RemoteException;
+    
+    /**
+     * Get a cart with current prices and stock hints
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @return The cart
+     * @throws RemoteException RMI exception if the cart is unknown
+     */
+    CartDTO getCart(UserDTO currentUser, String cartId) throws RemoteException;
+    
+    /**
+     * Place a cart as an order
+     * A checked-out cart cannot change; checking it out again returns the same order
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @return The created order
+     * @throws RemoteException RMI exception if the cart is unknown or empty, or some line is out of stock
+     */
+    OrderDTO checkoutCart(UserDTO currentUser, String cartId) throws RemoteException;
+    
+    /**
+     * Discard a cart that is no longer needed
+     * 
+     * @param currentUser The user who opened the cart
+     * @param cartId The cart ID
+     * @throws RemoteException RMI exception if communication fails
+     */
+    void discardCart(UserDTO currentUser, String cartId) throws RemoteException;
+    
+    /**
+     * Queue an order for asynchronous placement and return immediately
+     * Queued orders are written in groups per branch; the submitting user is notified once the order is placed or rejected
+     * 
+     * @param currentUser The current user making the request
+     * @param customerId The customer ID
+     * @param branchId The branch ID
+     * @param items Map of drink IDs to quantities
+     * @return A ticket that can be polled with getOrderTicket
+     * @throws RemoteException RMI exception if user doesn't have permission or the branch queue is full
+     */
+    OrderTicketDTO submitOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items) throws RemoteException;
+    
+    /**
+     * Get the current state of a queued order
+     * 
+     * @param currentUser The current user making the request
+     * @param ticketId The ticket ID returned by submitOrder
+     * @return The ticket if known, null if unknown or expired
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    OrderTicketDTO getOrderTicket(UserDTO currentUser, String ticketId) throws RemoteException;
+    
     /**
      * Get all orders for a customer
      * 
@@ -85,15 +261,100 @@ public interface OrderService extends Remote {
      */
     List<OrderDTO> getBranchOrders(Long branchId) throws RemoteException;
     
+    /**
+     * Get one page of orders for a branch, newest first
+     * 
+     * @param branchId The branch ID
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param pageSize Maximum number of orders to return (capped at 500)
+     * @return The page of orders and the cursor for the next page
+     * @throws RemoteException RMI exception if the cursor is invalid
+     */
+    OrderPageDTO getBranchOrdersPage(Long branchId, String cursor, int pageSize) throws RemoteException;
+    
+    /**
+     * Get the branch's most recent orders from memory, for live dashboards
+     * Poll with sinceSeq 0 first, then with the latestSeq of the previous result to receive only changes
+     * 
+     * @param currentUser The current user making the request
+     * @param branchId The branch ID
+     * @param sinceSeq The latestSeq of the previous poll, or 0 for all buffered orders
+     * @return Orders committed or updated since sinceSeq, and whether the caller must reload instead
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    RecentOrdersDTO getRecentOrders(UserDTO currentUser, Long branchId, long sinceSeq) throws RemoteException;
+    
+    /**
+     * Get the branch's open orders from memory, first to work on first
+     * Orders in progress come first, then paid and then unpaid orders, each oldest first
+     * 
+     * @param currentUser The current user making the request
+     * @param branchId The branch ID
+     * @return The PENDING, PAID and PROCESSING orders of the branch, without items
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    List<OrderDTO> getFulfilmentQueue(UserDTO currentUser, Long branchId) throws RemoteException;
+    
+    /**
+     * Claim an open order of the fulfilment queue, moving it to PROCESSING
+     * 
+     * @param currentUser The staff member taking the order
+     * @param orderId The order ID
+     * @throws RemoteException RMI exception if user doesn't have permission or the order was already claimed or closed
+     */
+    void claimOrder(UserDTO currentUser, Long orderId) throws RemoteException;
+    
+    /**
+     * Complete an order in PROCESSING, removing it from the fulfilment queue
+     * 
+     * @param currentUser The current user making the request
+     * @param orderId The order ID
+     * @throws RemoteException RMI exception if user doesn't have permission or the order is not in PROCESSING
+     */
+    void completeOrder(UserDTO currentUser, Long orderId) throws RemoteException;
+    
+    /**
+     * Receive every change of the branch's fulfilment queue until unsubscribed or unreachable
+     * 
+     * @param currentUser The current user making the request
+     * @param branchId The branch ID
+     * @param callback The client callback to push changes to
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    void subscribeFulfilment(UserDTO currentUser, Long branchId, FulfilmentCallback callback) throws RemoteException;
+    
+    /**
+     * Stop pushing fulfilment queue changes to a callback
+     * 
+     * @param currentUser The current user making the request
+     * @param branchId The branch ID
+     * @param callback The callback passed to subscribeFulfilment
+     * @throws RemoteException RMI exception if user doesn't have permission or communication fails
+     */
+    void unsubscribeFulfilment(UserDTO currentUser, Long branchId, FulfilmentCallback callback) throws RemoteException;
+    
     /**
      * Update the status of an order
+     * Only legal transitions are applied, e.g. PENDING to PROCESSING or PROCESSING to COMPLETED
      * 
      * @param orderId The order ID
      * @param status The new status
-     * @throws RemoteException RMI exception if user doesn't have permission
+     * @throws RemoteException RMI exception if the order cannot move to the new status
      */
     void updateOrderStatus(Long orderId, String status) throws RemoteException;
     
+    /**
+     * Move many orders to a new status in one call
+     * Orders that are not in a legal source state, or are outside the user's branch, are left unchanged
+     * 
+     * @param currentUser The current user making the request
+     * @param orderIds The orders to update
+     * @param status The new status: PROCESSING, COMPLETED or CANCELLED
+     * @return The IDs of the orders that changed status
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    List<Long> updateOrderStatuses(UserDTO currentUser, List<Long> orderIds, String status) throws RemoteException;
+    
     /**
      * Create a new order
      * 
@@ -104,6 +365,17 @@ public interface OrderService extends Remote {
      */
     OrderDTO createOrder(OrderDTO order, List<OrderItemDTO> items) throws RemoteException;
     
+    /**
+     * Create a new order that can be safely retried
+     * 
+     * @param order The order to create
+     * @param items The order items
+     * @param idempotencyKey Client-generated key for this checkout, at most 64 characters (null disables deduplication)
+     * @return The created order, or the original order on replay
+     * @throws RemoteException RMI exception if user doesn't have permission
+     */
+    OrderDTO createOrder(OrderDTO order, List<OrderItemDTO> items, String idempotencyKey) throws RemoteException;
+    
     /**
      * Get all orders
      * 
@@ -112,6 +384,42 @@ public interface OrderService extends Remote {
      */
     List<OrderDTO> getAllOrders() throws RemoteException;
     
+    /**
+     * Get one page of orders across all branches, newest first
+     * 
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param pageSize Maximum number of orders to return (capped at 500)
+     * @return The page of orders and the cursor for the next page
+     * @throws RemoteException RMI exception if the cursor is invalid
+     */
+    OrderPageDTO getAllOrdersPage(String cursor, int pageSize) throws RemoteException;
+    
+    /**
+     * Search orders by status, date range, branch, customer and amount range, one page at a time
+     * Customers only find their own orders and branch users only their branch's
+     * 
+     * @param currentUser The current user making the request
+     * @param criteria The filters and sort order
+     * @param cursor The nextCursor of the previous page with the same criteria, or null for the first page
+     * @param pageSize Maximum number of orders to return (capped at 500)
+     * @return The page of orders and the cursor for the next page
+     * @throws RemoteException RMI exception if user doesn't have permission or the criteria or cursor are invalid
+     */
+    OrderPageDTO searchOrders(UserDTO currentUser, OrderSearchDTO criteria, String cursor, int pageSize) throws RemoteException;
+    
+    /**
+     * Open a streaming export of all orders, with their items, placed in a date range
+     * The returned cursor is read in chunks and must be closed when done
+     * 
+     * @param currentUser The current user making the request
+     * @param startDate First day of the export (inclusive)
+     * @param endDate Last day of the export (inclusive)
+     * @param branchId The branch to export, or null for all branches
+     * @return A remote cursor over the exported orders, oldest first
+     * @throws RemoteException RMI exception if user doesn't have permission or too many exports are open
+     */
+    OrderExportCursor exportOrders(UserDTO currentUser, LocalDate startDate, LocalDate endDate, Long branchId) throws RemoteException;
+    
     /**
      * Get all order items for an order
      * 
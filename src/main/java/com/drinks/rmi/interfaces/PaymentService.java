@@ -46,4 +46,15 @@ public interface PaymentService extends Remote {
      * @throws RemoteException If a remote communication error occurs
      */
     List<PaymentDTO> getAllPayments(UserDTO currentUser) throws RemoteException;
+    
+    /**
+     * Get a customer's loyalty points balance
+     * Points for a payment are awarded shortly after it succeeds, not as part of it
+     * 
+     * @param currentUser The authenticated user requesting the balance
+     * @param customerId The customer ID; customers may only read their own balance
+     * @return The customer's loyalty points
+     * @throws RemoteException If a remote communication error occurs or access is denied
+     */
+    long getLoyaltyPoints(UserDTO currentUser, Long customerId) throws RemoteException;
 }
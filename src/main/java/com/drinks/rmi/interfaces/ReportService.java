@@ -7,8 +7,10 @@ import java.util.Map;
 
 import com.drinks.rmi.dto.CustomerReportDTO;
 import com.drinks.rmi.dto.DrinkPopularityReportDTO;
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
 import com.drinks.rmi.dto.SalesReportDTO;
 import com.drinks.rmi.dto.StockReportDTO;
+import com.drinks.rmi.dto.UserDTO;
 
 /**
  * RMI interface for report generation
@@ -94,4 +96,23 @@ public interface ReportService extends Remote {
      * @throws RemoteException RMI exception
      */
     CustomerReportDTO getCustomerReport(LocalDate startDate, LocalDate endDate) throws RemoteException;
+    
+    /**
+     * Get how long a branch's orders waited to be processed and completed, as rolling percentiles
+     * 
+     * @param currentUser The current user making the request
+     * @param branchId The branch ID
+     * @return Fulfilment latency percentiles for the branch
+     * @throws RemoteException RMI exception if user doesn't have permission or latency is not tracked
+     */
+    FulfilmentLatencyDTO getBranchFulfilmentLatency(UserDTO currentUser, Long branchId) throws RemoteException;
+    
+    /**
+     * Get fulfilment latency percentiles for all branches
+     * 
+     * @param currentUser The current user making the request
+     * @return Map of branch ID to fulfilment latency percentiles
+     * @throws RemoteException RMI exception if user doesn't have permission or latency is not tracked
+     */
+    Map<Long, FulfilmentLatencyDTO> getAllBranchesFulfilmentLatency(UserDTO currentUser) throws RemoteException;
 }
@@ -55,11 +55,16 @@ public class BranchServer {
             Registry registry = LocateRegistry.createRegistry(rmiPort);
             logger.info("RMI Registry created on port {}", rmiPort);
             
+            // Order, payment and notification IDs are generated here; each branch is its own ID node by default
+            if (System.getProperty(IdGenerator.NODE_PROPERTY) == null) {
+                System.setProperty(IdGenerator.NODE_PROPERTY, String.valueOf(branchId));
+            }
+            
             // Create service implementations
             AuthService authService = new AuthServiceImpl();
             DrinkService drinkService = new DrinkServiceImpl();
             StockService stockService = new StockServiceImpl();
-            OrderService orderService = new OrderServiceImpl(stockService, drinkService);
+            OrderServiceImpl orderService = new OrderServiceImpl();
             PaymentService paymentService = new PaymentServiceImpl();
             
             // Bind services to registry with branch-specific names
@@ -86,6 +91,8 @@ public class BranchServer {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 logger.info("Shutting down {} Branch RMI Server...", branchName);
                 try {
+                    orderService.shutdown();
+                    
                     // Unbind services
                     Naming.unbind(baseUrl + branchPrefix + "AuthService");
                     Naming.unbind(baseUrl + branchPrefix + "DrinkService");
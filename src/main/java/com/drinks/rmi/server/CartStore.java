@@ -0,0 +1,115 @@
+package com.drinks.rmi.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shopping carts of the sessions connected to this server, kept in memory until checkout or expiry
+ * A cart untouched for 30 minutes (set with -Ddrinks.cart.idleMinutes) is dropped, and at most
+ * 10000 carts (set with -Ddrinks.cart.maxCarts) are open at once.
+ * Callers lock a cart while reading or changing it.
+ */
+public class CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("drinks.cart.idleMinutes", 30));
+    private static final int MAX_CARTS = Integer.getInteger("drinks.cart.maxCarts", 10000);
+    static final int MAX_LINES = 100;
+
+    /**
+     * One session's cart; the checkout key makes a retried checkout return the order of the first
+     */
+    static final class Cart {
+        final String id = UUID.randomUUID().toString();
+        final String checkoutKey = UUID.randomUUID().toString();
+        final Long userId;
+        final Long customerId;
+        final Map<Long, Integer> items = new LinkedHashMap<>();
+        Long branchId;
+        Long orderId;
+        volatile long touchedAt = System.currentTimeMillis();
+
+        Cart(Long userId, Long customerId, Long branchId) {
+            this.userId = userId;
+            this.customerId = customerId;
+            this.branchId = branchId;
+        }
+
+        /**
+         * Throw if the cart has become an order and can no longer change
+         */
+        void checkOpen() throws RemoteException {
+            if (orderId != null) {
+                throw new RemoteException("Cart has already been checked out as order #" + orderId);
+            }
+        }
+    }
+
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cart-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CartStore() {
+        reaper.scheduleWithFixedDelay(this::dropIdleCarts, 1, 1, TimeUnit.MINUTES);
+    }
+
+    Cart open(Long userId, Long customerId, Long branchId) throws RemoteException {
+        if (carts.size() >= MAX_CARTS) {
+            throw new RemoteException("Too many open carts, please try again later");
+        }
+        Cart cart = new Cart(userId, customerId, branchId);
+        carts.put(cart.id, cart);
+        return cart;
+    }
+
+    /**
+     * Get a cart of the given user; other users' carts are reported as not found
+     */
+    Cart get(String cartId, Long userId) throws RemoteException {
+        Cart cart = cartId != null ? carts.get(cartId) : null;
+        if (cart == null || !cart.userId.equals(userId)) {
+            throw new RemoteException("Cart not found or expired");
+        }
+        cart.touchedAt = System.currentTimeMillis();
+        return cart;
+    }
+
+    /**
+     * Drop a cart of the given user; unknown carts are ignored
+     */
+    void remove(String cartId, Long userId) {
+        Cart cart = cartId != null ? carts.get(cartId) : null;
+        if (cart != null && cart.userId.equals(userId)) {
+            carts.remove(cartId, cart);
+        }
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+
+    private void dropIdleCarts() {
+        long cutoff = System.currentTimeMillis() - IDLE_MILLIS;
+        int before = carts.size();
+        carts.values().removeIf(cart -> cart.touchedAt < cutoff);
+        if (carts.size() < before) {
+            logger.info("Dropped {} idle carts", before - carts.size());
+        }
+    }
+}
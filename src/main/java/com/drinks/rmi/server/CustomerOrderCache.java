@@ -0,0 +1,210 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, least-recently-used cache of customers' order histories, newest order first
+ * A history is loaded from the database on first read and then kept current in memory: committed
+ * orders are added and status changes patched in place. Changes made by other server processes
+ * arrive as order outbox events; a placed order that is not already cached drops the customer's
+ * history so the next read reloads it. Histories are also reloaded after 10 minutes as a safety net.
+ * Nothing is cached until enable() is called, which only the process running the outbox relay does;
+ * elsewhere other processes' changes would go unseen, so every read goes to the database.
+ * The number of cached customers is set with -Ddrinks.orders.historyCustomers (1000 by default).
+ */
+public class CustomerOrderCache implements OrderEventConsumer {
+    
+    private static final int DEFAULT_MAX_CUSTOMERS = Integer.getInteger("drinks.orders.historyCustomers", 1000);
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    
+    /**
+     * A customer's history; orders is null while the first load is running
+     */
+    private static class Entry {
+        private final long loadedAt;
+        private List<OrderDTO> orders;
+        private boolean stale;
+        
+        Entry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+    
+    private final long ttlMillis;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Long> customerByOrder = new HashMap<>();
+    private boolean enabled;
+    
+    public CustomerOrderCache() {
+        this(DEFAULT_MAX_CUSTOMERS, DEFAULT_TTL_MILLIS);
+    }
+    
+    public CustomerOrderCache(int maxCustomers, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= maxCustomers) {
+                    return false;
+                }
+                forget(eldest.getValue());
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Start caching histories; call only once this cache receives the outbox events of every process
+     */
+    public synchronized void enable() {
+        enabled = true;
+    }
+    
+    /**
+     * Get a copy of a customer's cached orders, or null if they have to be loaded
+     */
+    public synchronized List<OrderDTO> get(Long customerId) {
+        Entry entry = entries.get(customerId);
+        if (entry == null || entry.orders == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+            invalidate(customerId);
+            return null;
+        }
+        return new ArrayList<>(entry.orders);
+    }
+    
+    /**
+     * Mark a customer's history as being loaded; pass the returned token to finishLoad
+     * Changes for the customer made while the load runs cause its result to be discarded
+     */
+    public synchronized Object startLoad(Long customerId) {
+        invalidate(customerId);
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = new Entry(System.currentTimeMillis());
+        entries.put(customerId, entry);
+        return entry;
+    }
+    
+    /**
+     * Store a loaded history, newest order first, unless it went stale while loading
+     */
+    public synchronized void finishLoad(Long customerId, Object token, List<OrderDTO> orders) {
+        Entry entry = entries.get(customerId);
+        if (token == null || entry != token) {
+            return;
+        }
+        if (entry.stale) {
+            entries.remove(customerId);
+            return;
+        }
+        entry.orders = new ArrayList<>(orders);
+        for (OrderDTO order : orders) {
+            customerByOrder.put(order.getId(), customerId);
+        }
+    }
+    
+    /**
+     * Add committed orders to the histories of their customers, if cached
+     */
+    public synchronized void addOrders(Collection<OrderDTO> orders) {
+        for (OrderDTO order : orders) {
+            Entry entry = entries.get(order.getCustomerId());
+            if (entry == null) {
+                continue;
+            }
+            if (entry.orders == null) {
+                entry.stale = true;
+                continue;
+            }
+            if (customerByOrder.containsKey(order.getId())) {
+                continue;
+            }
+            // Orders placed in memory carry no customer name; it is the same on every order of the history
+            if (order.getCustomerName() == null && !entry.orders.isEmpty()) {
+                order = RecentOrdersBuffer.copyWithStatus(order, order.getStatus());
+                order.setCustomerName(entry.orders.get(0).getCustomerName());
+            }
+            // New orders are almost always the newest, so this stops at the first position
+            int index = 0;
+            while (index < entry.orders.size() && entry.orders.get(index).getOrderTime().isAfter(order.getOrderTime())) {
+                index++;
+            }
+            entry.orders.add(index, order);
+            customerByOrder.put(order.getId(), order.getCustomerId());
+        }
+    }
+    
+    /**
+     * Patch the status of cached orders
+     * A history still loading may miss the change; the change's outbox event discards it.
+     */
+    public synchronized void updateStatus(Collection<Long> orderIds, String status) {
+        for (Long orderId : orderIds) {
+            Long customerId = customerByOrder.get(orderId);
+            Entry entry = customerId != null ? entries.get(customerId) : null;
+            if (entry == null || entry.orders == null) {
+                continue;
+            }
+            for (int i = 0; i < entry.orders.size(); i++) {
+                OrderDTO order = entry.orders.get(i);
+                if (order.getId().equals(orderId) && !status.equals(order.getStatus())) {
+                    // Cached orders may already have been handed out, so they are replaced rather than changed
+                    entry.orders.set(i, RecentOrdersBuffer.copyWithStatus(order, status));
+                    break;
+                }
+            }
+        }
+    }
+    
+    public synchronized void invalidate(Long customerId) {
+        Entry entry = entries.remove(customerId);
+        if (entry != null) {
+            forget(entry);
+        }
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Apply order changes committed by any server process
+     */
+    @Override
+    public synchronized void onOrderEvents(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.PLACED) {
+                if (!customerByOrder.containsKey(event.getOrderId()) && entries.containsKey(event.getCustomerId())) {
+                    invalidate(event.getCustomerId());
+                }
+            } else {
+                // Only the customer whose order changed has to reload a history read while it committed
+                Entry entry = entries.get(event.getCustomerId());
+                if (entry != null && entry.orders == null) {
+                    entry.stale = true;
+                }
+                updateStatus(List.of(event.getOrderId()), event.getStatus());
+            }
+        }
+    }
+    
+    private void forget(Entry entry) {
+        if (entry.orders != null) {
+            for (OrderDTO order : entry.orders) {
+                customerByOrder.remove(order.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.dto.DrinkDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of every drink's name and price, for pricing quick sales without a database read
+ * The drinks table is re-read periodically (every 30 seconds by default, set with
+ * -Ddrinks.catalog.refreshSeconds) and swapped in whole, so a sale is priced against one consistent
+ * price list. A price change reaches quick sales within one refresh; a drink that is not yet known
+ * triggers an immediate re-read.
+ */
+public class DrinkCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrinkCatalog.class);
+    private static final long REFRESH_SECONDS = Long.getLong("drinks.catalog.refreshSeconds", 30);
+    // Unknown IDs re-read the catalog at most this often, so a bad ID cannot turn every sale into a table scan
+    private static final long MISS_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "drink-catalog-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Long, DrinkDTO> drinks = Map.of();
+    private volatile long loadedAt;
+
+    public DrinkCatalog() {
+        reload();
+        refresher.scheduleWithFixedDelay(this::reload, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Name and price of every given drink; unknown IDs are left out of the result
+     * If some ID is unknown the catalog is re-read once, unless it was read moments ago
+     */
+    public Map<Long, DrinkDTO> lookup(Collection<Long> drinkIds) {
+        Map<Long, DrinkDTO> found = find(drinks, drinkIds);
+        if (found.size() < drinkIds.size() && System.nanoTime() - loadedAt > MISS_RELOAD_NANOS) {
+            reload();
+            found = find(drinks, drinkIds);
+        }
+        return found;
+    }
+
+    public int size() {
+        return drinks.size();
+    }
+
+    /**
+     * Re-read all drinks and swap them in; on a database error the current prices are kept
+     */
+    public synchronized void reload() {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, name, price FROM drinks")) {
+
+            Map<Long, DrinkDTO> loaded = new HashMap<>();
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                loaded.put(rs.getLong("id"), new DrinkDTO(
+                    rs.getLong("id"),
+                    rs.getString("name"),
+                    rs.getBigDecimal("price")
+                ));
+            }
+
+            if (loaded.size() != drinks.size()) {
+                logger.info("Loaded {} drinks into the catalog", loaded.size());
+            }
+            drinks = Map.copyOf(loaded);
+            loadedAt = System.nanoTime();
+
+        } catch (SQLException e) {
+            logger.warn("Failed to refresh the drink catalog, keeping {} current drinks", drinks.size(), e);
+        }
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static Map<Long, DrinkDTO> find(Map<Long, DrinkDTO> drinks, Collection<Long> drinkIds) {
+        Map<Long, DrinkDTO> found = new HashMap<>();
+        for (Long drinkId : drinkIds) {
+            DrinkDTO drink = drinks.get(drinkId);
+            if (drink != null) {
+                found.put(drinkId, drink);
+            }
+        }
+        return found;
+    }
+}
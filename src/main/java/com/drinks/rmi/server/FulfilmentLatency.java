@@ -0,0 +1,205 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.common.UnitOfWork;
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
+import com.drinks.rmi.dto.OrderDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling per-branch histograms of how long orders wait to be processed and to be completed
+ * Fed by STATUS_CHANGED events from the outbox relay, timed from order_status_events, and covering
+ * the last 24 hours (set with -Ddrinks.latency.windowHours) in one-hour slices.
+ * On start the window is loaded from order_status_events, so a restart keeps the history.
+ * Events can be redelivered and can commit out of outbox order, so each order's stages are counted
+ * once by remembering the recently counted ones (-Ddrinks.latency.rememberedOrders, default 200000).
+ */
+public class FulfilmentLatency implements OrderEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FulfilmentLatency.class);
+    private static final int WINDOW_HOURS = Math.max(1, Integer.getInteger("drinks.latency.windowHours", 24));
+    private static final long SLICE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int PENDING = OrderDTO.OrderStatus.PENDING.ordinal();
+    private static final int PROCESSING = OrderDTO.OrderStatus.PROCESSING.ordinal();
+    private static final int COMPLETED = OrderDTO.OrderStatus.COMPLETED.ordinal();
+    private static final int REMEMBERED_ORDERS = Math.max(1, Integer.getInteger("drinks.latency.rememberedOrders", 200000));
+    private static final int TO_PROCESS = 1;
+    private static final int TO_COMPLETE = 2;
+
+    /**
+     * The two stages of one branch
+     */
+    private static final class Stages {
+        final LatencyHistogram toProcess = new LatencyHistogram(WINDOW_HOURS, SLICE_MILLIS);
+        final LatencyHistogram toComplete = new LatencyHistogram(WINDOW_HOURS, SLICE_MILLIS);
+    }
+
+    private final Map<Long, Stages> branches = new ConcurrentHashMap<>();
+    // Stages already counted per order, as TO_PROCESS and TO_COMPLETE bits; only touched on the relay thread after the initial load
+    private final Map<Long, Integer> counted = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return size() > REMEMBERED_ORDERS;
+        }
+    };
+
+    public FulfilmentLatency() {
+        try {
+            load();
+        } catch (SQLException | RemoteException e) {
+            logger.warn("Failed to load recent fulfilment times, starting with empty histograms", e);
+        }
+    }
+
+    @Override
+    public void onOrderEvents(List<OrderEvent> events) throws SQLException {
+        List<OrderEvent> finished = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.STATUS_CHANGED
+                    && ("PROCESSING".equals(event.getStatus()) || "COMPLETED".equals(event.getStatus()))
+                    && !isCounted(event.getOrderId(), "PROCESSING".equals(event.getStatus()) ? TO_PROCESS : TO_COMPLETE)) {
+                finished.add(event);
+            }
+        }
+        if (!finished.isEmpty()) {
+            Map<Long, Map<Integer, Timestamp>> times = loadTimes(finished);
+            for (OrderEvent event : finished) {
+                Map<Integer, Timestamp> reached = times.getOrDefault(event.getOrderId(), Map.of());
+                boolean processing = "PROCESSING".equals(event.getStatus());
+                Timestamp from = reached.get(processing ? PENDING : PROCESSING);
+                Timestamp to = reached.get(processing ? PROCESSING : COMPLETED);
+                // A stage is counted once, even if its event is in this batch twice
+                if (from != null && to != null && markCounted(event.getOrderId(), processing ? TO_PROCESS : TO_COMPLETE)) {
+                    Stages stages = stages(event.getBranchId());
+                    (processing ? stages.toProcess : stages.toComplete).record(to.getTime(), to.getTime() - from.getTime());
+                }
+            }
+        }
+    }
+
+    /**
+     * Percentiles of a branch's stages over the window
+     */
+    public FulfilmentLatencyDTO describe(Long branchId, String branchName) {
+        Stages stages = branches.getOrDefault(branchId, new Stages());
+        long now = System.currentTimeMillis();
+        FulfilmentLatencyDTO latency = new FulfilmentLatencyDTO();
+        latency.setBranchId(branchId);
+        latency.setBranchName(branchName);
+        latency.setWindowHours(WINDOW_HOURS);
+        latency.setToProcess(stages.toProcess.describe("Waiting to be processed", now));
+        latency.setToComplete(stages.toComplete.describe("Processing to completion", now));
+        return latency;
+    }
+
+    public Set<Long> getBranchIds() {
+        return Collections.unmodifiableSet(branches.keySet());
+    }
+
+    private Stages stages(long branchId) {
+        return branches.computeIfAbsent(branchId, id -> new Stages());
+    }
+
+    private boolean isCounted(long orderId, int stage) {
+        return (counted.getOrDefault(orderId, 0) & stage) != 0;
+    }
+
+    /**
+     * Remember that an order's stage was counted
+     * @return false if it had been counted already
+     */
+    private boolean markCounted(long orderId, int stage) {
+        int stages = counted.getOrDefault(orderId, 0);
+        if ((stages & stage) != 0) {
+            return false;
+        }
+        counted.put(orderId, stages | stage);
+        return true;
+    }
+
+    /**
+     * Read the times the given orders reached each status, by primary key
+     */
+    private Map<Long, Map<Integer, Timestamp>> loadTimes(List<OrderEvent> events) throws SQLException {
+        List<Long> orderIds = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (!orderIds.contains(event.getOrderId())) {
+                orderIds.add(event.getOrderId());
+            }
+        }
+        String sql = "SELECT order_id, status, changed_at FROM order_status_events WHERE order_id IN (" +
+                     String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ") AND status IN (?, ?, ?)";
+        Map<Long, Map<Integer, Timestamp>> times = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+            stmt.setInt(index++, PENDING);
+            stmt.setInt(index++, PROCESSING);
+            stmt.setInt(index, COMPLETED);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                times.computeIfAbsent(rs.getLong("order_id"), id -> new HashMap<>())
+                     .put(rs.getInt("status"), rs.getTimestamp("changed_at"));
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Fill the histograms from the stages finished within the window, remembering each as counted so the
+     * relay skips its event whether that event is delivered before or after the ones committed later.
+     */
+    private void load() throws SQLException, RemoteException {
+        Timestamp since = new Timestamp(System.currentTimeMillis() - WINDOW_HOURS * SLICE_MILLIS);
+        String sql = """
+            SELECT e.order_id, e.branch_id, e.changed_at, p.changed_at AS started_at
+            FROM order_status_events e
+            JOIN order_status_events p ON p.order_id = e.order_id AND p.status = ?
+            WHERE e.status = ? AND e.changed_at >= ?
+            """;
+        UnitOfWork.run(conn -> {
+            int loaded = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int[] stage : new int[][] {{PENDING, PROCESSING}, {PROCESSING, COMPLETED}}) {
+                    stmt.setInt(1, stage[0]);
+                    stmt.setInt(2, stage[1]);
+                    stmt.setTimestamp(3, since);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        if (!markCounted(rs.getLong("order_id"), stage[1] == PROCESSING ? TO_PROCESS : TO_COMPLETE)) {
+                            continue;
+                        }
+                        Stages stages = stages(rs.getLong("branch_id"));
+                        long to = rs.getTimestamp("changed_at").getTime();
+                        long from = rs.getTimestamp("started_at").getTime();
+                        (stage[1] == PROCESSING ? stages.toProcess : stages.toComplete).record(to, to - from);
+                        loaded++;
+                    }
+                }
+            }
+            logger.info("Loaded {} fulfilment times from the last {} hours", loaded, WINDOW_HOURS);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,313 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.interfaces.FulfilmentCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * In-memory queue of one branch's open orders (PENDING, PAID, PROCESSING) in fulfilment priority
+ * The queue is loaded from the orders table once and then follows the order outbox: new events of the
+ * branch are read by ID without marking them dispatched, so the HQ relay is unaffected. Changes made
+ * through this process are applied straight away as well. A periodic reload repairs anything the
+ * outbox tail missed, e.g. an event that committed after a later one had already been read.
+ * Which staff member claimed an order is only kept here and is lost when the server restarts.
+ * Every change is pushed to the subscribed staff screens on the caller-supplied push thread, which
+ * must run tasks one at a time in submission order.
+ */
+public class FulfilmentQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FulfilmentQueue.class);
+    private static final int EVENT_BATCH_SIZE = 500;
+    private static final int CLOSED_MEMORY = 10000;
+    
+    private final Long branchId;
+    private final ExecutorService pusher;
+    private final Map<Long, OrderDTO> open = new HashMap<>();
+    private final TreeSet<OrderDTO> queue = new TreeSet<>(OrderDTO.FULFILMENT_PRIORITY);
+    // Version of the queue at which each open order last changed
+    private final Map<Long, Long> changedAt = new HashMap<>();
+    // Orders that left the queue recently, so late events cannot bring them back
+    private final Set<Long> closed = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > CLOSED_MEMORY;
+        }
+    });
+    private final Set<FulfilmentCallback> subscribers = ConcurrentHashMap.newKeySet();
+    private long version;
+    private long lastEventId;
+    
+    public FulfilmentQueue(Long branchId, ExecutorService pusher) {
+        this.branchId = branchId;
+        this.pusher = pusher;
+    }
+    
+    /**
+     * The open orders of the branch, first to work on first
+     */
+    public synchronized List<OrderDTO> snapshot() {
+        return new ArrayList<>(queue);
+    }
+    
+    /**
+     * The open order with the given ID, or null if it is not in the queue
+     */
+    public synchronized OrderDTO get(Long orderId) {
+        return open.get(orderId);
+    }
+    
+    public void subscribe(FulfilmentCallback callback) {
+        subscribers.add(callback);
+    }
+    
+    public void unsubscribe(FulfilmentCallback callback) {
+        subscribers.remove(callback);
+    }
+    
+    /**
+     * Apply the state of changed orders of this branch and push the effective changes
+     * Orders that are no longer open leave the queue. Since orders only move forward through their
+     * lifecycle, a state older than the one already queued is ignored, so changes may arrive late or twice.
+     */
+    public void apply(Collection<OrderDTO> orders) {
+        List<OrderDTO> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        synchronized (this) {
+            version++;
+            for (OrderDTO order : orders) {
+                if (!branchId.equals(order.getBranchId()) || closed.contains(order.getId())) {
+                    continue;
+                }
+                OrderDTO previous = open.get(order.getId());
+                if (!isOpen(order.getStatus())) {
+                    if (previous != null) {
+                        close(order.getId());
+                        removed.add(order.getId());
+                    } else {
+                        closed.add(order.getId());
+                    }
+                    continue;
+                }
+                
+                OrderDTO entry = copy(order);
+                if (previous != null) {
+                    int step = lifecycleStep(entry.getStatus()) - lifecycleStep(previous.getStatus());
+                    // Outbox events carry no claimer, so keep the one recorded when the order was claimed
+                    if (step == 0 && entry.getClaimedBy() == null) {
+                        entry.setClaimedBy(previous.getClaimedBy());
+                    }
+                    // Orders placed through this process arrive without a customer name; the outbox event brings it
+                    boolean named = previous.getCustomerName() == null && entry.getCustomerName() != null;
+                    if (step < 0 || (step == 0 && Objects.equals(previous.getClaimedBy(), entry.getClaimedBy()) && !named)) {
+                        continue;
+                    }
+                    if (entry.getCustomerName() == null) {
+                        entry.setCustomerName(previous.getCustomerName());
+                    }
+                    queue.remove(previous);
+                }
+                open.put(entry.getId(), entry);
+                queue.add(entry);
+                changedAt.put(entry.getId(), version);
+                changed.add(entry);
+            }
+            push(changed, removed);
+        }
+    }
+    
+    /**
+     * Apply a status change of orders already in the queue, e.g. one made through this server
+     */
+    public void updateStatus(Collection<Long> orderIds, String status, String claimedBy) {
+        List<OrderDTO> updated = new ArrayList<>();
+        synchronized (this) {
+            for (Long orderId : orderIds) {
+                OrderDTO current = open.get(orderId);
+                if (current != null) {
+                    OrderDTO order = copy(current);
+                    order.setStatus(status);
+                    order.setClaimedBy(claimedBy);
+                    updated.add(order);
+                }
+            }
+        }
+        apply(updated);
+    }
+    
+    /**
+     * Read the branch's outbox events committed since the last read and apply them
+     */
+    public void poll() {
+        String sql = """
+            SELECT e.id, e.order_id, e.customer_id, e.status, e.total_amount,
+                   o.order_time, c.name as customer_name
+            FROM order_outbox e
+            JOIN orders o ON e.order_id = o.id
+            LEFT JOIN customers c ON e.customer_id = c.id
+            WHERE e.branch_id = ? AND e.id > ?
+            ORDER BY e.id
+            LIMIT ?
+            """;
+        
+        List<OrderDTO> orders = new ArrayList<>();
+        long eventId;
+        synchronized (this) {
+            eventId = lastEventId;
+        }
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setLong(1, branchId);
+            stmt.setLong(2, eventId);
+            stmt.setInt(3, EVENT_BATCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                eventId = rs.getLong("id");
+                OrderDTO order = new OrderDTO(rs.getLong("order_id"), rs.getLong("customer_id"), rs.getString("customer_name"),
+                                              branchId, null, rs.getTimestamp("order_time").toLocalDateTime());
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getDouble("total_amount"));
+                orders.add(order);
+            }
+            
+        } catch (SQLException e) {
+            logger.warn("Failed to read order events for branch ID: {}", branchId, e);
+            return;
+        }
+        
+        synchronized (this) {
+            // A reload in the meantime has already moved past these events
+            if (lastEventId > eventId || orders.isEmpty()) {
+                return;
+            }
+            lastEventId = eventId;
+        }
+        apply(orders);
+    }
+    
+    /**
+     * Re-read the open orders of the branch and push the differences
+     */
+    public void reload() {
+        String sql = """
+            SELECT o.id, o.customer_id, c.name as customer_name, o.order_time, o.status, o.total_amount
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            WHERE o.branch_id = ? AND o.status IN ('PENDING', 'PAID', 'PROCESSING')
+            """;
+        
+        Map<Long, OrderDTO> loaded = new HashMap<>();
+        long eventId;
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // Events up to here are reflected in the orders read next; later ones are picked up by poll
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM order_outbox")) {
+                ResultSet rs = stmt.executeQuery();
+                rs.next();
+                eventId = rs.getLong(1);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, branchId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    OrderDTO order = new OrderDTO(rs.getLong("id"), rs.getLong("customer_id"), rs.getString("customer_name"),
+                                                  branchId, null, rs.getTimestamp("order_time").toLocalDateTime());
+                    order.setStatus(rs.getString("status"));
+                    order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                    loaded.put(order.getId(), order);
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.warn("Failed to reload the fulfilment queue of branch ID: {}", branchId, e);
+            return;
+        }
+        
+        List<Long> removed = new ArrayList<>();
+        synchronized (this) {
+            // Orders missing from the database have closed, unless they changed here after the read began
+            for (Long orderId : new ArrayList<>(open.keySet())) {
+                if (!loaded.containsKey(orderId) && changedAt.get(orderId) <= startVersion) {
+                    close(orderId);
+                    removed.add(orderId);
+                }
+            }
+            lastEventId = Math.max(lastEventId, eventId);
+            push(new ArrayList<>(), removed);
+        }
+        apply(loaded.values());
+    }
+    
+    private void close(Long orderId) {
+        queue.remove(open.remove(orderId));
+        changedAt.remove(orderId);
+        closed.add(orderId);
+    }
+    
+    /**
+     * Queue a change for the subscribers; called holding the queue's monitor, so changes are pushed in the order they were made
+     */
+    private void push(List<OrderDTO> changed, List<Long> removed) {
+        if ((changed.isEmpty() && removed.isEmpty()) || subscribers.isEmpty()) {
+            return;
+        }
+        pusher.execute(() -> {
+            for (FulfilmentCallback subscriber : subscribers) {
+                try {
+                    subscriber.onFulfilmentUpdate(changed, removed);
+                } catch (RemoteException e) {
+                    logger.info("Dropping unreachable fulfilment subscriber of branch ID: {}", branchId);
+                    subscribers.remove(subscriber);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Position of an open status in the order lifecycle; orders never move to an earlier one
+     */
+    private static int lifecycleStep(String status) {
+        return 2 - OrderDTO.OrderStatus.fulfilmentRank(status);
+    }
+    
+    private static boolean isOpen(String status) {
+        try {
+            return OrderDTO.OrderStatus.valueOf(status).isOpen();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
+    }
+    
+    private static OrderDTO copy(OrderDTO order) {
+        OrderDTO copy = new OrderDTO(order.getId(), order.getCustomerId(), order.getCustomerName(),
+                                     order.getBranchId(), order.getBranchName(), order.getOrderTime());
+        copy.setStatus(order.getStatus());
+        copy.setTotalAmount(order.getTotalAmount());
+        copy.setSplitGroupId(order.getSplitGroupId());
+        copy.setClaimedBy(order.getClaimedBy());
+        return copy;
+    }
+}
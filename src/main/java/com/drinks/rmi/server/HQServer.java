@@ -42,9 +42,29 @@ public class HQServer {
     private static OrderServiceImpl orderService;
     private static ReportServiceImpl reportService;
     private static NotificationServiceImpl notificationService;
+    private static OrderOutboxRelay outboxRelay;
+    private static LoyaltyLedger loyaltyLedger;
     private static LoadBalancerServiceImpl loadBalancerService;
     private static PaymentServiceImpl paymentService;
     
+    /**
+     * Relay committed order events to the consumers that run on HQ; shared by both HQ servers
+     */
+    static OrderOutboxRelay startOutboxRelay(OrderServiceImpl orderService, NotificationService notificationService,
+                                             ReportServiceImpl reportService, LoyaltyLedger loyaltyLedger) {
+        OrderOutboxRelay relay = new OrderOutboxRelay();
+        relay.addConsumer(new OrderCustomerNotifier(notificationService));
+        relay.addConsumer(new LowStockAlerter(notificationService));
+        CustomerOrderCache orderHistory = orderService.getOrderHistory();
+        relay.addConsumer(orderHistory);
+        orderHistory.enable();
+        FulfilmentLatency fulfilmentLatency = new FulfilmentLatency();
+        relay.addConsumer(fulfilmentLatency);
+        reportService.setFulfilmentLatency(fulfilmentLatency);
+        relay.addConsumer(loyaltyLedger);
+        return relay;
+    }
+    
     /**
      * Dynamically detect the network IP address for multi-machine deployment
      * @return The network IP address or localhost as fallback
@@ -130,11 +150,18 @@ public class HQServer {
             authService = new AuthServiceImpl();
             drinkService = new DrinkServiceImpl();
             stockService = new StockServiceImpl();
-            orderService = new OrderServiceImpl(stockService, drinkService);
+            orderService = new OrderServiceImpl();
             reportService = new ReportServiceImpl();
             notificationService = new NotificationServiceImpl();
             loadBalancerService = new LoadBalancerServiceImpl();
             paymentService = new PaymentServiceImpl();
+            orderService.setNotificationService(notificationService);
+            orderService.setLoadBalancerService(loadBalancerService);
+            
+            // Order events committed by HQ and branch servers are relayed from here
+            loyaltyLedger = new LoyaltyLedger();
+            outboxRelay = startOutboxRelay(orderService, notificationService, reportService, loyaltyLedger);
+            paymentService.setLoyaltyLedger(loyaltyLedger);
             
             logger.info("All services created and auto-exported successfully");
             
@@ -190,6 +217,15 @@ public class HQServer {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 logger.info("Shutting down HQ RMI Server...");
                 try {
+                    if (orderService != null) {
+                        orderService.shutdown();
+                    }
+                    if (outboxRelay != null) {
+                        outboxRelay.shutdown();
+                    }
+                    if (loyaltyLedger != null) {
+                        loyaltyLedger.shutdown();
+                    }
                     if (reportService != null) {
                         UnicastRemoteObject.unexportObject(reportService, true);
                     }
@@ -30,6 +30,8 @@ public class HQServerSimple {
     private static ReportService reportService;
     private static NotificationService notificationService;
     private static LoadBalancerService loadBalancerService;
+    private static OrderOutboxRelay outboxRelay;
+    private static LoyaltyLedger loyaltyLedger;
     
     public static void main(String[] args) {
         try {
@@ -45,15 +47,27 @@ public class HQServerSimple {
             Registry registry = LocateRegistry.getRegistry(SERVER_HOST, RMI_PORT);
             logger.info("Connected to RMI registry on port {}", RMI_PORT);
             
+            // Order, payment and notification IDs are generated here; keep clear of HQ's node 0 and the branch nodes
+            if (System.getProperty(IdGenerator.NODE_PROPERTY) == null) {
+                System.setProperty(IdGenerator.NODE_PROPERTY, String.valueOf(IdGenerator.MAX_NODE));
+            }
+            
             // Create service implementations (they auto-export since they extend UnicastRemoteObject)
             logger.info("Creating service implementations...");
             authService = new AuthServiceImpl();
             drinkService = new DrinkServiceImpl();
             stockService = new StockServiceImpl();
-            orderService = new OrderServiceImpl(stockService, drinkService);
-            reportService = new ReportServiceImpl();
+            OrderServiceImpl orderServiceImpl = new OrderServiceImpl();
+            ReportServiceImpl reportServiceImpl = new ReportServiceImpl();
+            orderService = orderServiceImpl;
+            reportService = reportServiceImpl;
             notificationService = new NotificationServiceImpl();
             loadBalancerService = new LoadBalancerServiceImpl();
+            orderServiceImpl.setNotificationService(notificationService);
+            
+            // Orders are confirmed, and their events counted, only through the outbox relay
+            loyaltyLedger = new LoyaltyLedger();
+            outboxRelay = HQServer.startOutboxRelay(orderServiceImpl, notificationService, reportServiceImpl, loyaltyLedger);
             
             logger.info("All services exported successfully");
             
@@ -114,7 +128,16 @@ public class HQServerSimple {
                     if (authService != null) UnicastRemoteObject.unexportObject(authService, true);
                     if (drinkService != null) UnicastRemoteObject.unexportObject(drinkService, true);
                     if (stockService != null) UnicastRemoteObject.unexportObject(stockService, true);
-                    if (orderService != null) UnicastRemoteObject.unexportObject(orderService, true);
+                    if (orderService != null) {
+                        ((OrderServiceImpl) orderService).shutdown();
+                        UnicastRemoteObject.unexportObject(orderService, true);
+                    }
+                    if (outboxRelay != null) {
+                        outboxRelay.shutdown();
+                    }
+                    if (loyaltyLedger != null) {
+                        loyaltyLedger.shutdown();
+                    }
                     if (reportService != null) UnicastRemoteObject.unexportObject(reportService, true);
                     if (notificationService != null) {
                         ((NotificationServiceImpl) notificationService).shutdown();
@@ -0,0 +1,77 @@
+package com.drinks.rmi.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time-ordered 64-bit ID generator for rows written by the application
+ * An ID packs 41 bits of milliseconds since 2024-01-01 UTC, a 10-bit node ID and a 12-bit
+ * per-millisecond sequence. Servers with different node IDs never produce the same ID, so IDs can be
+ * assigned before insert, offline or on separate databases, without asking MySQL.
+ * The node of this process is read from -Ddrinks.node.id (0 for HQ by default, 1023 for the simple HQ
+ * server; branch servers use their branch ID unless the property is set).
+ * Once a generated ID is inserted, MySQL raises the table's AUTO_INCREMENT past it, so a row inserted
+ * without an ID could take the next generated one. Every writer of orders, payments and notifications,
+ * the seed scripts included, therefore supplies its own ID.
+ */
+public final class IdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
+
+    public static final String NODE_PROPERTY = "drinks.node.id";
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static volatile IdGenerator shared;
+
+    private final long node;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public IdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    /**
+     * The generator of this process, created on first use from -Ddrinks.node.id
+     */
+    public static IdGenerator shared() {
+        IdGenerator generator = shared;
+        if (generator == null) {
+            synchronized (IdGenerator.class) {
+                generator = shared;
+                if (generator == null) {
+                    generator = new IdGenerator(Integer.getInteger(NODE_PROPERTY, 0));
+                    shared = generator;
+                    logger.info("ID generator started for node {}", generator.node);
+                }
+            }
+        }
+        return generator;
+    }
+
+    public synchronized long nextId() {
+        long now = System.currentTimeMillis();
+        // Never go back in time: a clock step backwards keeps issuing from the last millisecond
+        if (now < lastMillis) {
+            now = lastMillis;
+        }
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 4096 IDs issued this millisecond; borrow the next one, the clock catches up under normal load
+                now = lastMillis + 1;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return ((now - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+}
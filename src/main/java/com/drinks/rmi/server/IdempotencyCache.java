@@ -0,0 +1,67 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, time-expiring cache of recently placed orders keyed by client idempotency key
+ * Serves replays without touching the database; the unique orders.idempotency_key column
+ * remains the source of truth once an entry has been evicted or expired
+ */
+public class IdempotencyCache {
+    
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_TTL_MILLIS = 24L * 60 * 60 * 1000;
+    
+    private static class Entry {
+        private final OrderDTO order;
+        private final long storedAt;
+        
+        Entry(OrderDTO order, long storedAt) {
+            this.order = order;
+            this.storedAt = storedAt;
+        }
+    }
+    
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    
+    public IdempotencyCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+    
+    public IdempotencyCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    /**
+     * Get the order placed under a key, or null if unknown or expired
+     */
+    public synchronized OrderDTO get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.storedAt > ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.order;
+    }
+    
+    public synchronized void put(String key, OrderDTO order) {
+        entries.put(key, new Entry(order, System.currentTimeMillis()));
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+}
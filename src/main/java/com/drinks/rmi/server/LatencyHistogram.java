@@ -0,0 +1,120 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rolling histogram of durations, kept as one set of counts per time slice
+ * Bucket bounds grow by 20% from one second to a week, so a percentile is reported within 20% of its
+ * true value in constant memory. A duration is counted in the slice of the time it ended, and slices
+ * older than the window are reused.
+ */
+final class LatencyHistogram {
+
+    private static final long[] BOUNDS;
+
+    static {
+        List<Long> bounds = new ArrayList<>();
+        for (long bound = 1; bound < 7 * 24 * 3600; bound = Math.max(bound + 1, Math.round(bound * 1.2))) {
+            bounds.add(bound);
+        }
+        // The last bucket counts everything longer
+        bounds.add(Long.MAX_VALUE);
+        BOUNDS = bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private final long sliceMillis;
+    private final long[][] counts;
+    private final long[] sliceIndex;
+    private final long[] sliceMaxSeconds;
+
+    LatencyHistogram(int slices, long sliceMillis) {
+        this.sliceMillis = sliceMillis;
+        this.counts = new long[slices][BOUNDS.length];
+        this.sliceIndex = new long[slices];
+        this.sliceMaxSeconds = new long[slices];
+        Arrays.fill(sliceIndex, -1);
+    }
+
+    /**
+     * Count a duration that ended at the given time; durations older than the window are ignored
+     */
+    synchronized void record(long endedAtMillis, long durationMillis) {
+        long index = endedAtMillis / sliceMillis;
+        int slot = (int) (index % counts.length);
+        if (sliceIndex[slot] != index) {
+            if (sliceIndex[slot] > index) {
+                return;
+            }
+            Arrays.fill(counts[slot], 0);
+            sliceIndex[slot] = index;
+            sliceMaxSeconds[slot] = 0;
+        }
+        long seconds = Math.max(0, (durationMillis + 999) / 1000);
+        counts[slot][bucket(seconds)]++;
+        sliceMaxSeconds[slot] = Math.max(sliceMaxSeconds[slot], seconds);
+    }
+
+    /**
+     * Count and percentiles of the durations that ended within the window before the given time
+     */
+    synchronized FulfilmentLatencyDTO.StageLatency describe(String stage, long nowMillis) {
+        long current = nowMillis / sliceMillis;
+        long[] merged = new long[BOUNDS.length];
+        long total = 0;
+        long maxSeconds = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (sliceIndex[slot] < 0 || sliceIndex[slot] <= current - counts.length || sliceIndex[slot] > current) {
+                continue;
+            }
+            for (int i = 0; i < BOUNDS.length; i++) {
+                merged[i] += counts[slot][i];
+                total += counts[slot][i];
+            }
+            maxSeconds = Math.max(maxSeconds, sliceMaxSeconds[slot]);
+        }
+
+        FulfilmentLatencyDTO.StageLatency latency = new FulfilmentLatencyDTO.StageLatency(stage);
+        latency.setCount(total);
+        latency.setP50Seconds(percentile(merged, total, 50, maxSeconds));
+        latency.setP90Seconds(percentile(merged, total, 90, maxSeconds));
+        latency.setP99Seconds(percentile(merged, total, 99, maxSeconds));
+        latency.setMaxSeconds(maxSeconds);
+        return latency;
+    }
+
+    private static int bucket(long seconds) {
+        int low = 0;
+        int high = BOUNDS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS[mid] >= seconds) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Upper bound of the bucket holding the percentile, capped at the largest duration seen
+     */
+    private static long percentile(long[] merged, long total, double percent, long maxSeconds) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percent / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < merged.length; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return Math.min(BOUNDS[i], maxSeconds);
+            }
+        }
+        return maxSeconds;
+    }
+}
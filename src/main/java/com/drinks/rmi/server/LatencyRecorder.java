@@ -0,0 +1,76 @@
+package com.drinks.rmi.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the durations of the most recent calls of one operation and checks them against a p99 budget
+ * Every time the window fills up, the p99 of the window is computed and a warning is logged if it is
+ * over budget, so a slow stretch shows up in the log without logging every slow call.
+ */
+public class LatencyRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyRecorder.class);
+
+    private final String operation;
+    private final long budgetNanos;
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * @param operation Name of the operation, used in log messages
+     * @param budgetMillis Allowed p99 latency in milliseconds
+     * @param window Number of most recent calls kept
+     */
+    public LatencyRecorder(String operation, long budgetMillis, int window) {
+        this.operation = operation;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.samples = new long[window];
+    }
+
+    /**
+     * Record the duration of one call, started at the given System.nanoTime
+     * @return The duration in nanoseconds
+     */
+    public long recordSince(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        long p99 = -1;
+        synchronized (this) {
+            samples[next] = elapsed;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (next == 0) {
+                p99 = percentileNanos(99);
+            }
+        }
+        if (p99 > budgetNanos) {
+            logger.warn("{} p99 latency {} ms over the last {} calls exceeds the {} ms budget",
+                        operation, p99 / 1_000_000.0, samples.length, budgetNanos / 1_000_000);
+        }
+        return elapsed;
+    }
+
+    /**
+     * The given percentile of the recorded durations in milliseconds, 0 before any call
+     */
+    public synchronized double percentileMillis(double percentile) {
+        return percentileNanos(percentile) / 1_000_000.0;
+    }
+
+    public long getBudgetMillis() {
+        return budgetNanos / 1_000_000;
+    }
+
+    private long percentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(rank, count - 1))];
+    }
+}
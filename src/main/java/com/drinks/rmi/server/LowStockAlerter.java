@@ -0,0 +1,99 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.dto.NotificationDTO;
+import com.drinks.rmi.interfaces.NotificationService;
+
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warns branch users when placed orders take a drink down to its stock threshold
+ * The drinks of every order in a batch are checked with one query, and each branch gets a single
+ * notification listing its low drinks. A drink is reported at most once an hour per branch,
+ * unless it has run out since the last warning.
+ */
+final class LowStockAlerter implements OrderEventConsumer {
+
+    private static final long REPEAT_AFTER_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final NotificationService notificationService;
+    // Branch ID << 32 | drink ID, to the time and quantity of the last warning
+    private final Map<Long, long[]> lastWarnings = new ConcurrentHashMap<>();
+
+    LowStockAlerter(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public void onOrderEvents(List<OrderEvent> events) throws SQLException, RemoteException {
+        List<Long> orderIds = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.PLACED) {
+                orderIds.add(event.getOrderId());
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        String sql = "SELECT DISTINCT s.branch_id, b.name AS branch_name, s.drink_id, d.name AS drink_name, " +
+                     "s.quantity, COALESCE(s.threshold, 10) AS threshold " +
+                     "FROM order_items oi " +
+                     "JOIN orders o ON oi.order_id = o.id " +
+                     "JOIN stocks s ON s.branch_id = o.branch_id AND s.drink_id = oi.drink_id " +
+                     "JOIN branches b ON s.branch_id = b.id " +
+                     "JOIN drinks d ON s.drink_id = d.id " +
+                     "WHERE oi.order_id IN (" + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ") " +
+                     "AND s.quantity <= COALESCE(s.threshold, 10)";
+
+        long now = System.currentTimeMillis();
+        Map<String, List<String>> lowByBranch = new LinkedHashMap<>();
+        Set<String> outOfStock = new HashSet<>();
+        Map<Long, long[]> warned = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < orderIds.size(); i++) {
+                stmt.setLong(i + 1, orderIds.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int quantity = rs.getInt("quantity");
+                long key = (rs.getLong("branch_id") << 32) | rs.getLong("drink_id");
+                long[] last = lastWarnings.get(key);
+                if (last != null && now - last[0] < REPEAT_AFTER_MS && (quantity > 0 || last[1] == 0)) {
+                    continue;
+                }
+                warned.put(key, new long[] {now, quantity});
+                if (quantity == 0) {
+                    outOfStock.add(rs.getString("branch_name"));
+                }
+                lowByBranch.computeIfAbsent(rs.getString("branch_name"), name -> new ArrayList<>())
+                    .add(rs.getString("drink_name") + " (" + quantity + " left, threshold " + rs.getInt("threshold") + ")");
+            }
+        }
+
+        for (Map.Entry<String, List<String>> branch : lowByBranch.entrySet()) {
+            NotificationDTO notification = new NotificationDTO("Low Stock",
+                "Stock is low at " + branch.getKey() + ": " + String.join(", ", branch.getValue()),
+                outOfStock.contains(branch.getKey()) ? NotificationDTO.NotificationType.STOCK_OUT : NotificationDTO.NotificationType.STOCK_LOW);
+            notificationService.sendNotificationToBranch(branch.getKey(), notification);
+        }
+        // Only remember warnings once they have gone out, so a redelivered batch warns again
+        lastWarnings.putAll(warned);
+    }
+}
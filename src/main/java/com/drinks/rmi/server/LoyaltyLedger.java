@@ -0,0 +1,239 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.common.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loyalty points, awarded for paid orders off the payment path
+ * PAID events from the outbox relay are appended to loyalty_ledger, one batch per relay batch, at one
+ * point per KES 100 (set with -Ddrinks.loyalty.kesPerPoint). Every 5 minutes (-Ddrinks.loyalty.compactMinutes)
+ * the new ledger rows are summed into loyalty_balances. Balances read here are cached in 64 independently
+ * locked stripes of up to 100000 customers in all (-Ddrinks.loyalty.cachedCustomers), so concurrent
+ * reads and awards for different customers rarely wait on each other.
+ * A redelivered PAID event is ignored by the ledger's unique order key, so an order earns its points once.
+ */
+public class LoyaltyLedger implements OrderEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoyaltyLedger.class);
+    private static final int KES_PER_POINT = Math.max(1, Integer.getInteger("drinks.loyalty.kesPerPoint", 100));
+    private static final long COMPACT_MINUTES = Math.max(1, Long.getLong("drinks.loyalty.compactMinutes", 5));
+    private static final int STRIPES = 64;
+    private static final int CUSTOMERS_PER_STRIPE =
+        Math.max(1, Integer.getInteger("drinks.loyalty.cachedCustomers", 100000) / STRIPES);
+
+    /**
+     * Cached balances of the customers hashed to one stripe, least recently read first
+     * The generation changes before and after every award to the stripe, so a balance read from the
+     * database while an award was being written is not cached.
+     */
+    private static final class Stripe {
+        final Map<Long, Long> balances = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > CUSTOMERS_PER_STRIPE;
+            }
+        };
+        long generation;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Ledger appends and compaction take turns, so compaction never passes an uncommitted ledger row
+    private final Object ledgerLock = new Object();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "loyalty-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LoyaltyLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        compactor.scheduleWithFixedDelay(this::compact, COMPACT_MINUTES, COMPACT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void onOrderEvents(List<OrderEvent> events) throws SQLException {
+        List<OrderEvent> paid = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.STATUS_CHANGED && "PAID".equals(event.getStatus())
+                    && points(event.getTotalAmount()) > 0) {
+                paid.add(event);
+            }
+        }
+        if (paid.isEmpty()) {
+            return;
+        }
+
+        // Readers that start before the rows commit must not cache what they read
+        for (OrderEvent event : paid) {
+            invalidate(event.getCustomerId());
+        }
+        int[] counts = append(paid);
+        int awarded = 0;
+        for (int i = 0; i < paid.size(); i++) {
+            // 0 means the order was already in the ledger; a driver may also report success without a count
+            if (counts[i] != 0) {
+                invalidate(paid.get(i).getCustomerId());
+                awarded++;
+            }
+        }
+        logger.debug("Awarded loyalty points for {} of {} paid orders", awarded, paid.size());
+    }
+
+    /**
+     * A customer's points, from the cache or else from the balance table and the uncompacted ledger
+     */
+    public long getPoints(long customerId) throws SQLException {
+        Stripe stripe = stripe(customerId);
+        long generation;
+        synchronized (stripe) {
+            Long cached = stripe.balances.get(customerId);
+            if (cached != null) {
+                return cached;
+            }
+            generation = stripe.generation;
+        }
+
+        long points;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            points = readBalance(conn, customerId);
+        }
+        synchronized (stripe) {
+            if (stripe.generation == generation) {
+                stripe.balances.put(customerId, points);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Read a customer's points with one consistent query: the compacted balance plus later ledger rows
+     */
+    static long readBalance(Connection conn, long customerId) throws SQLException {
+        String sql = """
+            SELECT COALESCE((SELECT b.points FROM loyalty_balances b WHERE b.customer_id = ?), 0)
+                 + COALESCE((SELECT SUM(l.points) FROM loyalty_ledger l
+                             WHERE l.customer_id = ?
+                               AND l.id > (SELECT c.ledger_id FROM loyalty_compaction c WHERE c.id = 1)), 0) AS points
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, customerId);
+            stmt.setLong(2, customerId);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong("points") : 0;
+        }
+    }
+
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    private static int points(double totalAmount) {
+        return (int) Math.floor(totalAmount / KES_PER_POINT);
+    }
+
+    private Stripe stripe(long customerId) {
+        return stripes[Long.hashCode(customerId) & (STRIPES - 1)];
+    }
+
+    /**
+     * Drop a customer's cached balance and stop reads already under way from caching theirs
+     * The next read then includes every committed award.
+     */
+    private void invalidate(long customerId) {
+        Stripe stripe = stripe(customerId);
+        synchronized (stripe) {
+            stripe.generation++;
+            stripe.balances.remove(customerId);
+        }
+    }
+
+    /**
+     * Append ledger rows for paid orders as one JDBC batch; an order already in the ledger is skipped
+     * @return the update count of each order's row, 1 if inserted and 0 if it was already there
+     */
+    private int[] append(List<OrderEvent> paid) throws SQLException {
+        synchronized (ledgerLock) {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT IGNORE INTO loyalty_ledger (customer_id, order_id, points) VALUES (?, ?, ?)")) {
+
+                for (OrderEvent event : paid) {
+                    stmt.setLong(1, event.getCustomerId());
+                    stmt.setLong(2, event.getOrderId());
+                    stmt.setInt(3, points(event.getTotalAmount()));
+                    stmt.addBatch();
+                }
+                return stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Sum the ledger rows written since the last compaction into the balance table
+     * Balances do not change, so the cache stays valid; the ledger itself is kept as the audit trail.
+     */
+    private void compact() {
+        try {
+            synchronized (ledgerLock) {
+                int customers = UnitOfWork.run(conn -> {
+                    long from;
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "SELECT ledger_id FROM loyalty_compaction WHERE id = 1 FOR UPDATE")) {
+                        ResultSet rs = stmt.executeQuery();
+                        if (!rs.next()) {
+                            throw new SQLException("loyalty_compaction has no row");
+                        }
+                        from = rs.getLong("ledger_id");
+                    }
+                    long to;
+                    try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM loyalty_ledger")) {
+                        ResultSet rs = stmt.executeQuery();
+                        rs.next();
+                        to = rs.getLong(1);
+                    }
+                    if (to <= from) {
+                        return 0;
+                    }
+
+                    int updated;
+                    try (PreparedStatement stmt = conn.prepareStatement("""
+                            INSERT INTO loyalty_balances (customer_id, points)
+                            SELECT customer_id, SUM(points) FROM loyalty_ledger WHERE id > ? AND id <= ? GROUP BY customer_id
+                            ON DUPLICATE KEY UPDATE points = points + VALUES(points)
+                            """)) {
+                        stmt.setLong(1, from);
+                        stmt.setLong(2, to);
+                        updated = stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement("UPDATE loyalty_compaction SET ledger_id = ? WHERE id = 1")) {
+                        stmt.setLong(1, to);
+                        stmt.executeUpdate();
+                    }
+                    return updated;
+                });
+                if (customers > 0) {
+                    logger.info("Compacted loyalty ledger into balances ({} rows affected)", customers);
+                }
+            }
+        } catch (SQLException | RemoteException e) {
+            logger.error("Failed to compact loyalty ledger", e);
+        }
+    }
+}
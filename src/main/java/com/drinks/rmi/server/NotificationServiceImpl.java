@@ -212,29 +212,26 @@ public class NotificationServiceImpl extends UnicastRemoteObject implements Noti
     // Helper methods
     
     private void storeNotification(Long userId, NotificationDTO notification) {
-        String sql = "INSERT INTO notifications (user_id, title, message, type, priority, is_read, created_at, action_url, metadata) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO notifications (id, user_id, title, message, type, priority, is_read, created_at, action_url, metadata) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setLong(1, userId);
-            stmt.setString(2, notification.getTitle());
-            stmt.setString(3, notification.getMessage());
-            stmt.setString(4, notification.getType() != null ? notification.getType().name() : "INFO");
-            stmt.setString(5, notification.getPriority() != null ? notification.getPriority().name() : "NORMAL");
-            stmt.setBoolean(6, notification.isRead());
-            stmt.setTimestamp(7, Timestamp.valueOf(notification.getCreatedAt()));
-            stmt.setString(8, notification.getActionUrl());
-            stmt.setString(9, notification.getMetadata());
+            long id = IdGenerator.shared().nextId();
+            stmt.setLong(1, id);
+            stmt.setLong(2, userId);
+            stmt.setString(3, notification.getTitle());
+            stmt.setString(4, notification.getMessage());
+            stmt.setString(5, notification.getType() != null ? notification.getType().name() : "INFO");
+            stmt.setString(6, notification.getPriority() != null ? notification.getPriority().name() : "NORMAL");
+            stmt.setBoolean(7, notification.isRead());
+            stmt.setTimestamp(8, Timestamp.valueOf(notification.getCreatedAt()));
+            stmt.setString(9, notification.getActionUrl());
+            stmt.setString(10, notification.getMetadata());
             
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        notification.setId(generatedKeys.getLong(1));
-                    }
-                }
+            if (stmt.executeUpdate() > 0) {
+                notification.setId(id);
             }
             
         } catch (SQLException e) {
@@ -0,0 +1,146 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.dto.NotificationDTO;
+import com.drinks.rmi.interfaces.NotificationService;
+
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tells customers' user accounts that their orders were placed or changed status
+ * The accounts of every customer in a batch are looked up with one query on the indexed users.customer_id,
+ * so status changes notify customers without any extra calls from the client that made them.
+ * Delivery is at least once, so the notifications already sent for recent orders are remembered
+ * (-Ddrinks.notify.rememberedSends, default 100000) and a redelivered event does not notify anyone twice.
+ */
+final class OrderCustomerNotifier implements OrderEventConsumer {
+
+    private static final int REMEMBERED_SENDS = Math.max(1, Integer.getInteger("drinks.notify.rememberedSends", 100000));
+
+    private final NotificationService notificationService;
+    // Order, status and user of each notification sent recently; only touched on the relay thread
+    private final Set<String> sent = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > REMEMBERED_SENDS;
+        }
+    });
+
+    OrderCustomerNotifier(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public void onOrderEvents(List<OrderEvent> events) throws SQLException, RemoteException {
+        List<OrderEvent> notable = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.PLACED
+                    || event.getStatus() != null && statusTitle(event.getStatus()) != null) {
+                notable.add(event);
+            }
+        }
+        if (notable.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Long>> usersByCustomer = loadUsers(notable);
+        for (OrderEvent event : notable) {
+            for (Long userId : usersByCustomer.getOrDefault(event.getCustomerId(), List.of())) {
+                // Placement has its own key, as a PLACED event may carry the same status as a later change
+                String key = event.getOrderId() + ":" + (event.getType() == OrderEvent.Type.PLACED ? "PLACED" : event.getStatus()) +
+                             ":" + userId;
+                if (sent.contains(key)) {
+                    continue;
+                }
+                NotificationDTO notification = event.getType() == OrderEvent.Type.PLACED
+                    ? new NotificationDTO(userId, "Order Confirmed",
+                        String.format("Order #%d has been placed. Total: KES %.2f", event.getOrderId(), event.getTotalAmount()),
+                        NotificationDTO.NotificationType.ORDER_CONFIRMED)
+                    : new NotificationDTO(userId, statusTitle(event.getStatus()),
+                        String.format("Your order #%d %s", event.getOrderId(), statusOutcome(event.getStatus())),
+                        statusType(event.getStatus()));
+                notification.setMetadata("{\"orderId\":" + event.getOrderId() + ",\"status\":\"" + event.getStatus() + "\"}");
+                notificationService.sendNotification(userId, notification);
+                sent.add(key);
+            }
+        }
+    }
+
+    /**
+     * Title of the notification for a status change, or null for statuses customers are not told about
+     */
+    private static String statusTitle(String status) {
+        switch (status) {
+            case "PAID":
+                return "Payment Received";
+            case "PROCESSING":
+                return "Order Status Updated";
+            case "COMPLETED":
+                return "Order Completed";
+            case "CANCELLED":
+                return "Order Cancelled";
+            default:
+                return null;
+        }
+    }
+
+    private static String statusOutcome(String status) {
+        switch (status) {
+            case "PAID":
+                return "has been paid";
+            case "PROCESSING":
+                return "is now being processed";
+            case "COMPLETED":
+                return "has been completed";
+            default:
+                return "has been cancelled";
+        }
+    }
+
+    private static NotificationDTO.NotificationType statusType(String status) {
+        switch (status) {
+            case "COMPLETED":
+                return NotificationDTO.NotificationType.ORDER_CONFIRMED;
+            case "CANCELLED":
+                return NotificationDTO.NotificationType.ORDER_CANCELLED;
+            default:
+                return NotificationDTO.NotificationType.ORDER_UPDATE;
+        }
+    }
+
+    private Map<Long, List<Long>> loadUsers(List<OrderEvent> events) throws SQLException {
+        List<Long> customerIds = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (!customerIds.contains(event.getCustomerId())) {
+                customerIds.add(event.getCustomerId());
+            }
+        }
+
+        String sql = "SELECT id, customer_id FROM users WHERE customer_id IN (" +
+                     String.join(", ", Collections.nCopies(customerIds.size(), "?")) + ")";
+        Map<Long, List<Long>> usersByCustomer = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < customerIds.size(); i++) {
+                stmt.setLong(i + 1, customerIds.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                usersByCustomer.computeIfAbsent(rs.getLong("customer_id"), id -> new ArrayList<>()).add(rs.getLong("id"));
+            }
+        }
+        return usersByCustomer;
+    }
+}
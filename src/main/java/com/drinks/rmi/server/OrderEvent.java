@@ -0,0 +1,50 @@
+package com.drinks.rmi.server;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order change read back from the order outbox
+ * Carries the order's identity, status and total as they were when the change committed.
+ */
+public final class OrderEvent {
+
+    public enum Type {
+        PLACED,
+        STATUS_CHANGED
+    }
+
+    private final long id;
+    private final Type type;
+    private final long orderId;
+    private final long customerId;
+    private final long branchId;
+    private final String status;
+    private final double totalAmount;
+    private final LocalDateTime createdAt;
+
+    public OrderEvent(long id, Type type, long orderId, long customerId, long branchId,
+                      String status, double totalAmount, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.branchId = branchId;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() { return id; }
+    public Type getType() { return type; }
+    public long getOrderId() { return orderId; }
+    public long getCustomerId() { return customerId; }
+    public long getBranchId() { return branchId; }
+    public String getStatus() { return status; }
+    public double getTotalAmount() { return totalAmount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return type + " order " + orderId + " (" + status + ")";
+    }
+}
@@ -0,0 +1,19 @@
+package com.drinks.rmi.server;
+
+import java.util.List;
+
+/**
+ * Receives batches of committed order events from the outbox relay
+ * Delivery is at least once: events a consumer throws on are offered to it again, and after a
+ * restart every undispatched event is offered to every consumer, so consumers must tolerate
+ * seeing an event more than once.
+ */
+public interface OrderEventConsumer {
+
+    /**
+     * Handle a batch of events, oldest first
+     *
+     * @throws Exception to have the batch redelivered to this consumer on a later poll
+     */
+    void onOrderEvents(List<OrderEvent> events) throws Exception;
+}
@@ -0,0 +1,187 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderItemDTO;
+import com.drinks.rmi.interfaces.OrderExportCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.rmi.server.Unreferenced;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Remote cursor over a streaming MySQL result set of orders joined with their items
+ * Rows are read from the server one at a time, so memory use does not depend on the size of the export.
+ * The cursor owns a dedicated connection until it is exhausted, closed, idle for too long or unreferenced.
+ */
+public class OrderExportCursorImpl extends UnicastRemoteObject implements OrderExportCursor, Unreferenced {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportCursorImpl.class);
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_CHUNK_ORDERS = 1000;
+    
+    private final transient Connection conn;
+    private final transient PreparedStatement stmt;
+    private final transient ResultSet rs;
+    private final transient Consumer<OrderExportCursorImpl> onClose;
+    
+    private transient OrderDTO pending; // Order read from the result set whose items may continue on the next row
+    private boolean exhausted;
+    private boolean closed;
+    private volatile long lastAccessMillis;
+    private int exportedOrders;
+    
+    /**
+     * Start streaming the prepared export query; the cursor takes ownership of the connection and statement
+     */
+    OrderExportCursorImpl(Connection conn, PreparedStatement stmt, Consumer<OrderExportCursorImpl> onClose) throws RemoteException, SQLException {
+        super();
+        this.conn = conn;
+        this.stmt = stmt;
+        this.onClose = onClose;
+        this.lastAccessMillis = System.currentTimeMillis();
+        this.rs = stmt.executeQuery();
+    }
+    
+    @Override
+    public synchronized List<OrderDTO> next(int maxOrders) throws RemoteException {
+        if (closed) {
+            throw new RemoteException("Export cursor is closed");
+        }
+        lastAccessMillis = System.currentTimeMillis();
+        
+        int limit = Math.max(1, Math.min(maxOrders, MAX_CHUNK_ORDERS));
+        List<OrderDTO> chunk = new ArrayList<>(limit);
+        
+        try {
+            while (chunk.size() < limit && !exhausted) {
+                if (!rs.next()) {
+                    exhausted = true;
+                    if (pending != null) {
+                        chunk.add(pending);
+                        pending = null;
+                    }
+                    // Hand the connection back as soon as the last row has been read
+                    releaseResources();
+                    break;
+                }
+                
+                long orderId = rs.getLong("id");
+                if (pending == null || pending.getId() != orderId) {
+                    if (pending != null) {
+                        chunk.add(pending);
+                    }
+                    pending = readOrder(rs);
+                }
+                
+                long itemId = rs.getLong("item_id");
+                if (!rs.wasNull()) {
+                    OrderItemDTO item = new OrderItemDTO(
+                        itemId,
+                        orderId,
+                        rs.getLong("drink_id"),
+                        rs.getString("drink_name"),
+                        rs.getInt("quantity"),
+                        rs.getBigDecimal("unit_price")
+                    );
+                    item.setDiscountAmount(rs.getBigDecimal("discount_amount"));
+                    pending.addItem(item);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Database error while streaming order export", e);
+            close();
+            throw new RemoteException("Failed to read order export due to database error", e);
+        }
+        
+        exportedOrders += chunk.size();
+        return chunk;
+    }
+    
+    @Override
+    public synchronized boolean hasMore() {
+        return !closed && (!exhausted || pending != null);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending = null;
+        releaseResources();
+        
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            // Already unexported
+        }
+        onClose.accept(this);
+        logger.info("Order export cursor closed after {} orders", exportedOrders);
+    }
+    
+    /**
+     * Called by the RMI runtime once no client holds a live lease on this cursor
+     */
+    @Override
+    public void unreferenced() {
+        logger.info("Order export cursor lease expired, closing");
+        close();
+    }
+    
+    boolean isIdleSince(long cutoffMillis) {
+        return lastAccessMillis < cutoffMillis;
+    }
+    
+    private OrderDTO readOrder(ResultSet rs) throws SQLException {
+        OrderDTO order = new OrderDTO(
+            rs.getLong("id"),
+            rs.getLong("customer_id"),
+            rs.getString("customer_name"),
+            rs.getLong("branch_id"),
+            rs.getString("branch_name"),
+            rs.getTimestamp("order_time").toLocalDateTime()
+        );
+        order.setStatus(rs.getString("status"));
+        order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+        return order;
+    }
+    
+    private void releaseResources() {
+        // A streaming result set must be closed before its connection can be reused
+        Exception failure = close(null, rs);
+        failure = close(failure, stmt);
+        failure = close(failure, conn);
+        if (failure != null) {
+            logger.warn("Error while releasing order export resources", failure);
+        }
+    }
+    
+    /**
+     * Close a resource, keeping the first failure and adding later ones to it as suppressed
+     */
+    private static Exception close(Exception failure, AutoCloseable resource) {
+        if (resource == null) {
+            return failure;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+}
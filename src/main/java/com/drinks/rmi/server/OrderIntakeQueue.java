@@ -0,0 +1,151 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderRequestDTO;
+import com.drinks.rmi.dto.OrderTicketDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-branch in-memory queue for asynchronously submitted orders
+ * A single committer thread drains each branch queue and hands the orders over in groups,
+ * so that many orders share one transaction and one commit
+ */
+public class OrderIntakeQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeQueue.class);
+    
+    private static final int QUEUE_CAPACITY = Integer.getInteger("drinks.orders.intakeCapacity", 10000);
+    private static final int MAX_GROUP_SIZE = 500;
+    private static final long COMMIT_INTERVAL_MS = 20;
+    private static final long TICKET_RETENTION_MINUTES = 15;
+    
+    /**
+     * Writes a group of queued orders for one branch and completes their tickets
+     */
+    interface GroupCommitter {
+        void commitGroup(Long branchId, List<QueuedOrder> group);
+    }
+    
+    /**
+     * An order waiting in a branch queue together with its ticket
+     */
+    static class QueuedOrder {
+        private final OrderTicketDTO ticket;
+        private final OrderRequestDTO request;
+        
+        QueuedOrder(OrderTicketDTO ticket, OrderRequestDTO request) {
+            this.ticket = ticket;
+            this.request = request;
+        }
+        
+        OrderTicketDTO getTicket() { return ticket; }
+        OrderRequestDTO getRequest() { return request; }
+    }
+    
+    private final Map<Long, BlockingQueue<QueuedOrder>> queues = new ConcurrentHashMap<>();
+    private final Map<String, OrderTicketDTO> tickets = new ConcurrentHashMap<>();
+    private final GroupCommitter committer;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "order-intake-committer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public OrderIntakeQueue(GroupCommitter committer) {
+        this.committer = committer;
+        scheduler.scheduleWithFixedDelay(this::drainAll, COMMIT_INTERVAL_MS, COMMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::expireTickets, 1, 1, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Queue a validated order and return its ticket
+     * 
+     * @throws RemoteException if the branch queue is full
+     */
+    public OrderTicketDTO enqueue(Long userId, OrderRequestDTO request) throws RemoteException {
+        OrderTicketDTO ticket = new OrderTicketDTO(UUID.randomUUID().toString(), OrderTicketDTO.QUEUED,
+            userId, request.getCustomerId(), request.getBranchId(), "Order queued");
+        
+        BlockingQueue<QueuedOrder> queue = queues.computeIfAbsent(request.getBranchId(),
+            id -> new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        
+        tickets.put(ticket.getTicketId(), ticket);
+        if (!queue.offer(new QueuedOrder(ticket, request))) {
+            tickets.remove(ticket.getTicketId());
+            logger.warn("Order intake queue full for branch ID: {}", request.getBranchId());
+            throw new RemoteException("Order queue is full for this branch, please try again shortly");
+        }
+        return ticket;
+    }
+    
+    public OrderTicketDTO getTicket(String ticketId) {
+        return ticketId != null ? tickets.get(ticketId) : null;
+    }
+    
+    /**
+     * Record the outcome of a queued order
+     */
+    public OrderTicketDTO complete(QueuedOrder queued, String status, Long orderId, String message) {
+        OrderTicketDTO completed = queued.getTicket().complete(status, orderId, message);
+        tickets.put(completed.getTicketId(), completed);
+        return completed;
+    }
+    
+    public int getQueuedCount(Long branchId) {
+        BlockingQueue<QueuedOrder> queue = queues.get(branchId);
+        return queue != null ? queue.size() : 0;
+    }
+    
+    private void drainAll() {
+        for (Map.Entry<Long, BlockingQueue<QueuedOrder>> entry : queues.entrySet()) {
+            BlockingQueue<QueuedOrder> queue = entry.getValue();
+            List<QueuedOrder> group = new ArrayList<>(Math.min(queue.size(), MAX_GROUP_SIZE));
+            while (queue.drainTo(group, MAX_GROUP_SIZE) > 0) {
+                try {
+                    committer.commitGroup(entry.getKey(), group);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to commit group of {} queued orders for branch ID: {}", group.size(), entry.getKey(), e);
+                    for (QueuedOrder queued : group) {
+                        complete(queued, OrderTicketDTO.REJECTED, null, "Order could not be saved, please resubmit");
+                    }
+                }
+                group.clear();
+            }
+        }
+    }
+    
+    private void expireTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(TICKET_RETENTION_MINUTES);
+        tickets.values().removeIf(ticket -> !ticket.isPending() && ticket.getCompletedAt().isBefore(cutoff));
+    }
+    
+    /**
+     * Stop accepting work and commit whatever is still queued
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        drainAll();
+        logger.info("Order intake queue shutdown completed");
+    }
+}
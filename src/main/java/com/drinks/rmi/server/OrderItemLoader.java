@@ -0,0 +1,72 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderItemDTO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the items of many orders with IN-batched queries on the caller's connection,
+ * instead of one query and one connection per order
+ */
+final class OrderItemLoader {
+    
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    
+    private OrderItemLoader() {
+    }
+    
+    /**
+     * Replace the items of each order with its stored order items, priced at the unit price paid
+     */
+    static void attachItems(Connection conn, Collection<OrderDTO> orders) throws SQLException {
+        Map<Long, OrderDTO> ordersById = new LinkedHashMap<>();
+        for (OrderDTO order : orders) {
+            order.setItems(new ArrayList<>());
+            ordersById.put(order.getId(), order);
+        }
+        
+        List<Long> orderIds = new ArrayList<>(ordersById.keySet());
+        for (int from = 0; from < orderIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, orderIds.size()));
+            
+            String sql = """
+                SELECT oi.id, oi.order_id, oi.drink_id, COALESCE(d.name, oi.drink_name) as drink_name,
+                       oi.quantity, oi.unit_price, oi.discount_amount
+                FROM order_items oi
+                LEFT JOIN drinks d ON oi.drink_id = d.id
+                WHERE oi.order_id IN (%s)
+                ORDER BY oi.order_id, drink_name
+                """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    OrderItemDTO item = new OrderItemDTO(
+                        rs.getLong("id"),
+                        rs.getLong("order_id"),
+                        rs.getLong("drink_id"),
+                        rs.getString("drink_name"),
+                        rs.getInt("quantity"),
+                        rs.getBigDecimal("unit_price")
+                    );
+                    item.setDiscountAmount(rs.getBigDecimal("discount_amount"));
+                    ordersById.get(rs.getLong("order_id")).addItem(item);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Writes order events into the order_outbox table on the caller's connection,
+ * so an event commits or rolls back together with the order change it describes.
+ * Each status an order reaches is also kept in order_status_events, which outlives the outbox's purge.
+ */
+final class OrderOutbox {
+
+    private OrderOutbox() {
+    }
+
+    /**
+     * Record a PLACED event for each newly inserted order, as one JDBC batch
+     */
+    static void appendPlaced(Connection conn, Collection<OrderDTO> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO order_outbox (event_type, order_id, customer_id, branch_id, status, total_amount) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (OrderDTO order : orders) {
+                stmt.setString(1, OrderEvent.Type.PLACED.name());
+                stmt.setLong(2, order.getId());
+                stmt.setLong(3, order.getCustomerId());
+                stmt.setLong(4, order.getBranchId());
+                stmt.setString(5, order.getStatus());
+                stmt.setDouble(6, order.getTotalAmount());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT IGNORE INTO order_status_events (order_id, status, branch_id) VALUES (?, ?, ?)")) {
+            for (OrderDTO order : orders) {
+                stmt.setLong(1, order.getId());
+                stmt.setInt(2, statusCode(order.getStatus()));
+                stmt.setLong(3, order.getBranchId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Record a STATUS_CHANGED event for each order, copying its current row; call after the status update
+     */
+    static void appendStatusChanges(Connection conn, Collection<Long> orderIds) throws SQLException {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO order_outbox (event_type, order_id, customer_id, branch_id, status, total_amount) " +
+                     "SELECT ?, id, customer_id, branch_id, status, total_amount FROM orders WHERE id IN (" +
+                     String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ") ORDER BY id";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, OrderEvent.Type.STATUS_CHANGED.name());
+            int index = 2;
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+            stmt.executeUpdate();
+        }
+        
+        // Status codes are OrderStatus ordinals; FIELD is 1-based and the statuses are listed in ordinal order
+        OrderDTO.OrderStatus[] statuses = OrderDTO.OrderStatus.values();
+        String eventSql = "INSERT IGNORE INTO order_status_events (order_id, status, branch_id) " +
+                          "SELECT id, FIELD(status, " + String.join(", ", Collections.nCopies(statuses.length, "?")) + ") - 1, branch_id " +
+                          "FROM orders WHERE id IN (" + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ") " +
+                          "AND status IN (" + String.join(", ", Collections.nCopies(statuses.length, "?")) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(eventSql)) {
+            int index = 1;
+            for (OrderDTO.OrderStatus status : statuses) {
+                stmt.setString(index++, status.name());
+            }
+            for (Long orderId : orderIds) {
+                stmt.setLong(index++, orderId);
+            }
+            for (OrderDTO.OrderStatus status : statuses) {
+                stmt.setString(index++, status.name());
+            }
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Code of a status in order_status_events; orders saved without a known status count as PENDING
+     */
+    static int statusCode(String status) {
+        for (OrderDTO.OrderStatus known : OrderDTO.OrderStatus.values()) {
+            if (known.name().equalsIgnoreCase(status)) {
+                return known.ordinal();
+            }
+        }
+        return OrderDTO.OrderStatus.PENDING.ordinal();
+    }
+}
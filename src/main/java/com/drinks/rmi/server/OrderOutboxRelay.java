@@ -0,0 +1,289 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays committed order events from the order_outbox table to in-process consumers
+ * A single daemon thread polls for undispatched events (every 500 ms by default, set with
+ * -Ddrinks.outbox.pollMillis), claims up to -Ddrinks.outbox.batchSize of them with
+ * FOR UPDATE SKIP LOCKED, hands the batch to every consumer and marks it dispatched in the same
+ * transaction once every consumer has handled it. A consumer that fails is offered only the events it
+ * has not handled yet on the next poll; the others are not called again. After a few failed attempts
+ * the consumer is given the events one at a time, and each event it still fails on is copied to
+ * order_outbox_dead_letters for that consumer, so one bad event cannot stall the outbox.
+ * Dispatched events are purged after a week.
+ */
+public class OrderOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxRelay.class);
+    private static final long POLL_MILLIS = Long.getLong("drinks.outbox.pollMillis", 500);
+    private static final int BATCH_SIZE = Integer.getInteger("drinks.outbox.batchSize", 200);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int RETENTION_DAYS = 7;
+    private static final int PURGE_LIMIT = 10000;
+
+    private final List<OrderEventConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "order-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Events each consumer has handled that are not marked dispatched yet; only touched on the dispatcher thread
+    private final Map<OrderEventConsumer, Set<Long>> handled = new IdentityHashMap<>();
+    // First event and failed attempts of the batch each failing consumer is stuck on
+    private final Map<OrderEventConsumer, long[]> failures = new IdentityHashMap<>();
+
+    public OrderOutboxRelay() {
+        dispatcher.scheduleWithFixedDelay(this::relay, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::purgeDispatched, 1, 60, TimeUnit.MINUTES);
+    }
+
+    public void addConsumer(OrderEventConsumer consumer) {
+        consumers.add(consumer);
+    }
+
+    /**
+     * Dispatch batches until the outbox is drained
+     */
+    private void relay() {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        try {
+            while (dispatchBatch() == BATCH_SIZE) {
+                // A full batch means more events are probably waiting
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the scheduled poll
+            logger.warn("Failed to relay order events, retrying on the next poll", e);
+        }
+    }
+
+    /**
+     * Claim, deliver and mark one batch in a single transaction
+     *
+     * @return the number of events handled
+     */
+    private int dispatchBatch() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                List<OrderEvent> events = claimBatch(conn);
+                if (events.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+                if (!deliver(events)) {
+                    conn.rollback();
+                    return 0;
+                }
+                markDispatched(conn, events);
+                conn.commit();
+                forgetHandled(events);
+                return events.size();
+
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private List<OrderEvent> claimBatch(Connection conn) throws SQLException {
+        String sql = """
+            SELECT id, event_type, order_id, customer_id, branch_id, status, total_amount, created_at
+            FROM order_outbox
+            WHERE dispatched_at IS NULL
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+        List<OrderEvent> events = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, BATCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                events.add(new OrderEvent(
+                    rs.getLong("id"),
+                    OrderEvent.Type.valueOf(rs.getString("event_type")),
+                    rs.getLong("order_id"),
+                    rs.getLong("customer_id"),
+                    rs.getLong("branch_id"),
+                    rs.getString("status"),
+                    rs.getDouble("total_amount"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null
+                ));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Hand every consumer the events of the batch it has not handled yet
+     *
+     * @return true when every consumer is done with the batch, false to retry it later
+     */
+    private boolean deliver(List<OrderEvent> events) {
+        boolean done = true;
+        for (OrderEventConsumer consumer : consumers) {
+            Set<Long> seen = handled.computeIfAbsent(consumer, c -> new HashSet<>());
+            List<OrderEvent> pending = new ArrayList<>();
+            for (OrderEvent event : events) {
+                if (!seen.contains(event.getId())) {
+                    pending.add(event);
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+            try {
+                consumer.onOrderEvents(pending);
+                markHandled(consumer, pending);
+                failures.remove(consumer);
+            } catch (Exception e) {
+                logger.warn("Order event consumer {} failed on {} events", name(consumer), pending.size(), e);
+                long[] failure = failures.get(consumer);
+                if (failure == null || failure[0] != pending.get(0).getId()) {
+                    failure = new long[] {pending.get(0).getId(), 0};
+                    failures.put(consumer, failure);
+                }
+                if (++failure[1] < MAX_ATTEMPTS) {
+                    done = false;
+                    continue;
+                }
+                failures.remove(consumer);
+                deliverSingly(consumer, pending);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Give a consumer that keeps failing on a batch its events one at a time, dead-lettering each it fails on
+     */
+    private void deliverSingly(OrderEventConsumer consumer, List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            try {
+                consumer.onOrderEvents(List.of(event));
+            } catch (Exception e) {
+                logger.error("Order event consumer {} failed on order event {} ({}) after {} attempts, dead-lettering it",
+                             name(consumer), event.getId(), event, MAX_ATTEMPTS, e);
+                deadLetter(consumer, event, e);
+            }
+            markHandled(consumer, List.of(event));
+        }
+    }
+
+    /**
+     * Keep a copy of an event a consumer could not handle; the outbox row itself is purged with the batch
+     */
+    private void deadLetter(OrderEventConsumer consumer, OrderEvent event, Exception error) {
+        String sql = """
+            INSERT IGNORE INTO order_outbox_dead_letters
+                (event_id, consumer, event_type, order_id, customer_id, branch_id, status, total_amount, error)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        String message = String.valueOf(error.getMessage());
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, event.getId());
+            stmt.setString(2, name(consumer));
+            stmt.setString(3, event.getType().name());
+            stmt.setLong(4, event.getOrderId());
+            stmt.setLong(5, event.getCustomerId());
+            stmt.setLong(6, event.getBranchId());
+            stmt.setString(7, event.getStatus());
+            stmt.setDouble(8, event.getTotalAmount());
+            stmt.setString(9, message.length() > 500 ? message.substring(0, 500) : message);
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to dead-letter order event {} for consumer {}", event.getId(), name(consumer), e);
+        }
+    }
+
+    private void markHandled(OrderEventConsumer consumer, List<OrderEvent> events) {
+        Set<Long> seen = handled.computeIfAbsent(consumer, c -> new HashSet<>());
+        for (OrderEvent event : events) {
+            seen.add(event.getId());
+        }
+    }
+
+    private void forgetHandled(List<OrderEvent> events) {
+        for (Set<Long> seen : handled.values()) {
+            for (OrderEvent event : events) {
+                seen.remove(event.getId());
+            }
+        }
+    }
+
+    private static String name(OrderEventConsumer consumer) {
+        return consumer.getClass().getSimpleName();
+    }
+
+    private void markDispatched(Connection conn, List<OrderEvent> events) throws SQLException {
+        String sql = "UPDATE order_outbox SET dispatched_at = CURRENT_TIMESTAMP WHERE id IN (" +
+                     String.join(", ", Collections.nCopies(events.size(), "?")) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < events.size(); i++) {
+                stmt.setLong(i + 1, events.get(i).getId());
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private void purgeDispatched() {
+        String sql = "DELETE FROM order_outbox WHERE dispatched_at < ? LIMIT " + PURGE_LIMIT;
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(RETENTION_DAYS)));
+            int purged = stmt.executeUpdate();
+            if (purged > 0) {
+                logger.info("Purged {} dispatched order events", purged);
+            }
+
+        } catch (SQLException e) {
+            logger.warn("Failed to purge dispatched order events", e);
+        }
+    }
+
+    /**
+     * Let a poll in progress finish, then stop; undispatched events stay in the outbox for the next start
+     */
+    public void shutdown() {
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher.shutdownNow();
+    }
+}
@@ -0,0 +1,93 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.DrinkDTO;
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.OrderItemDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.rmi.RemoteException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Prices carts from drinks read with one IN query on the order's own connection.
+ * The prices read once are used for the order total and for every order_items.unit_price,
+ * so a price change in the middle of an order cannot make them disagree.
+ */
+final class OrderPricer {
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    private OrderPricer() {
+    }
+
+    /**
+     * Load the name and current price of every given drink; unknown IDs are left out of the result
+     */
+    static Map<Long, DrinkDTO> loadDrinks(Connection conn, Collection<Long> drinkIds) throws SQLException {
+        Map<Long, DrinkDTO> drinks = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new TreeSet<>(drinkIds));
+
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+            String sql = "SELECT id, name, price FROM drinks WHERE id IN (" +
+                         String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    drinks.put(rs.getLong("id"), new DrinkDTO(
+                        rs.getLong("id"),
+                        rs.getString("name"),
+                        rs.getBigDecimal("price")
+                    ));
+                }
+            }
+        }
+        return drinks;
+    }
+
+    /**
+     * Build a new PENDING order with one item per cart line, priced from the loaded drinks
+     * and discounted by the best promotion for each line at the order time
+     * Throws if the cart names a drink that was not loaded
+     */
+    static OrderDTO priceOrder(Long customerId, Long branchId, Map<Long, Integer> items, Map<Long, DrinkDTO> drinks,
+                               PromotionIndex promotions) throws RemoteException {
+        OrderDTO order = new OrderDTO(null, customerId, null, branchId, null, LocalDateTime.now());
+        order.setStatus("PENDING");
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            DrinkDTO drink = drinks.get(item.getKey());
+            if (drink == null) {
+                throw new RemoteException("Drink not found with ID: " + item.getKey());
+            }
+            OrderItemDTO line = new OrderItemDTO(null, null, drink.getId(), drink.getName(), item.getValue(), drink.getPrice());
+            PromotionIndex.Rule promotion = promotions.bestRule(branchId, drink.getId(), item.getValue(), order.getOrderTime());
+            if (promotion != null) {
+                line.setDiscountAmount(line.getSubtotal().multiply(promotion.discountPercent)
+                    .divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP));
+            }
+            order.addItem(line);
+            totalAmount = totalAmount.add(line.getSubtotal()).subtract(line.getDiscountAmount());
+        }
+        order.setTotalAmount(totalAmount.doubleValue());
+        return order;
+    }
+}
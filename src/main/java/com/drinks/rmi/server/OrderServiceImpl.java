@@ -1,10 +1,19 @@
 package com.drinks.rmi.server;
 
 import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.common.UnitOfWork;
+import com.drinks.rmi.dto.CartDTO;
 import com.drinks.rmi.dto.OrderDTO;
 import com.drinks.rmi.dto.DrinkDTO;
+import com.drinks.rmi.dto.NotificationDTO;
 import com.drinks.rmi.dto.OrderItemDTO;
-import com.drinks.rmi.dto.StockDTO;
+import com.drinks.rmi.dto.OrderPageDTO;
+import com.drinks.rmi.dto.OrderRequestDTO;
+import com.drinks.rmi.dto.OrderResultDTO;
+import com.drinks.rmi.dto.OrderSearchDTO;
+import com.drinks.rmi.dto.OrderTicketDTO;
+import com.drinks.rmi.dto.ReceiptDTO;
+import com.drinks.rmi.dto.RecentOrdersDTO;
 import com.drinks.rmi.dto.UserDTO;
 import com.drinks.rmi.interfaces.*;
 import com.drinks.rmi.server.security.RoleBasedAccessControl;
@@ -12,13 +21,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of OrderService for order management
@@ -26,142 +50,929 @@ import java.util.Map;
 public class OrderServiceImpl extends UnicastRemoteObject implements OrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
-    private final StockService stockService;
-    private final DrinkService drinkService;
-    private Connection connection;
+    private static final int MAX_BATCH_ORDERS = 500;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_OPEN_EXPORTS = 4;
+    private static final long EXPORT_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final int RECENT_ORDERS_CAPACITY = Integer.getInteger("drinks.orders.recentCapacity", 256);
+    private static final long FULFILMENT_POLL_MS = Long.getLong("drinks.fulfilment.pollMillis", 250);
+    private static final long FULFILMENT_RELOAD_SECONDS = 30;
+    private static final long QUICK_SALE_BUDGET_MS = Long.getLong("drinks.pos.p99BudgetMillis", 50);
+    private static final int QUICK_SALE_WINDOW = 1000;
+    private final OrderIntakeQueue intakeQueue;
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache();
+    private final CustomerOrderCache orderHistory = new CustomerOrderCache();
+    private final PromotionEngine promotions = new PromotionEngine();
+    private final StockLevels stockLevels = new StockLevels();
+    private final DrinkCatalog drinkCatalog = new DrinkCatalog();
+    private final CartStore carts = new CartStore();
+    private final LatencyRecorder quickSaleLatency = new LatencyRecorder("Quick sale", QUICK_SALE_BUDGET_MS, QUICK_SALE_WINDOW);
+    private final IdGenerator idGenerator = IdGenerator.shared();
+    private final Set<OrderExportCursorImpl> openExports = ConcurrentHashMap.newKeySet();
+    private final Map<Long, RecentOrdersBuffer> recentOrders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService exportReaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "order-export-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, FulfilmentQueue> fulfilmentQueues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService fulfilmentPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "fulfilment-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // One thread keeps pushes to staff screens in order; a slow screen delays the others, never order placement
+    private final ExecutorService fulfilmentPusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "fulfilment-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile NotificationService notificationService;
+    private volatile LoadBalancerService loadBalancerService;
     
-    public OrderServiceImpl(StockService stockService, DrinkService drinkService) throws RemoteException {
+    public OrderServiceImpl() throws RemoteException {
         super();
-        this.stockService = stockService;
-        this.drinkService = drinkService;
+        this.intakeQueue = new OrderIntakeQueue(this::commitGroup);
+        exportReaper.scheduleAtFixedRate(this::closeIdleExports, 30, 30, TimeUnit.SECONDS);
+        fulfilmentPoller.scheduleWithFixedDelay(this::pollFulfilmentQueues, FULFILMENT_POLL_MS, FULFILMENT_POLL_MS, TimeUnit.MILLISECONDS);
+        fulfilmentPoller.scheduleWithFixedDelay(this::reloadFulfilmentQueues, FULFILMENT_RELOAD_SECONDS, FULFILMENT_RELOAD_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public OrderDTO placeOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items) throws RemoteException {
+        return placeOrder(currentUser, customerId, branchId, items, null);
+    }
+    
+    @Override
+    public OrderDTO placeOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items, String idempotencyKey) throws RemoteException {
+        // Check if user has permission to place orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        checkPlacementAccess(currentUser, customerId, branchId);
+        validateItems(items);
+        validateIdempotencyKey(idempotencyKey);
+        return placeValidatedOrder(customerId, branchId, items, idempotencyKey, null);
+    }
+    
+    @Override
+    public ReceiptDTO quickSale(UserDTO currentUser, Long customerId, Map<Long, Integer> items, String idempotencyKey) throws RemoteException {
+        long started = System.nanoTime();
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        Long branchId = currentUser.getBranchId();
+        if (branchId == null || currentUser.getRole().equals("customer")) {
+            throw new RemoteException("Quick sales can only be made by the staff of a branch");
+        }
+        checkPlacementAccess(currentUser, customerId, branchId);
+        validateItems(items);
+        validateIdempotencyKey(idempotencyKey);
+        
+        // Prices come from memory, so the only database work is the stock reservation and the inserts
+        OrderDTO order = placeValidatedOrder(customerId, branchId, items, idempotencyKey, drinkCatalog.lookup(items.keySet()));
+        ReceiptDTO receipt = ReceiptDTO.of(order, currentUser.getUsername());
+        receipt.setProcessingMicros(quickSaleLatency.recordSince(started) / 1000);
+        return receipt;
+    }
+    
+    /**
+     * Place one order whose caller, cart and key have been checked, in its own transaction
+     * 
+     * @param drinks Names and prices to charge, or null to read them from the drinks table in the transaction
+     */
+    private OrderDTO placeValidatedOrder(Long customerId, Long branchId, Map<Long, Integer> items, String idempotencyKey,
+                                         Map<Long, DrinkDTO> drinks) throws RemoteException {
+        // A retried request is answered with the order it already created
+        OrderDTO replay = findCachedOrder(idempotencyKey, customerId);
+        if (replay != null) {
+            logger.info("Returning order ID: {} for replayed idempotency key", replay.getId());
+            return replay;
+        }
+        
+        logger.info("Placing order for customer ID: {} at branch ID: {} with {} items", customerId, branchId, items.size());
+        
         try {
-            this.connection = DatabaseConfig.getConnection();
+            return UnitOfWork.run(conn -> {
+                OrderDTO stored = findStoredOrder(conn, idempotencyKey, customerId);
+                if (stored != null) {
+                    logger.info("Returning order ID: {} for replayed idempotency key", stored.getId());
+                    return stored;
+                }
+                
+                // One query prices the whole cart; the same prices go into the total and the order items
+                Map<Long, DrinkDTO> prices = drinks != null ? drinks : OrderPricer.loadDrinks(conn, items.keySet());
+                OrderDTO order = OrderPricer.priceOrder(customerId, branchId, items, prices, promotions.current());
+                order.setIdempotencyKey(idempotencyKey);
+                
+                // Reserve stock for every line on this transaction; rejects the whole order on any shortfall
+                reserveStock(conn, branchId, items, prices);
+                insertOrders(conn, List.of(order));
+                
+                UnitOfWork.afterCommit(() -> {
+                    rememberOrder(order);
+                    recordReservations(List.of(order));
+                    publishRecentOrders(List.of(order));
+                    logger.info("Order placed successfully with ID: {} for total amount: {}", order.getId(), order.getTotalAmount());
+                });
+                return order;
+            });
         } catch (SQLException e) {
-            throw new RemoteException("Failed to initialize database connection", e);
+            // A concurrent retry with the same key committed first; hand back its order
+            if (idempotencyKey != null && isDuplicateKey(e)) {
+                try {
+                    replay = UnitOfWork.run(conn -> findStoredOrder(conn, idempotencyKey, customerId));
+                    if (replay != null) {
+                        return replay;
+                    }
+                } catch (SQLException lookupError) {
+                    e.addSuppressed(lookupError);
+                }
+            }
+            logger.error("Database error while placing order for customer ID: {}", customerId, e);
+            throw new RemoteException("Failed to place order due to database error", e);
         }
     }
     
     @Override
-    public OrderDTO placeOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items) throws RemoteException {
+    public CartDTO openCart(UserDTO currentUser, Long customerId, Long branchId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        checkPlacementAccess(currentUser, customerId, branchId);
+        CartStore.Cart cart = carts.open(currentUser.getId(), customerId, branchId);
+        synchronized (cart) {
+            return describeCart(cart);
+        }
+    }
+    
+    @Override
+    public CartDTO addToCart(UserDTO currentUser, String cartId, Long drinkId, int quantity) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        if (quantity <= 0) {
+            throw new RemoteException("Invalid quantity for drink ID " + drinkId + ": " + quantity);
+        }
+        CartStore.Cart cart = carts.get(cartId, currentUser.getId());
+        synchronized (cart) {
+            cart.checkOpen();
+            if (!cart.items.containsKey(drinkId) && cart.items.size() >= CartStore.MAX_LINES) {
+                throw new RemoteException("A cart can hold at most " + CartStore.MAX_LINES + " different drinks");
+            }
+            if (drinkCatalog.lookup(List.of(drinkId)).isEmpty()) {
+                throw new RemoteException("Drink not found with ID: " + drinkId);
+            }
+            cart.items.merge(drinkId, quantity, Integer::sum);
+            return describeCart(cart);
+        }
+    }
+    
+    @Override
+    public CartDTO removeFromCart(UserDTO currentUser, String cartId, Long drinkId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        CartStore.Cart cart = carts.get(cartId, currentUser.getId());
+        synchronized (cart) {
+            cart.checkOpen();
+            cart.items.remove(drinkId);
+            return describeCart(cart);
+        }
+    }
+    
+    @Override
+    public CartDTO setCartBranch(UserDTO currentUser, String cartId, Long branchId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        CartStore.Cart cart = carts.get(cartId, currentUser.getId());
+        synchronized (cart) {
+            cart.checkOpen();
+            checkPlacementAccess(currentUser, cart.customerId, branchId);
+            cart.branchId = branchId;
+            return describeCart(cart);
+        }
+    }
+    
+    @Override
+    public CartDTO getCart(UserDTO currentUser, String cartId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        CartStore.Cart cart = carts.get(cartId, currentUser.getId());
+        synchronized (cart) {
+            return describeCart(cart);
+        }
+    }
+    
+    @Override
+    public OrderDTO checkoutCart(UserDTO currentUser, String cartId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        CartStore.Cart cart = carts.get(cartId, currentUser.getId());
+        // Holding the cart keeps it from changing between pricing and commit; only its own session waits
+        synchronized (cart) {
+            validateItems(cart.items);
+            Map<Long, Integer> items = new LinkedHashMap<>(cart.items);
+            // Re-priced from the catalog and the promotions current at checkout, which may differ from the cart's last
+            // quote if prices changed since; a repeated checkout replays the order under the cart's key
+            OrderDTO order = placeValidatedOrder(cart.customerId, cart.branchId, items, cart.checkoutKey,
+                                                 drinkCatalog.lookup(items.keySet()));
+            cart.orderId = order.getId();
+            return order;
+        }
+    }
+    
+    @Override
+    public void discardCart(UserDTO currentUser, String cartId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        carts.remove(cartId, currentUser.getId());
+    }
+    
+    /**
+     * Price a cart from the drink catalog and current promotions, with stock hints from the in-memory levels
+     * Called with the cart locked
+     */
+    private CartDTO describeCart(CartStore.Cart cart) throws RemoteException {
+        CartDTO dto = new CartDTO();
+        dto.setCartId(cart.id);
+        dto.setCustomerId(cart.customerId);
+        dto.setBranchId(cart.branchId);
+        dto.setBranchName(stockLevels.getBranchNames().get(cart.branchId));
+        dto.setOrderId(cart.orderId);
+        if (cart.items.isEmpty()) {
+            return dto;
+        }
+        
+        // Drinks deleted since they were added drop out of the cart rather than failing every call
+        Map<Long, DrinkDTO> drinks = drinkCatalog.lookup(cart.items.keySet());
+        cart.items.keySet().retainAll(drinks.keySet());
+        OrderDTO priced = OrderPricer.priceOrder(cart.customerId, cart.branchId, cart.items, drinks, promotions.current());
+        
+        Map<Long, Integer> available = new HashMap<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal discountTotal = BigDecimal.ZERO;
+        for (OrderItemDTO item : priced.getItems()) {
+            available.put(item.getDrinkId(), stockLevels.available(cart.branchId, item.getDrinkId()));
+            subtotal = subtotal.add(item.getSubtotal());
+            discountTotal = discountTotal.add(item.getDiscountAmount());
+        }
+        dto.setItems(priced.getItems());
+        dto.setAvailable(available);
+        dto.setSubtotal(subtotal);
+        dto.setDiscountTotal(discountTotal);
+        dto.setTotal(subtotal.subtract(discountTotal));
+        return dto;
+    }
+    
+    @Override
+    public List<OrderResultDTO> placeOrders(UserDTO currentUser, List<OrderRequestDTO> requests) throws RemoteException {
         // Check if user has permission to place orders
         RoleBasedAccessControl.checkPermission(currentUser, "order:create");
         
-        // If customer is placing their own order, verify it's their own account
-        if (currentUser.getRole().equals("customer") && !currentUser.getCustomerId().equals(customerId)) {
-            logger.error("Customer {} attempted to place order for different customer {}", currentUser.getCustomerId(), customerId);
-            throw new RemoteException("You can only place orders for your own account");
+        if (requests == null || requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (requests.size() > MAX_BATCH_ORDERS) {
+            throw new RemoteException("Too many orders in one batch: " + requests.size() + " (maximum " + MAX_BATCH_ORDERS + ")");
         }
+        logger.info("Placing batch of {} orders", requests.size());
         
-        // Branch staff can only place orders for their own branch
-        if (currentUser.getRole().equals("branch_staff") && !currentUser.getBranchId().equals(branchId)) {
-            logger.error("Branch staff from branch {} attempted to place order for branch {}", currentUser.getBranchId(), branchId);
-            throw new RemoteException("You can only place orders for your own branch");
+        OrderResultDTO[] results = new OrderResultDTO[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequestDTO request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new RemoteException("Missing order request");
+                }
+                checkPlacementAccess(currentUser, request.getCustomerId(), request.getBranchId());
+                validateItems(request.getItems());
+                validateIdempotencyKey(request.getIdempotencyKey());
+            } catch (RemoteException e) {
+                logger.warn("Rejected order {} of batch: {}", i, e.getMessage());
+                results[i] = OrderResultDTO.failed(i, e.getMessage());
+            }
         }
-        logger.info("Placing order for customer ID: {} at branch ID: {} with {} items", customerId, branchId, items.size());
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            conn.setAutoCommit(false);
-            
+        try {
+            commitOrders(requests, results);
+            return new ArrayList<>(Arrays.asList(results));
+        } catch (SQLException e) {
+            logger.error("Database error while placing batch of {} orders", requests.size(), e);
+            throw new RemoteException("Failed to place orders due to database error", e);
+        }
+    }
+    
+    @Override
+    public List<OrderDTO> placeSplitOrder(UserDTO currentUser, Long customerId, Long preferredBranchId, Map<Long, Integer> items) throws RemoteException {
+        return placeSplitOrder(currentUser, customerId, preferredBranchId, items, null);
+    }
+    
+    @Override
+    public List<OrderDTO> placeSplitOrder(UserDTO currentUser, Long customerId, Long preferredBranchId, Map<Long, Integer> items,
+                                          String idempotencyKey) throws RemoteException {
+        // Check if user has permission to place orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        checkPlacementAccess(currentUser, customerId, preferredBranchId);
+        validateItems(items);
+        validateIdempotencyKey(idempotencyKey);
+        
+        // A retried request is answered with the sub-orders it already created, before any planning
+        if (idempotencyKey != null) {
             try {
-                // Validate stock availability for all items first
-                for (Map.Entry<Long, Integer> item : items.entrySet()) {
-                    Long drinkId = item.getKey();
-                    Integer quantity = item.getValue();
-                    
-                    StockDTO stock = stockService.getStockByBranchAndDrink(branchId, drinkId);
-                    if (stock == null || stock.getQuantity() < quantity) {
-                        DrinkDTO drink = drinkService.getDrinkById(drinkId);
-                        String drinkName = drink != null ? drink.getName() : "Unknown";
-                        logger.warn("Insufficient stock for drink: {} (ID: {}). Available: {}, Requested: {}", 
-                                   drinkName, drinkId, stock != null ? stock.getQuantity() : 0, quantity);
-                        conn.rollback();
-                        throw new RemoteException("Insufficient stock for " + drinkName + ". Available: " + 
-                                                 (stock != null ? stock.getQuantity() : 0) + ", Requested: " + quantity);
-                    }
+                List<OrderDTO> replay = UnitOfWork.run(conn -> findStoredSplitOrder(conn, idempotencyKey, customerId));
+                if (replay != null) {
+                    logger.info("Returning split order {} for replayed idempotency key", replay.get(0).getId());
+                    return replay;
                 }
+            } catch (SQLException e) {
+                logger.error("Database error while checking idempotency key of split order for customer ID: {}", customerId, e);
+                throw new RemoteException("Failed to place order due to database error", e);
+            }
+        }
+        
+        // Plan from in-memory stock and load; the reservations below have the final say
+        Map<Long, Map<Long, Integer>> plan = OrderSplitPlanner.plan(items, preferredBranchId, stockLevels.snapshot(), branchLoad());
+        for (Long branchId : plan.keySet()) {
+            checkPlacementAccess(currentUser, customerId, branchId);
+        }
+        logger.info("Placing order for customer ID: {} split across branches {}", customerId, plan.keySet());
+        
+        try {
+            return UnitOfWork.run(conn -> {
+                Map<Long, DrinkDTO> drinks = OrderPricer.loadDrinks(conn, items.keySet());
+                PromotionIndex promotionRules = promotions.current();
                 
-                // Calculate total amount first
-                double totalAmount = 0.0;
-                for (Map.Entry<Long, Integer> item : items.entrySet()) {
-                    Long drinkId = item.getKey();
-                    Integer quantity = item.getValue();
-                    
-                    // Calculate total amount
-                    DrinkDTO drink = drinkService.getDrinkById(drinkId);
-                    if (drink != null) {
-                        totalAmount += drink.getPrice().doubleValue() * quantity;
+                List<OrderDTO> orders = new ArrayList<>();
+                for (Map.Entry<Long, Map<Long, Integer>> part : plan.entrySet()) {
+                    OrderDTO order = OrderPricer.priceOrder(customerId, part.getKey(), part.getValue(), drinks, promotionRules);
+                    reserveStock(conn, part.getKey(), part.getValue(), drinks);
+                    orders.add(order);
+                }
+                // IDs are known before insert, so the sub-orders are linked in the same batch
+                assignIds(orders);
+                if (orders.size() > 1) {
+                    for (OrderDTO order : orders) {
+                        order.setSplitGroupId(orders.get(0).getId());
                     }
                 }
+                // The key is unique per order, so the first sub-order holds it for the whole group
+                orders.get(0).setIdempotencyKey(idempotencyKey);
+                insertOrders(conn, orders);
                 
-                // Create the order
-                String orderSql = "INSERT INTO orders (customer_id, branch_id, order_time, status, total_amount) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement orderStmt = conn.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS);
-                orderStmt.setLong(1, customerId);
-                orderStmt.setLong(2, branchId);
-                orderStmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-                orderStmt.setString(4, "PENDING");
-                orderStmt.setDouble(5, totalAmount);
-                
-                int orderRows = orderStmt.executeUpdate();
-                if (orderRows == 0) {
-                    throw new SQLException("Creating order failed, no rows affected");
+                UnitOfWork.afterCommit(() -> {
+                    recordReservations(orders);
+                    publishRecentOrders(orders);
+                    logger.info("Split order placed as {} orders for customer ID: {}", orders.size(), customerId);
+                });
+                return orders;
+            });
+        } catch (RemoteException e) {
+            // The plan was made from stale levels; refresh them before the customer retries
+            stockLevels.reload();
+            throw e;
+        } catch (SQLException e) {
+            // A concurrent retry with the same key committed first; hand back its sub-orders
+            if (idempotencyKey != null && isDuplicateKey(e)) {
+                try {
+                    List<OrderDTO> replay = UnitOfWork.run(conn -> findStoredSplitOrder(conn, idempotencyKey, customerId));
+                    if (replay != null) {
+                        return replay;
+                    }
+                } catch (SQLException lookupError) {
+                    e.addSuppressed(lookupError);
                 }
-                
-                ResultSet orderKeys = orderStmt.getGeneratedKeys();
-                if (!orderKeys.next()) {
-                    throw new SQLException("Creating order failed, no ID obtained");
+            }
+            logger.error("Database error while placing split order for customer ID: {}", customerId, e);
+            throw new RemoteException("Failed to place order due to database error", e);
+        }
+    }
+    
+    /**
+     * Current load score of each branch by branch ID, from the load balancer when one runs in this process
+     */
+    private Map<Long, Double> branchLoad() {
+        Map<Long, Double> load = new HashMap<>();
+        LoadBalancerService balancer = loadBalancerService;
+        if (balancer == null) {
+            return load;
+        }
+        try {
+            Map<String, Double> byName = balancer.getLoadDistribution();
+            for (Map.Entry<Long, String> branch : stockLevels.getBranchNames().entrySet()) {
+                Double score = byName.get(branch.getValue());
+                if (score != null) {
+                    load.put(branch.getKey(), score);
                 }
-                
-                Long orderId = orderKeys.getLong(1);
-                
-                // Create order items and update stock
-                String itemSql = "INSERT INTO order_items (order_id, drink_id, drink_name, quantity, unit_price) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement itemStmt = conn.prepareStatement(itemSql);
-                
-                for (Map.Entry<Long, Integer> item : items.entrySet()) {
-                    Long drinkId = item.getKey();
-                    Integer quantity = item.getValue();
-                    
-                    // Get drink details
-                    DrinkDTO drink = drinkService.getDrinkById(drinkId);
-                    if (drink == null) {
-                        continue;
+            }
+        } catch (RemoteException e) {
+            logger.warn("Failed to read branch load, planning by stock only", e);
+        }
+        return load;
+    }
+    
+    /**
+     * Apply the stock reserved by committed orders to the in-memory stock levels
+     */
+    private void recordReservations(List<OrderDTO> orders) {
+        for (OrderDTO order : orders) {
+            for (OrderItemDTO item : order.getItems()) {
+                stockLevels.adjust(order.getBranchId(), item.getDrinkId(), -item.getQuantity());
+            }
+        }
+    }
+    
+    @Override
+    public OrderTicketDTO submitOrder(UserDTO currentUser, Long customerId, Long branchId, Map<Long, Integer> items) throws RemoteException {
+        // Check if user has permission to place orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:create");
+        checkPlacementAccess(currentUser, customerId, branchId);
+        validateItems(items);
+        
+        OrderTicketDTO ticket = intakeQueue.enqueue(currentUser.getId(),
+            new OrderRequestDTO(customerId, branchId, new LinkedHashMap<>(items)));
+        logger.info("Queued order ticket {} for customer ID: {} at branch ID: {}", ticket.getTicketId(), customerId, branchId);
+        return ticket;
+    }
+    
+    @Override
+    public OrderTicketDTO getOrderTicket(UserDTO currentUser, String ticketId) throws RemoteException {
+        // Check if user has permission to view orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        
+        OrderTicketDTO ticket = intakeQueue.getTicket(ticketId);
+        if (ticket != null && !currentUser.getId().equals(ticket.getUserId())) {
+            logger.error("User {} attempted to view order ticket {} submitted by user {}", currentUser.getId(), ticketId, ticket.getUserId());
+            throw new RemoteException("You can only view your own order tickets");
+        }
+        return ticket;
+    }
+    
+    /**
+     * Write one queued group of orders for a branch in a single transaction, then complete each ticket.
+     * Placed orders are confirmed through the order outbox; the submitting user is only told about rejections here.
+     */
+    private void commitGroup(Long branchId, List<OrderIntakeQueue.QueuedOrder> group) {
+        List<OrderRequestDTO> requests = new ArrayList<>(group.size());
+        for (OrderIntakeQueue.QueuedOrder queued : group) {
+            requests.add(queued.getRequest());
+        }
+        
+        OrderResultDTO[] results = new OrderResultDTO[requests.size()];
+        try {
+            commitOrders(requests, results);
+        } catch (SQLException | RemoteException e) {
+            logger.error("Database error while committing {} queued orders for branch ID: {}", group.size(), branchId, e);
+            for (int i = 0; i < results.length; i++) {
+                results[i] = OrderResultDTO.failed(i, "Order could not be saved, please resubmit");
+            }
+        }
+        
+        for (int i = 0; i < group.size(); i++) {
+            OrderResultDTO result = results[i];
+            OrderTicketDTO ticket = result.isSuccess()
+                ? intakeQueue.complete(group.get(i), OrderTicketDTO.COMMITTED, result.getOrder().getId(), "Order placed")
+                : intakeQueue.complete(group.get(i), OrderTicketDTO.REJECTED, null, result.getMessage());
+            if (!result.isSuccess()) {
+                notifyRejected(ticket, result);
+            }
+        }
+        logger.info("Group commit wrote {} queued orders for branch ID: {}", group.size(), branchId);
+    }
+    
+    private void notifyRejected(OrderTicketDTO ticket, OrderResultDTO result) {
+        NotificationService notifications = notificationService;
+        if (notifications == null || ticket.getUserId() == null) {
+            return;
+        }
+        
+        NotificationDTO notification = new NotificationDTO(ticket.getUserId(), "Order Rejected",
+            "Your order could not be placed: " + result.getMessage(),
+            NotificationDTO.NotificationType.WARNING);
+        notification.setMetadata("{\"ticketId\":\"" + ticket.getTicketId() + "\"}");
+        
+        try {
+            notifications.sendNotification(ticket.getUserId(), notification);
+        } catch (RemoteException e) {
+            logger.warn("Failed to notify user {} about order ticket {}", ticket.getUserId(), ticket.getTicketId(), e);
+        }
+    }
+    
+    /**
+     * Reserve stock for and insert every request that has no result yet, in the caller's unit of work or a new one.
+     * Each order is stock-checked on its own; a rejected order only rolls back its own reservations.
+     * Requests whose idempotency key was already used are answered with the existing order.
+     * Results are filled in per request, in request order.
+     */
+    private void commitOrders(List<OrderRequestDTO> requests, OrderResultDTO[] results) throws SQLException, RemoteException {
+        List<OrderDTO> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        Map<Integer, Integer> repeatedIndexes = new HashMap<>();
+        
+        UnitOfWork.run(conn -> {
+            Map<String, OrderDTO> stored = findStoredOrders(conn, collectUncachedKeys(requests, results));
+            Map<Long, DrinkDTO> drinks = OrderPricer.loadDrinks(conn, collectDrinkIds(requests, results));
+            PromotionIndex promotionRules = promotions.current();
+            
+            for (int i = 0; i < requests.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                OrderRequestDTO request = requests.get(i);
+                Savepoint savepoint = null;
+                try {
+                    String key = request.getIdempotencyKey();
+                    if (key != null) {
+                        Integer firstIndex = firstIndexByKey.putIfAbsent(key, i);
+                        if (firstIndex != null) {
+                            // Same key twice in one batch: answer both with one order
+                            repeatedIndexes.put(i, firstIndex);
+                            continue;
+                        }
+                        OrderDTO replay = findCachedOrder(key, request.getCustomerId());
+                        if (replay == null && stored.containsKey(key)) {
+                            replay = stored.get(key);
+                            checkReplayOwner(replay, request.getCustomerId());
+                            rememberOrder(replay);
+                        }
+                        if (replay != null) {
+                            results[i] = OrderResultDTO.success(i, replay);
+                            continue;
+                        }
                     }
                     
-                    // Add order item
-                    itemStmt.setLong(1, orderId);
-                    itemStmt.setLong(2, drinkId);
-                    itemStmt.setString(3, drink.getName());
-                    itemStmt.setInt(4, quantity);
-                    itemStmt.setBigDecimal(5, drink.getPrice());
-                    itemStmt.executeUpdate();
+                    OrderDTO order = OrderPricer.priceOrder(request.getCustomerId(), request.getBranchId(), request.getItems(), drinks, promotionRules);
+                    order.setIdempotencyKey(key);
+                    
+                    // A failed reservation only undoes this order's stock updates
+                    savepoint = conn.setSavepoint();
+                    reserveStock(conn, request.getBranchId(), request.getItems(), drinks);
+                    conn.releaseSavepoint(savepoint);
                     
-                    // Update stock (reduce quantity)
-                    StockDTO stock = stockService.getStockByBranchAndDrink(branchId, drinkId);
-                    stockService.updateStockQuantity(branchId, drinkId, stock.getQuantity() - quantity);
+                    accepted.add(order);
+                    acceptedIndexes.add(i);
+                } catch (RemoteException e) {
+                    if (savepoint != null) {
+                        conn.rollback(savepoint);
+                    }
+                    logger.warn("Rejected order {} of batch: {}", i, e.getMessage());
+                    results[i] = OrderResultDTO.failed(i, e.getMessage());
                 }
-                
-                conn.commit();
-                
-                // Return the created order
-                OrderDTO order = getOrderById(currentUser, orderId);
-                if (order != null) {
-                    order.setTotalAmount(totalAmount);
+            }
+            
+            insertOrders(conn, accepted);
+            UnitOfWork.afterCommit(() -> {
+                accepted.forEach(this::rememberOrder);
+                recordReservations(accepted);
+                publishRecentOrders(accepted);
+            });
+            return null;
+        });
+        
+        for (int i = 0; i < accepted.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            results[index] = OrderResultDTO.success(index, accepted.get(i));
+        }
+        for (Map.Entry<Integer, Integer> repeated : repeatedIndexes.entrySet()) {
+            OrderResultDTO first = results[repeated.getValue()];
+            results[repeated.getKey()] = first.isSuccess()
+                ? OrderResultDTO.success(repeated.getKey(), first.getOrder())
+                : OrderResultDTO.failed(repeated.getKey(), first.getMessage());
+        }
+        
+        logger.info("Batch placed {} of {} orders", accepted.size(), requests.size());
+    }
+    
+    private List<String> collectUncachedKeys(List<OrderRequestDTO> requests, OrderResultDTO[] results) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String key = results[i] == null ? requests.get(i).getIdempotencyKey() : null;
+            if (key != null && idempotencyCache.get(key) == null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+    
+    private Set<Long> collectDrinkIds(List<OrderRequestDTO> requests, OrderResultDTO[] results) {
+        Set<Long> drinkIds = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null) {
+                drinkIds.addAll(requests.get(i).getItems().keySet());
+            }
+        }
+        return drinkIds;
+    }
+    
+    private void validateIdempotencyKey(String idempotencyKey) throws RemoteException {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new RemoteException("Idempotency key must be between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+    }
+    
+    /**
+     * Reject replays of a key that was used for a different customer's order
+     */
+    private void checkReplayOwner(OrderDTO existing, Long customerId) throws RemoteException {
+        if (!existing.getCustomerId().equals(customerId)) {
+            logger.error("Idempotency key of order {} reused for customer {}", existing.getId(), customerId);
+            throw new RemoteException("Idempotency key has already been used for another order");
+        }
+    }
+    
+    private void rememberOrder(OrderDTO order) {
+        if (order.getIdempotencyKey() != null) {
+            idempotencyCache.put(order.getIdempotencyKey(), order);
+        }
+    }
+    
+    private OrderDTO findCachedOrder(String idempotencyKey, Long customerId) throws RemoteException {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        OrderDTO order = idempotencyCache.get(idempotencyKey);
+        if (order != null) {
+            checkReplayOwner(order, customerId);
+        }
+        return order;
+    }
+    
+    private OrderDTO findStoredOrder(Connection conn, String idempotencyKey, Long customerId) throws SQLException, RemoteException {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        OrderDTO order = findStoredOrders(conn, List.of(idempotencyKey)).get(idempotencyKey);
+        if (order != null) {
+            checkReplayOwner(order, customerId);
+            rememberOrder(order);
+        }
+        return order;
+    }
+    
+    /**
+     * Load every sub-order of the split order placed under an idempotency key, first sub-order first
+     * 
+     * @return The sub-orders, or null if no order was placed under the key
+     */
+    private List<OrderDTO> findStoredSplitOrder(Connection conn, String idempotencyKey, Long customerId) throws SQLException, RemoteException {
+        OrderDTO first = findStoredOrder(conn, idempotencyKey, customerId);
+        if (first == null || first.getSplitGroupId() == null) {
+            return first != null ? new ArrayList<>(List.of(first)) : null;
+        }
+        
+        String sql = """
+            SELECT o.id, o.customer_id, c.name as customer_name, 
+                   o.branch_id, b.name as branch_name, 
+                   o.order_time, o.status, o.total_amount
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            LEFT JOIN branches b ON o.branch_id = b.id
+            WHERE o.split_group_id = ? AND o.id <> ?
+            ORDER BY o.id
+            """;
+        List<OrderDTO> others = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, first.getSplitGroupId());
+            stmt.setLong(2, first.getId());
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                OrderDTO order = new OrderDTO(
+                    rs.getLong("id"),
+                    rs.getLong("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getLong("branch_id"),
+                    rs.getString("branch_name"),
+                    rs.getTimestamp("order_time").toLocalDateTime()
+                );
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                order.setSplitGroupId(first.getSplitGroupId());
+                others.add(order);
+            }
+        }
+        OrderItemLoader.attachItems(conn, others);
+        
+        List<OrderDTO> orders = new ArrayList<>();
+        orders.add(first);
+        orders.addAll(others);
+        return orders;
+    }
+    
+    /**
+     * Load the orders, with items, that were placed under any of the given idempotency keys
+     */
+    private Map<String, OrderDTO> findStoredOrders(Connection conn, List<String> idempotencyKeys) throws SQLException {
+        Map<String, OrderDTO> orders = new HashMap<>();
+        if (idempotencyKeys.isEmpty()) {
+            return orders;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(idempotencyKeys.size(), "?"));
+        String orderSql = """
+            SELECT o.id, o.customer_id, c.name as customer_name, 
+                   o.branch_id, b.name as branch_name, 
+                   o.order_time, o.status, o.total_amount, o.idempotency_key, o.split_group_id
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            LEFT JOIN branches b ON o.branch_id = b.id
+            WHERE o.idempotency_key IN (%s)
+            """.formatted(placeholders);
+        
+        try (PreparedStatement stmt = conn.prepareStatement(orderSql)) {
+            for (int i = 0; i < idempotencyKeys.size(); i++) {
+                stmt.setString(i + 1, idempotencyKeys.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                OrderDTO order = new OrderDTO(
+                    rs.getLong("id"),
+                    rs.getLong("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getLong("branch_id"),
+                    rs.getString("branch_name"),
+                    rs.getTimestamp("order_time").toLocalDateTime()
+                );
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                order.setIdempotencyKey(rs.getString("idempotency_key"));
+                long splitGroupId = rs.getLong("split_group_id");
+                order.setSplitGroupId(rs.wasNull() ? null : splitGroupId);
+                orders.put(order.getIdempotencyKey(), order);
+            }
+        }
+        OrderItemLoader.attachItems(conn, orders.values());
+        return orders;
+    }
+    
+    private static boolean isDuplicateKey(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == MYSQL_DUPLICATE_KEY) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Set the notification service used to report rejected asynchronously submitted orders
+     */
+    public void setNotificationService(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+    
+    /**
+     * Cached customer order histories; they are only cached once enabled where the outbox relay keeps them current
+     */
+    public CustomerOrderCache getOrderHistory() {
+        return orderHistory;
+    }
+    
+    /**
+     * Set the load balancer whose load scores steer split orders towards less busy branches
+     */
+    public void setLoadBalancerService(LoadBalancerService loadBalancerService) {
+        this.loadBalancerService = loadBalancerService;
+    }
+    
+    /**
+     * Commit any queued orders, stop the intake committer, fulfilment queues and background refreshes, and release open exports
+     */
+    public void shutdown() {
+        intakeQueue.shutdown();
+        exportReaper.shutdownNow();
+        fulfilmentPoller.shutdownNow();
+        fulfilmentPusher.shutdownNow();
+        promotions.shutdown();
+        stockLevels.shutdown();
+        drinkCatalog.shutdown();
+        carts.shutdown();
+        for (OrderExportCursorImpl cursor : openExports) {
+            cursor.close();
+        }
+    }
+    
+    private void checkPlacementAccess(UserDTO currentUser, Long customerId, Long branchId) throws RemoteException {
+        if (customerId == null || branchId == null) {
+            throw new RemoteException("Customer and branch are required to place an order");
+        }
+        
+        // If customer is placing their own order, verify it's their own account
+        if (currentUser.getRole().equals("customer") && !currentUser.getCustomerId().equals(customerId)) {
+            logger.error("Customer {} attempted to place order for different customer {}", currentUser.getCustomerId(), customerId);
+            throw new RemoteException("You can only place orders for your own account");
+        }
+        
+        // Branch staff can only place orders for their own branch
+        if (currentUser.getRole().equals("branch_staff") && !currentUser.getBranchId().equals(branchId)) {
+            logger.error("Branch staff from branch {} attempted to place order for branch {}", currentUser.getBranchId(), branchId);
+            throw new RemoteException("You can only place orders for your own branch");
+        }
+    }
+    
+    private void validateItems(Map<Long, Integer> items) throws RemoteException {
+        if (items == null || items.isEmpty()) {
+            throw new RemoteException("Cannot place an order without items");
+        }
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            if (item.getValue() == null || item.getValue() <= 0) {
+                throw new RemoteException("Invalid quantity for drink ID " + item.getKey() + ": " + item.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Insert orders and their items as two JDBC batches on the caller's connection, with a PLACED outbox event per order.
+     * Orders without an ID are given one from the ID generator first, so no generated keys are read back.
+     */
+    private void insertOrders(Connection conn, List<OrderDTO> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        assignIds(orders);
+        
+        String orderSql = "INSERT INTO orders (id, customer_id, branch_id, order_time, status, total_amount, idempotency_key, split_group_id) " +
+                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement orderStmt = conn.prepareStatement(orderSql)) {
+            for (OrderDTO order : orders) {
+                orderStmt.setLong(1, order.getId());
+                orderStmt.setLong(2, order.getCustomerId());
+                orderStmt.setLong(3, order.getBranchId());
+                orderStmt.setTimestamp(4, Timestamp.valueOf(order.getOrderTime()));
+                orderStmt.setString(5, order.getStatus());
+                orderStmt.setDouble(6, order.getTotalAmount());
+                orderStmt.setString(7, order.getIdempotencyKey());
+                orderStmt.setObject(8, order.getSplitGroupId(), Types.BIGINT);
+                orderStmt.addBatch();
+            }
+            orderStmt.executeBatch();
+        }
+        
+        String itemSql = "INSERT INTO order_items (order_id, drink_id, drink_name, quantity, unit_price, discount_amount) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
+            for (OrderDTO order : orders) {
+                for (OrderItemDTO item : order.getItems()) {
+                    itemStmt.setLong(1, order.getId());
+                    itemStmt.setLong(2, item.getDrinkId());
+                    itemStmt.setString(3, item.getDrinkName());
+                    itemStmt.setInt(4, item.getQuantity());
+                    itemStmt.setBigDecimal(5, item.getUnitPrice());
+                    itemStmt.setBigDecimal(6, item.getDiscountAmount());
+                    itemStmt.addBatch();
                 }
-                
-                logger.info("Order placed successfully with ID: {} for total amount: {}", orderId, totalAmount);
-                return order;
-                
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
             }
-            
-        } catch (SQLException e) {
-            logger.error("Database error while placing order for customer ID: {}", customerId, e);
-            throw new RemoteException("Failed to place order due to database error", e);
+            itemStmt.executeBatch();
+        }
+        
+        OrderOutbox.appendPlaced(conn, orders);
+    }
+    
+    /**
+     * Give new orders an application-generated ID and point their items at it
+     */
+    private void assignIds(List<OrderDTO> orders) {
+        for (OrderDTO order : orders) {
+            if (order.getId() == null) {
+                order.setId(idGenerator.nextId());
+            }
+            for (OrderItemDTO item : order.getItems()) {
+                item.setOrderId(order.getId());
+            }
+        }
+    }
+    
+    /**
+     * Decrement stock for every line of an order on the caller's connection.
+     * Each update only applies while enough stock remains, so concurrent orders cannot oversell.
+     * Throws if any line falls short; the caller is expected to roll back.
+     */
+    private void reserveStock(Connection conn, Long branchId, Map<Long, Integer> items, Map<Long, DrinkDTO> drinks) throws SQLException, RemoteException {
+        // Lock stock rows in drink ID order so concurrent orders for the same drinks cannot deadlock
+        List<Long> drinkIds = new ArrayList<>(new TreeSet<>(items.keySet()));
+        
+        String sql = "UPDATE stocks SET quantity = quantity - ? WHERE branch_id = ? AND drink_id = ? AND quantity >= ?";
+        int[] results;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Long drinkId : drinkIds) {
+                int quantity = items.get(drinkId);
+                stmt.setInt(1, quantity);
+                stmt.setLong(2, branchId);
+                stmt.setLong(3, drinkId);
+                stmt.setInt(4, quantity);
+                stmt.addBatch();
+            }
+            results = stmt.executeBatch();
+        }
+        
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == 0) {
+                Long drinkId = drinkIds.get(i);
+                int available = getAvailableStock(conn, branchId, drinkId);
+                DrinkDTO drink = drinks.get(drinkId);
+                String drinkName = drink != null ? drink.getName() : "Unknown";
+                logger.warn("Insufficient stock for drink: {} (ID: {}). Available: {}, Requested: {}", 
+                           drinkName, drinkId, available, items.get(drinkId));
+                throw new RemoteException("Insufficient stock for " + drinkName + ". Available: " + 
+                                         available + ", Requested: " + items.get(drinkId));
+            }
+        }
+    }
+    
+    private int getAvailableStock(Connection conn, Long branchId, Long drinkId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT quantity FROM stocks WHERE branch_id = ? AND drink_id = ?")) {
+            stmt.setLong(1, branchId);
+            stmt.setLong(2, drinkId);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt("quantity") : 0;
         }
     }
     
@@ -181,11 +992,18 @@ public class OrderServiceImpl extends UnicastRemoteObject implements OrderServic
             }
         }
         
+        // Served from memory after the first load where the outbox relay runs; placed orders and status changes keep it current
+        List<OrderDTO> cached = orderHistory.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+        Object load = orderHistory.startLoad(customerId);
+        
         List<OrderDTO> orders = new ArrayList<>();
         String sql = """
             SELECT o.id, o.customer_id, c.name as customer_name, 
                    o.branch_id, b.name as branch_name, 
-                   o.order_time, o.status, o.total_amount
+                   o.order_time, o.status, o.total_amount, o.split_group_id
             FROM orders o
             LEFT JOIN customers c ON o.customer_id = c.id
             LEFT JOIN branches b ON o.branch_id = b.id
@@ -212,24 +1030,28 @@ public class OrderServiceImpl extends UnicastRemoteObject implements OrderServic
                 // Set additional fields separately
                 order.setStatus(rs.getString("status"));
                 order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                long splitGroupId = rs.getLong("split_group_id");
+                order.setSplitGroupId(rs.wasNull() ? null : splitGroupId);
                 
-                // Get order items
-                List<OrderItemDTO> items = getOrderItems(order.getId());
-                order.setItems(items);
-                
-                // Calculate total amount from items if not set
-                if (order.getTotalAmount() == 0 && items != null && !items.isEmpty()) {
-                    double totalAmount = items.stream()
+                orders.add(order);
+            }
+            
+            // Load the items of all orders at once
+            OrderItemLoader.attachItems(conn, orders);
+            
+            // Calculate total amount from items if not set
+            for (OrderDTO order : orders) {
+                if (order.getTotalAmount() == 0 && !order.getItems().isEmpty()) {
+                    double totalAmount = order.getItems().stream()
                         .mapToDouble(item -> item.getSubtotal().doubleValue())
                         .sum();
                     order.setTotalAmount(totalAmount);
                 }
-                
-                orders.add(order);
             }
             
+            orderHistory.finishLoad(customerId, load, orders);
             logger.info("Retrieved {} orders for customer ID: {}", orders.size(), customerId);
-            return orders;
+            return new ArrayList<>(orders);
             
         } catch (SQLException e) {
             logger.error("Database error while retrieving orders for customer ID: {}", customerId, e);
@@ -277,17 +1099,18 @@ public class OrderServiceImpl extends UnicastRemoteObject implements OrderServic
                     rs.getTimestamp("order_time").toLocalDateTime()
                 );
                 
-                // Load order items
-                List<OrderItemDTO> items = getOrderItemsByOrder(currentUser, order.getId());
-                order.setItems(items);
-                
-                // Calculate total amount
-                double totalAmount = items.stream()
+                orders.add(order);
+            }
+            
+            // Load the items of all orders at once
+            OrderItemLoader.attachItems(conn, orders);
+            
+            // Calculate total amount
+            for (OrderDTO order : orders) {
+                double totalAmount = order.getItems().stream()
                     .mapToDouble(item -> item.getSubtotal().doubleValue())
                     .sum();
                 order.setTotalAmount(totalAmount);
-                
-                orders.add(order);
             }
             
             logger.info("Retrieved {} orders for branch ID: {}", orders.size(), branchId);
@@ -451,222 +1274,1009 @@ public class OrderServiceImpl extends UnicastRemoteObject implements OrderServic
     public boolean cancelOrder(UserDTO currentUser, Long orderId) throws RemoteException {
         // Check if user has permission to cancel orders
         RoleBasedAccessControl.checkPermission(currentUser, "order:update");
+        logger.info("Attempting to cancel order with ID: {}", orderId);
+        
+        // The order is kept as CANCELLED for reporting; its stock is returned in the same transaction
+        try {
+            return UnitOfWork.run(conn -> {
+                Long customerId;
+                Long branchId;
+                String status;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT customer_id, branch_id, status FROM orders WHERE id = ? FOR UPDATE")) {
+                    stmt.setLong(1, orderId);
+                    ResultSet rs = stmt.executeQuery();
+                    if (!rs.next()) {
+                        logger.warn("Cannot cancel order - not found with ID: {}", orderId);
+                        return false;
+                    }
+                    customerId = rs.getLong("customer_id");
+                    branchId = rs.getLong("branch_id");
+                    status = rs.getString("status");
+                }
+                
+                // Additional permission checks based on role
+                if (currentUser.getRole().equals("customer") && !currentUser.getCustomerId().equals(customerId)) {
+                    logger.error("Customer {} attempted to cancel order for customer {}", currentUser.getCustomerId(), customerId);
+                    throw new RemoteException("You can only cancel your own orders");
+                }
+                
+                if ((currentUser.getRole().equals("branch_staff") || currentUser.getRole().equals("branch_manager")) 
+                    && !currentUser.getBranchId().equals(branchId)) {
+                    logger.error("User from branch {} attempted to cancel order from branch {}", 
+                                currentUser.getBranchId(), branchId);
+                    throw new RemoteException("You can only cancel orders for your own branch");
+                }
+                
+                if (!OrderDTO.OrderStatus.CANCELLED.canTransitionFrom(status)) {
+                    logger.warn("Cannot cancel order {} with status {}", orderId, status);
+                    return false;
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement("UPDATE orders SET status = 'CANCELLED' WHERE id = ?")) {
+                    stmt.setLong(1, orderId);
+                    stmt.executeUpdate();
+                }
+                restoreStock(conn, List.of(orderId));
+                OrderOutbox.appendStatusChanges(conn, List.of(orderId));
+                
+                UnitOfWork.afterCommit(() -> {
+                    publishRecentStatus(List.of(orderId), OrderDTO.OrderStatus.CANCELLED);
+                    logger.info("Order cancelled successfully with ID: {}", orderId);
+                });
+                return true;
+            });
+            
+        } catch (SQLException e) {
+            logger.error("Database error while cancelling order with ID: {}", orderId, e);
+            throw new RemoteException("Failed to cancel order due to database error", e);
+        }
+    }
+    
+    /**
+     * Return the stock held by cancelled orders with one set-based update on the caller's connection
+     */
+    private void restoreStock(Connection conn, List<Long> orderIds) throws SQLException {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        
+        String sql = """
+            UPDATE stocks s
+            JOIN (
+                SELECT o.branch_id, oi.drink_id, SUM(oi.quantity) as quantity
+                FROM order_items oi
+                JOIN orders o ON oi.order_id = o.id
+                WHERE oi.order_id IN (%s)
+                GROUP BY o.branch_id, oi.drink_id
+            ) r ON s.branch_id = r.branch_id AND s.drink_id = r.drink_id
+            SET s.quantity = s.quantity + r.quantity
+            """.formatted(String.join(", ", Collections.nCopies(orderIds.size(), "?")));
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < orderIds.size(); i++) {
+                stmt.setLong(i + 1, orderIds.get(i));
+            }
+            int restored = stmt.executeUpdate();
+            logger.debug("Restored {} stock rows for {} cancelled orders", restored, orderIds.size());
+        }
+    }
+   
+    
+    @Override
+    public List<OrderDTO> getAllOrders() throws RemoteException {
+        logger.info("Retrieving all orders");
+        
+        List<OrderDTO> orders = new ArrayList<>();
+        String sql = """
+            SELECT o.id, o.customer_id, c.name as customer_name, 
+                   o.branch_id, b.name as branch_name, 
+                   o.order_time, o.status, o.total_amount
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            LEFT JOIN branches b ON o.branch_id = b.id
+            ORDER BY o.order_time DESC
+            """;
+            
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                OrderDTO order = new OrderDTO(
+                    rs.getLong("id"),
+                    rs.getLong("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getLong("branch_id"),
+                    rs.getString("branch_name"),
+                    rs.getTimestamp("order_time").toLocalDateTime()
+                );
+                
+                // Set additional fields separately
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                
+                orders.add(order);
+            }
+            return orders;
+        } catch (SQLException e) {
+            logger.error("Error retrieving all orders", e);
+            throw new RemoteException("Error retrieving orders", e);
+        }
+    }
+    
+    @Override
+    public OrderDTO createOrder(OrderDTO order, List<OrderItemDTO> items) throws RemoteException {
+        return createOrder(order, items, null);
+    }
+    
+    @Override
+    public OrderDTO createOrder(OrderDTO order, List<OrderItemDTO> items, String idempotencyKey) throws RemoteException {
+        validateIdempotencyKey(idempotencyKey);
+        
+        OrderDTO replay = findCachedOrder(idempotencyKey, order.getCustomerId());
+        if (replay != null) {
+            return replay;
+        }
+        
+        try {
+            // The order, its items and its outbox event commit together on one pooled connection
+            return UnitOfWork.run(conn -> {
+                OrderDTO stored = findStoredOrder(conn, idempotencyKey, order.getCustomerId());
+                if (stored != null) {
+                    return stored;
+                }
+                
+                // Insert the order and its items, then return it with its new ID
+                order.setId(null);
+                order.setItems(items);
+                order.setIdempotencyKey(idempotencyKey);
+                insertOrders(conn, List.of(order));
+                UnitOfWork.afterCommit(() -> {
+                    rememberOrder(order);
+                    publishRecentOrders(List.of(order));
+                });
+                return order;
+            });
+        } catch (SQLException e) {
+            if (idempotencyKey != null && isDuplicateKey(e)) {
+                try {
+                    replay = UnitOfWork.run(conn -> findStoredOrder(conn, idempotencyKey, order.getCustomerId()));
+                    if (replay != null) {
+                        return replay;
+                    }
+                } catch (SQLException lookupError) {
+                    e.addSuppressed(lookupError);
+                }
+            }
+            logger.error("Failed to create order", e);
+            throw new RemoteException("Failed to create order due to database error", e);
+        }
+    }
+    
+    @Override
+    public void updateOrderStatus(Long orderId, String status) throws RemoteException {
+        OrderDTO.OrderStatus target = parseStatus(status);
+        
+        String sql = "UPDATE orders SET status = ? WHERE id = ? AND status IN (" + statusList(target) + ")";
+        try {
+            UnitOfWork.run(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, target.name());
+                    pstmt.setLong(2, orderId);
+                    if (pstmt.executeUpdate() == 0) {
+                        logger.warn("Rejected status change of order {} to {}", orderId, target);
+                        throw new RemoteException("Order " + orderId + " cannot be moved to " + target + " from its current status");
+                    }
+                }
+                if (target == OrderDTO.OrderStatus.CANCELLED) {
+                    restoreStock(conn, List.of(orderId));
+                }
+                OrderOutbox.appendStatusChanges(conn, List.of(orderId));
+                UnitOfWork.afterCommit(() -> publishRecentStatus(List.of(orderId), target));
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.error("Failed to update order status", e);
+            throw new RemoteException("Failed to update order status due to database error", e);
+        }
+    }
+    
+    @Override
+    public List<Long> updateOrderStatuses(UserDTO currentUser, List<Long> orderIds, String status) throws RemoteException {
+        // Check if user has permission to update orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:update");
+        OrderDTO.OrderStatus target = parseStatus(status);
+        
+        if (orderIds == null || orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (orderIds.size() > MAX_BATCH_ORDERS) {
+            throw new RemoteException("Too many orders in one update: " + orderIds.size() + " (maximum " + MAX_BATCH_ORDERS + ")");
+        }
+        
+        // Users without all-branch access can only update orders for their own branch
+        String scope = "";
+        Long scopeId = null;
+        if (!RoleBasedAccessControl.hasAllBranchAccess(currentUser)) {
+            if (currentUser.getBranchId() == null) {
+                throw new RemoteException("Access denied: User is not assigned to a branch");
+            }
+            scope = " AND branch_id = ?";
+            scopeId = currentUser.getBranchId();
+        }
+        
+        List<Long> ids = new ArrayList<>(new TreeSet<>(orderIds));
+        String idList = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String selectSql = "SELECT id FROM orders WHERE id IN (" + idList + ") AND status IN (" + statusList(target) + ")" +
+                           scope + " ORDER BY id FOR UPDATE";
+        
+        Long branchScope = scopeId;
+        try {
+            return UnitOfWork.run(conn -> {
+                // Lock the orders that are in a legal source state; everything else is left alone
+                List<Long> changed = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    int index = 1;
+                    for (Long id : ids) {
+                        stmt.setLong(index++, id);
+                    }
+                    if (branchScope != null) {
+                        stmt.setLong(index, branchScope);
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        changed.add(rs.getLong("id"));
+                    }
+                }
+                
+                if (!changed.isEmpty()) {
+                    String updateSql = "UPDATE orders SET status = ? WHERE id IN (" +
+                                       String.join(", ", Collections.nCopies(changed.size(), "?")) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                        stmt.setString(1, target.name());
+                        for (int i = 0; i < changed.size(); i++) {
+                            stmt.setLong(i + 2, changed.get(i));
+                        }
+                        stmt.executeUpdate();
+                    }
+                    if (target == OrderDTO.OrderStatus.CANCELLED) {
+                        restoreStock(conn, changed);
+                    }
+                    OrderOutbox.appendStatusChanges(conn, changed);
+                }
+                
+                UnitOfWork.afterCommit(() -> publishRecentStatus(changed, target));
+                logger.info("Moved {} of {} orders to {}", changed.size(), ids.size(), target);
+                return changed;
+            });
+            
+        } catch (SQLException e) {
+            logger.error("Database error while moving {} orders to {}", ids.size(), target, e);
+            throw new RemoteException("Failed to update order statuses due to database error", e);
+        }
+    }
+    
+    private static OrderDTO.OrderStatus parseStatus(String status) throws RemoteException {
+        try {
+            return OrderDTO.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RemoteException("Unknown order status: " + status);
+        }
+    }
+    
+    /**
+     * SQL list of the statuses an order may be moved to the target status from
+     */
+    private static String statusList(OrderDTO.OrderStatus target) throws RemoteException {
+        List<OrderDTO.OrderStatus> allowed = target.getAllowedPreviousStatuses();
+        if (allowed.isEmpty()) {
+            throw new RemoteException("Orders cannot be moved to " + target);
+        }
+        StringBuilder list = new StringBuilder();
+        for (OrderDTO.OrderStatus previous : allowed) {
+            list.append(list.length() > 0 ? ", " : "").append('\'').append(previous.name()).append('\'');
+        }
+        return list.toString();
+    }
+    
+    @Override
+    public List<OrderDTO> getBranchOrders(Long branchId) throws RemoteException {
+        logger.info("Retrieving orders for branch ID: {}", branchId);
         
-        // Get order details first to check ownership
-        OrderDTO order = getOrderById(currentUser, orderId);
-        if (order == null) {
-            logger.warn("Cannot cancel order - not found with ID: {}", orderId);
-            return false;
+        List<OrderDTO> orders = new ArrayList<>();
+        String sql = """
+            SELECT o.id, o.customer_id, c.name as customer_name, 
+                   o.branch_id, b.name as branch_name, 
+                   o.order_time, o.status, o.total_amount
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            LEFT JOIN branches b ON o.branch_id = b.id
+            WHERE o.branch_id = ?
+            ORDER BY o.order_time DESC
+            """;
+            
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setLong(1, branchId);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                OrderDTO order = new OrderDTO(
+                    rs.getLong("id"),
+                    rs.getLong("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getLong("branch_id"),
+                    rs.getString("branch_name"),
+                    rs.getTimestamp("order_time").toLocalDateTime()
+                );
+                
+                // Set additional fields separately
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
+                
+                orders.add(order);
+            }
+            return orders;
+        } catch (SQLException e) {
+            logger.error("Error retrieving orders for branch ID: {}", branchId, e);
+            throw new RemoteException("Error retrieving orders", e);
+        }
+    }
+    
+    @Override
+    public OrderPageDTO getAllOrdersPage(String cursor, int pageSize) throws RemoteException {
+        return getOrdersPage(null, cursor, pageSize);
+    }
+    
+    @Override
+    public OrderPageDTO getBranchOrdersPage(Long branchId, String cursor, int pageSize) throws RemoteException {
+        if (branchId == null) {
+            throw new RemoteException("Branch is required");
         }
+        return getOrdersPage(branchId, cursor, pageSize);
+    }
+    
+    /**
+     * Read one page of orders keyed on (order_time, id) descending, optionally for a single branch.
+     * Each page seeks past the last row of the previous one, so the cost does not grow with the page number.
+     */
+    private OrderPageDTO getOrdersPage(Long branchId, String cursor, int pageSize) throws RemoteException {
+        int limit = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        PageCursor position = PageCursor.decode(cursor);
         
-        // Additional permission checks based on role
-        if (currentUser.getRole().equals("customer") && !currentUser.getId().equals(order.getCustomerId())) {
-            logger.error("Customer {} attempted to cancel order for customer {}", currentUser.getId(), order.getCustomerId());
-            throw new RemoteException("You can only cancel your own orders");
+        StringBuilder sql = new StringBuilder("""
+            SELECT o.id, o.customer_id, c.name as customer_name, 
+                   o.branch_id, b.name as branch_name, 
+                   o.order_time, o.status, o.total_amount
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            LEFT JOIN branches b ON o.branch_id = b.id
+            WHERE 1 = 1
+            """);
+        if (branchId != null) {
+            sql.append(" AND o.branch_id = ?");
         }
-        
-        if ((currentUser.getRole().equals("branch_staff") || currentUser.getRole().equals("branch_manager")) 
-            && !currentUser.getBranchId().equals(order.getBranchId())) {
-            logger.error("User from branch {} attempted to cancel order from branch {}", 
-                        currentUser.getBranchId(), order.getBranchId());
-            throw new RemoteException("You can only cancel orders for your own branch");
+        if (position != null) {
+            sql.append(" AND (o.order_time < ? OR (o.order_time = ? AND o.id < ?))");
         }
-        logger.info("Attempting to cancel order with ID: {}", orderId);
+        sql.append(" ORDER BY o.order_time DESC, o.id DESC LIMIT ?");
         
-        // For simplicity, we'll just delete the order and restore stock
-        // In a real system, you might want to mark it as cancelled instead
+        List<OrderDTO> orders = new ArrayList<>();
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            conn.setAutoCommit(false);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
             
-            try {
-                // We already retrieved and validated the order above
-                
-                // Restore stock for each item
-                for (OrderItemDTO item : order.getItems()) {
-                    StockDTO stock = stockService.getStockByBranchAndDrink(order.getBranchId(), item.getDrinkId());
-                    if (stock != null) {
-                        stockService.updateStockQuantity(order.getBranchId(), item.getDrinkId(), 
-                                                       stock.getQuantity() + item.getQuantity());
-                    }
+            int index = 1;
+            if (branchId != null) {
+                stmt.setLong(index++, branchId);
+            }
+            if (position != null) {
+                stmt.setTimestamp(index++, position.orderTime);
+                stmt.setTimestamp(index++, position.orderTime);
+                stmt.setLong(index++, position.orderId);
+            }
+            // Fetch one extra row to learn whether another page exists
+            stmt.setInt(index, limit + 1);
+            ResultSet rs = stmt.executeQuery();
+            
+            Timestamp lastTime = null;
+            while (rs.next()) {
+                if (orders.size() == limit) {
+                    OrderDTO last = orders.get(orders.size() - 1);
+                    return new OrderPageDTO(orders, new PageCursor(lastTime, last.getId()).encode());
                 }
+                lastTime = rs.getTimestamp("order_time");
+                OrderDTO order = new OrderDTO(
+                    rs.getLong("id"),
+                    rs.getLong("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getLong("branch_id"),
+                    rs.getString("branch_name"),
+                    lastTime.toLocalDateTime()
+                );
                 
-                // Delete order items first (due to foreign key constraint)
-                String deleteItemsSql = "DELETE FROM order_items WHERE order_id = ?";
-                PreparedStatement deleteItemsStmt = conn.prepareStatement(deleteItemsSql);
-                deleteItemsStmt.setLong(1, orderId);
-                deleteItemsStmt.executeUpdate();
-                
-                // Delete the order
-                String deleteOrderSql = "DELETE FROM orders WHERE id = ?";
-                PreparedStatement deleteOrderStmt = conn.prepareStatement(deleteOrderSql);
-                deleteOrderStmt.setLong(1, orderId);
-                int rows = deleteOrderStmt.executeUpdate();
-                
-                if (rows > 0) {
-                    conn.commit();
-                    logger.info("Order cancelled successfully with ID: {}", orderId);
-                    return true;
-                } else {
-                    conn.rollback();
-                    logger.warn("No rows deleted for order ID: {}", orderId);
-                    return false;
-                }
+                // Set additional fields separately
+                order.setStatus(rs.getString("status"));
+                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
                 
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+                orders.add(order);
             }
+            return new OrderPageDTO(orders, null);
             
         } catch (SQLException e) {
-            logger.error("Database error while cancelling order with ID: {}", orderId, e);
-            throw new RemoteException("Failed to cancel order due to database error", e);
+            logger.error("Error retrieving page of orders for branch ID: {}", branchId, e);
+            throw new RemoteException("Error retrieving orders", e);
         }
     }
-   
     
     @Override
-    public List<OrderDTO> getAllOrders() throws RemoteException {
-        logger.info("Retrieving all orders");
+    public OrderPageDTO searchOrders(UserDTO currentUser, OrderSearchDTO criteria, String cursor, int pageSize) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        if (criteria == null) {
+            criteria = new OrderSearchDTO();
+        }
+        OrderSearchDTO.Sort sort = criteria.getSort() != null ? criteria.getSort() : OrderSearchDTO.Sort.NEWEST;
+        int limit = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        SearchCursor position = SearchCursor.decode(cursor, sort);
         
-        List<OrderDTO> orders = new ArrayList<>();
-        String sql = """
+        // Narrow the search to what the user may see, so every query has a leading indexed column where possible
+        Long branchId = criteria.getBranchId();
+        Long customerId = criteria.getCustomerId();
+        String role = currentUser.getRole().toLowerCase();
+        if (role.equals("customer")) {
+            if (currentUser.getCustomerId() == null) {
+                throw new RemoteException("Access denied: User is not linked to a customer");
+            }
+            if (customerId != null && !customerId.equals(currentUser.getCustomerId())) {
+                throw new RemoteException("Access denied: Customers can only search their own orders");
+            }
+            customerId = currentUser.getCustomerId();
+        } else if (!RoleBasedAccessControl.hasAllBranchAccess(currentUser) && !role.equals("customer_support")) {
+            // Customer support answers customers of every branch, so only branch users are held to their branch
+            if (currentUser.getBranchId() == null) {
+                throw new RemoteException("Access denied: User is not assigned to a branch");
+            }
+            if (branchId != null) {
+                RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+            }
+            branchId = currentUser.getBranchId();
+        }
+        
+        List<String> statuses = new ArrayList<>();
+        if (criteria.getStatuses() != null) {
+            for (String status : criteria.getStatuses()) {
+                String name = parseStatus(status).name();
+                if (!statuses.contains(name)) {
+                    statuses.add(name);
+                }
+            }
+        }
+        if (criteria.getFromDate() != null && criteria.getToDate() != null && criteria.getFromDate().isAfter(criteria.getToDate())) {
+            throw new RemoteException("Start date must not be after end date");
+        }
+        if (criteria.getMinAmount() != null && criteria.getMaxAmount() != null && criteria.getMinAmount().compareTo(criteria.getMaxAmount()) > 0) {
+            throw new RemoteException("Minimum amount must not exceed maximum amount");
+        }
+        
+        boolean byAmount = sort == OrderSearchDTO.Sort.HIGHEST_AMOUNT || sort == OrderSearchDTO.Sort.LOWEST_AMOUNT;
+        boolean descending = sort == OrderSearchDTO.Sort.NEWEST || sort == OrderSearchDTO.Sort.HIGHEST_AMOUNT;
+        String key = byAmount ? "o.total_amount" : "o.order_time";
+        String seek = descending ? "<" : ">";
+        String direction = descending ? "DESC" : "ASC";
+        
+        StringBuilder sql = new StringBuilder("""
             SELECT o.id, o.customer_id, c.name as customer_name, 
                    o.branch_id, b.name as branch_name, 
                    o.order_time, o.status, o.total_amount
             FROM orders o
             LEFT JOIN customers c ON o.customer_id = c.id
             LEFT JOIN branches b ON o.branch_id = b.id
-            ORDER BY o.order_time DESC
-            """;
-            
+            WHERE 1 = 1
+            """);
+        List<Object> params = new ArrayList<>();
+        if (branchId != null) {
+            sql.append(" AND o.branch_id = ?");
+            params.add(branchId);
+        }
+        if (customerId != null) {
+            sql.append(" AND o.customer_id = ?");
+            params.add(customerId);
+        }
+        if (!statuses.isEmpty()) {
+            sql.append(" AND o.status IN (").append(String.join(", ", Collections.nCopies(statuses.size(), "?"))).append(")");
+            params.addAll(statuses);
+        }
+        if (criteria.getFromDate() != null) {
+            sql.append(" AND o.order_time >= ?");
+            params.add(Timestamp.valueOf(criteria.getFromDate().atStartOfDay()));
+        }
+        if (criteria.getToDate() != null) {
+            sql.append(" AND o.order_time < ?");
+            params.add(Timestamp.valueOf(criteria.getToDate().plusDays(1).atStartOfDay()));
+        }
+        if (criteria.getMinAmount() != null) {
+            sql.append(" AND o.total_amount >= ?");
+            params.add(criteria.getMinAmount());
+        }
+        if (criteria.getMaxAmount() != null) {
+            sql.append(" AND o.total_amount <= ?");
+            params.add(criteria.getMaxAmount());
+        }
+        if (position != null) {
+            sql.append(" AND (").append(key).append(" ").append(seek).append(" ? OR (")
+               .append(key).append(" = ? AND o.id ").append(seek).append(" ?))");
+            params.add(position.key);
+            params.add(position.key);
+            params.add(position.orderId);
+        }
+        sql.append(" ORDER BY ").append(key).append(" ").append(direction)
+           .append(", o.id ").append(direction).append(" LIMIT ?");
+        // Fetch one extra row to learn whether another page exists
+        params.add(limit + 1);
+        
+        List<OrderDTO> orders = new ArrayList<>();
+        
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
             
+            Object lastKey = null;
             while (rs.next()) {
+                if (orders.size() == limit) {
+                    OrderDTO last = orders.get(orders.size() - 1);
+                    return new OrderPageDTO(orders, new SearchCursor(sort, lastKey, last.getId()).encode());
+                }
+                Timestamp orderTime = rs.getTimestamp("order_time");
+                BigDecimal totalAmount = rs.getBigDecimal("total_amount");
+                lastKey = byAmount ? totalAmount : orderTime;
                 OrderDTO order = new OrderDTO(
                     rs.getLong("id"),
                     rs.getLong("customer_id"),
                     rs.getString("customer_name"),
                     rs.getLong("branch_id"),
                     rs.getString("branch_name"),
-                    rs.getTimestamp("order_time").toLocalDateTime()
+                    orderTime.toLocalDateTime()
                 );
-                
-                // Set additional fields separately
                 order.setStatus(rs.getString("status"));
-                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
-                
+                order.setTotalAmount(totalAmount.doubleValue());
                 orders.add(order);
             }
-            return orders;
+            return new OrderPageDTO(orders, null);
+            
         } catch (SQLException e) {
-            logger.error("Error retrieving all orders", e);
-            throw new RemoteException("Error retrieving orders", e);
+            logger.error("Error searching orders with {}", criteria, e);
+            throw new RemoteException("Error searching orders", e);
         }
     }
     
     @Override
-    public OrderDTO createOrder(OrderDTO order, List<OrderItemDTO> items) throws RemoteException {
+    public RecentOrdersDTO getRecentOrders(UserDTO currentUser, Long branchId, long sinceSeq) throws RemoteException {
+        // Check if user has permission to view orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        
+        if (branchId == null) {
+            throw new RemoteException("Branch is required");
+        }
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        
+        RecentOrdersDTO recent = recentBuffer(branchId).readSince(sinceSeq);
+        attachCustomerNames(recent.getOrders());
+        return recent;
+    }
+    
+    @Override
+    public List<OrderDTO> getFulfilmentQueue(UserDTO currentUser, Long branchId) throws RemoteException {
+        // Check if user has permission to view orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        
+        return fulfilmentQueue(branchId).snapshot();
+    }
+    
+    @Override
+    public void claimOrder(UserDTO currentUser, Long orderId) throws RemoteException {
+        moveFulfilment(currentUser, orderId, OrderDTO.OrderStatus.PROCESSING);
+    }
+    
+    @Override
+    public void completeOrder(UserDTO currentUser, Long orderId) throws RemoteException {
+        moveFulfilment(currentUser, orderId, OrderDTO.OrderStatus.COMPLETED);
+    }
+    
+    @Override
+    public void subscribeFulfilment(UserDTO currentUser, Long branchId, FulfilmentCallback callback) throws RemoteException {
+        // Check if user has permission to view orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        
+        fulfilmentQueue(branchId).subscribe(callback);
+        logger.info("User {} subscribed to the fulfilment queue of branch ID: {}", currentUser.getUsername(), branchId);
+    }
+    
+    @Override
+    public void unsubscribeFulfilment(UserDTO currentUser, Long branchId, FulfilmentCallback callback) throws RemoteException {
+        // Same checks as subscribing, so one branch cannot drop another branch's screens
+        RoleBasedAccessControl.checkPermission(currentUser, "order:read");
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        
+        FulfilmentQueue queue = fulfilmentQueues.get(branchId);
+        if (queue != null) {
+            queue.unsubscribe(callback);
+        }
+    }
+    
+    /**
+     * Move one order of the user's branch to PROCESSING or COMPLETED, recording who claimed it
+     */
+    private void moveFulfilment(UserDTO currentUser, Long orderId, OrderDTO.OrderStatus target) throws RemoteException {
+        // Check if user has permission to update orders
+        RoleBasedAccessControl.checkPermission(currentUser, "order:update");
+        
+        Long branchId;
         try {
-            // First insert the order
-            String sql = "INSERT INTO orders (customer_id, branch_id, order_time, status, total_amount) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-            pstmt.setLong(1, order.getCustomerId());
-            pstmt.setLong(2, order.getBranchId());
-            pstmt.setTimestamp(3, Timestamp.valueOf(order.getOrderTime()));
-            pstmt.setString(4, order.getStatus());
-            pstmt.setDouble(5, order.getTotalAmount());
-            
-            pstmt.executeUpdate();
-            
-            // Get the generated order ID
-            ResultSet rs = pstmt.getGeneratedKeys();
-            long orderId = -1;
-            if (rs.next()) {
-                orderId = rs.getLong(1);
-            }
-            
-            // Insert order items
-            for (OrderItemDTO item : items) {
-                String itemSql = "INSERT INTO order_items (order_id, drink_id, drink_name, quantity, unit_price) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement itemPstmt = connection.prepareStatement(itemSql);
-                itemPstmt.setLong(1, orderId);
-                itemPstmt.setLong(2, item.getDrinkId());
-                itemPstmt.setString(3, item.getDrinkName());
-                itemPstmt.setInt(4, item.getQuantity());
-                itemPstmt.setBigDecimal(5, item.getUnitPrice());
+            branchId = UnitOfWork.run(conn -> {
+                Long orderBranchId;
+                String status;
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT branch_id, status FROM orders WHERE id = ? FOR UPDATE")) {
+                    stmt.setLong(1, orderId);
+                    ResultSet rs = stmt.executeQuery();
+                    if (!rs.next()) {
+                        throw new RemoteException("Order not found with ID: " + orderId);
+                    }
+                    orderBranchId = rs.getLong("branch_id");
+                    status = rs.getString("status");
+                }
+                RoleBasedAccessControl.checkBranchAccess(currentUser, orderBranchId);
                 
-                itemPstmt.executeUpdate();
-            }
+                if (!target.canTransitionFrom(status)) {
+                    FulfilmentQueue queue = fulfilmentQueues.get(orderBranchId);
+                    OrderDTO queued = queue != null ? queue.get(orderId) : null;
+                    if (target == OrderDTO.OrderStatus.PROCESSING && "PROCESSING".equals(status)) {
+                        throw new RemoteException("Order " + orderId + " has already been claimed" +
+                                                  (queued != null && queued.getClaimedBy() != null ? " by " + queued.getClaimedBy() : ""));
+                    }
+                    throw new RemoteException("Order " + orderId + " cannot be moved to " + target + " from " + status);
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement("UPDATE orders SET status = ? WHERE id = ?")) {
+                    stmt.setString(1, target.name());
+                    stmt.setLong(2, orderId);
+                    stmt.executeUpdate();
+                }
+                OrderOutbox.appendStatusChanges(conn, List.of(orderId));
+                return orderBranchId;
+            });
             
-            // Return the created order with the generated ID
-            order.setId(orderId);
-            return order;
         } catch (SQLException e) {
-            logger.error("Failed to create order", e);
-            throw new RemoteException("Failed to create order due to database error", e);
+            logger.error("Database error while moving order {} to {}", orderId, target, e);
+            throw new RemoteException("Failed to update order status due to database error", e);
         }
+        
+        // The claimer is only known here, so the queue is updated before the generic status fan-out
+        UnitOfWork.afterCommit(() -> {
+            FulfilmentQueue queue = fulfilmentQueues.get(branchId);
+            if (queue != null) {
+                queue.updateStatus(List.of(orderId), target.name(),
+                                   target == OrderDTO.OrderStatus.PROCESSING ? currentUser.getUsername() : null);
+            }
+            publishRecentStatus(List.of(orderId), target);
+            logger.info("User {} moved order {} to {}", currentUser.getUsername(), orderId, target);
+        });
     }
     
-    @Override
-    public void updateOrderStatus(Long orderId, String status) throws RemoteException {
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("UPDATE orders SET status = ? WHERE id = ?")) {
-            pstmt.setString(1, status);
-            pstmt.setLong(2, orderId);
-            pstmt.executeUpdate();
+    /**
+     * Get the fulfilment queue of a branch, loading it from the database on first use
+     */
+    private FulfilmentQueue fulfilmentQueue(Long branchId) throws RemoteException {
+        if (branchId == null) {
+            throw new RemoteException("Branch is required");
+        }
+        FulfilmentQueue queue = fulfilmentQueues.get(branchId);
+        if (queue != null) {
+            return queue;
+        }
+        // Loaded outside the lock, so a slow first load of one branch does not hold up the others
+        FulfilmentQueue loaded = new FulfilmentQueue(branchId, fulfilmentPusher);
+        loaded.reload();
+        synchronized (fulfilmentQueues) {
+            queue = fulfilmentQueues.get(branchId);
+            if (queue == null) {
+                queue = loaded;
+                fulfilmentQueues.put(branchId, queue);
+                logger.info("Loaded fulfilment queue for branch ID: {} with {} open orders", branchId, queue.snapshot().size());
+            }
+            return queue;
+        }
+    }
+    
+    private void pollFulfilmentQueues() {
+        for (FulfilmentQueue queue : fulfilmentQueues.values()) {
+            try {
+                queue.poll();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to update a fulfilment queue from order events", e);
+            }
+        }
+    }
+    
+    private void reloadFulfilmentQueues() {
+        for (FulfilmentQueue queue : fulfilmentQueues.values()) {
+            try {
+                queue.reload();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to reload a fulfilment queue", e);
+            }
+        }
+    }
+    
+    /**
+     * Get the recent-orders ring of a branch, seeding it from the database on first use
+     */
+    private RecentOrdersBuffer recentBuffer(Long branchId) throws RemoteException {
+        RecentOrdersBuffer buffer = recentOrders.get(branchId);
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (recentOrders) {
+            buffer = recentOrders.get(branchId);
+            if (buffer == null) {
+                buffer = new RecentOrdersBuffer(RECENT_ORDERS_CAPACITY);
+                List<OrderDTO> latest = getOrdersPage(branchId, null, RECENT_ORDERS_CAPACITY).getOrders();
+                for (int i = latest.size() - 1; i >= 0; i--) {
+                    buffer.publish(latest.get(i));
+                }
+                recentOrders.put(branchId, buffer);
+                logger.info("Seeded recent orders for branch ID: {} with {} orders", branchId, latest.size());
+            }
+            return buffer;
+        }
+    }
+    
+    /**
+     * Publish copies of newly committed orders to their branch rings and cached customer histories
+     * Branch names come from memory; customer names are filled in when the ring is read. Runs after
+     * commit, so failures are logged rather than reported to the caller.
+     */
+    private void publishRecentOrders(List<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, String> branchNames = stockLevels.getBranchNames();
+        List<OrderDTO> published = new ArrayList<>();
+        for (OrderDTO order : orders) {
+            // The caller still returns its own instance, so receipts and split summaries show the branch
+            if (order.getBranchName() == null) {
+                order.setBranchName(branchNames.get(order.getBranchId()));
+            }
+            published.add(RecentOrdersBuffer.copyWithStatus(order, order.getStatus()));
+        }
+        try {
+            orderHistory.addOrders(published);
+            for (FulfilmentQueue queue : fulfilmentQueues.values()) {
+                queue.apply(published);
+            }
+            for (OrderDTO order : published) {
+                recentBuffer(order.getBranchId()).publish(order);
+            }
+        } catch (RemoteException e) {
+            logger.warn("Failed to publish {} orders to recent orders", orders.size(), e);
+            for (OrderDTO order : orders) {
+                orderHistory.invalidate(order.getCustomerId());
+            }
+        }
+    }
+    
+    private void publishRecentStatus(List<Long> orderIds, OrderDTO.OrderStatus status) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        orderHistory.updateStatus(orderIds, status.name());
+        for (FulfilmentQueue queue : fulfilmentQueues.values()) {
+            queue.updateStatus(orderIds, status.name(), null);
+        }
+        for (RecentOrdersBuffer buffer : recentOrders.values()) {
+            buffer.publishStatus(orderIds, status.name());
+        }
+    }
+    
+    /**
+     * Fill in the customer names of orders read from a ring; the published orders are replaced, not changed
+     */
+    private void attachCustomerNames(List<OrderDTO> orders) throws RemoteException {
+        Set<Long> customerIds = new TreeSet<>();
+        for (OrderDTO order : orders) {
+            if (order.getCustomerName() == null) {
+                customerIds.add(order.getCustomerId());
+            }
+        }
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            Map<Long, String> customerNames = loadNames(conn, "customers", customerIds);
+            for (int i = 0; i < orders.size(); i++) {
+                OrderDTO order = orders.get(i);
+                if (order.getCustomerName() == null) {
+                    OrderDTO named = RecentOrdersBuffer.copyWithStatus(order, order.getStatus());
+                    named.setCustomerName(customerNames.get(order.getCustomerId()));
+                    orders.set(i, named);
+                }
+            }
         } catch (SQLException e) {
-            logger.error("Failed to update order status", e);
-            throw new RemoteException("Failed to update order status due to database error", e);
+            logger.error("Database error while reading customer names of recent orders", e);
+            throw new RemoteException("Failed to retrieve recent orders due to database error", e);
+        }
+    }
+    
+    private Map<Long, String> loadNames(Connection conn, String table, Set<Long> ids) throws SQLException {
+        Map<Long, String> names = new HashMap<>();
+        String sql = "SELECT id, name FROM " + table + " WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Long id : ids) {
+                stmt.setLong(index++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                names.put(rs.getLong("id"), rs.getString("name"));
+            }
         }
+        return names;
     }
     
     @Override
-    public List<OrderDTO> getBranchOrders(Long branchId) throws RemoteException {
-        logger.info("Retrieving orders for branch ID: {}", branchId);
+    public OrderExportCursor exportOrders(UserDTO currentUser, LocalDate startDate, LocalDate endDate, Long branchId) throws RemoteException {
+        // Exports are a reporting operation; branch roles may only export their own branch
+        RoleBasedAccessControl.checkPermission(currentUser, "report:read");
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RemoteException("A valid date range is required to export orders");
+        }
+        if (openExports.size() >= MAX_OPEN_EXPORTS) {
+            throw new RemoteException("Too many order exports in progress, please try again later");
+        }
+        logger.info("Opening order export from {} to {} for branch ID: {}", startDate, endDate, branchId);
         
-        List<OrderDTO> orders = new ArrayList<>();
         String sql = """
             SELECT o.id, o.customer_id, c.name as customer_name, 
                    o.branch_id, b.name as branch_name, 
-                   o.order_time, o.status, o.total_amount
+                   o.order_time, o.status, o.total_amount,
+                   oi.id as item_id, oi.drink_id, oi.drink_name, oi.quantity, oi.unit_price, oi.discount_amount
             FROM orders o
             LEFT JOIN customers c ON o.customer_id = c.id
             LEFT JOIN branches b ON o.branch_id = b.id
-            WHERE o.branch_id = ?
-            ORDER BY o.order_time DESC
-            """;
-            
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            LEFT JOIN order_items oi ON oi.order_id = o.id
+            WHERE o.order_time >= ? AND o.order_time < ?
+            """ + (branchId != null ? " AND o.branch_id = ?" : "") + " ORDER BY o.order_time, o.id, oi.id";
+        
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Integer.MIN_VALUE makes the MySQL driver stream rows instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            if (branchId != null) {
+                stmt.setLong(3, branchId);
+            }
             
-            stmt.setLong(1, branchId);
-            ResultSet rs = stmt.executeQuery();
+            OrderExportCursorImpl cursor = new OrderExportCursorImpl(conn, stmt, openExports::remove);
+            openExports.add(cursor);
+            return cursor;
             
-            while (rs.next()) {
-                OrderDTO order = new OrderDTO(
-                    rs.getLong("id"),
-                    rs.getLong("customer_id"),
-                    rs.getString("customer_name"),
-                    rs.getLong("branch_id"),
-                    rs.getString("branch_name"),
-                    rs.getTimestamp("order_time").toLocalDateTime()
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            logger.error("Database error while opening order export", e);
+            throw new RemoteException("Failed to export orders due to database error", e);
+        }
+    }
+    
+    private void closeIdleExports() {
+        long cutoff = System.currentTimeMillis() - EXPORT_IDLE_TIMEOUT_MS;
+        for (OrderExportCursorImpl cursor : openExports) {
+            if (cursor.isIdleSince(cutoff)) {
+                logger.warn("Closing order export cursor idle for more than {} ms", EXPORT_IDLE_TIMEOUT_MS);
+                cursor.close();
+            }
+        }
+    }
+    
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close database resource", e);
+            }
+        }
+    }
+    
+    /**
+     * Position of the last order on a search page: its sort key and ID, tagged with the sort order it belongs to
+     */
+    private static class SearchCursor {
+        private final OrderSearchDTO.Sort sort;
+        private final Object key;
+        private final long orderId;
+        
+        SearchCursor(OrderSearchDTO.Sort sort, Object key, long orderId) {
+            this.sort = sort;
+            this.key = key;
+            this.orderId = orderId;
+        }
+        
+        String encode() {
+            String value = key instanceof Timestamp ? ((Timestamp) key).toLocalDateTime().toString() : ((BigDecimal) key).toPlainString();
+            String position = sort.name() + "|" + value + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        /**
+         * Decode a token from encode for the given sort order, or return null for the first page
+         */
+        static SearchCursor decode(String cursor, OrderSearchDTO.Sort sort) throws RemoteException {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                    throw new RemoteException("Invalid page cursor");
+                }
+                Object key = sort == OrderSearchDTO.Sort.NEWEST || sort == OrderSearchDTO.Sort.OLDEST
+                    ? Timestamp.valueOf(LocalDateTime.parse(parts[1]))
+                    : new BigDecimal(parts[1]);
+                return new SearchCursor(sort, key, Long.parseLong(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new RemoteException("Invalid page cursor");
+            }
+        }
+    }
+    
+    /**
+     * Position of the last order on a page, handed to clients as an opaque token
+     */
+    private static class PageCursor {
+        private final Timestamp orderTime;
+        private final long orderId;
+        
+        PageCursor(Timestamp orderTime, long orderId) {
+            this.orderTime = orderTime;
+            this.orderId = orderId;
+        }
+        
+        String encode() {
+            String position = orderTime.toLocalDateTime() + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        /**
+         * Decode a token from encode, or return null for the first page
+         */
+        static PageCursor decode(String cursor) throws RemoteException {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.indexOf('|');
+                return new PageCursor(
+                    Timestamp.valueOf(LocalDateTime.parse(position.substring(0, separator))),
+                    Long.parseLong(position.substring(separator + 1))
                 );
-                
-                // Set additional fields separately
-                order.setStatus(rs.getString("status"));
-                order.setTotalAmount(rs.getBigDecimal("total_amount").doubleValue());
-                
-                orders.add(order);
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new RemoteException("Invalid page cursor");
             }
-            return orders;
-        } catch (SQLException e) {
-            logger.error("Error retrieving orders for branch ID: {}", branchId, e);
-            throw new RemoteException("Error retrieving orders", e);
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.drinks.rmi.server;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Plans which branches fulfil a cart when no single branch can
+ * Each cart line is taken whole from one branch. The planner picks the smallest set of branches
+ * that can supply every line; among sets of the same size it prefers one containing the customer's
+ * chosen branch, then the one with the lowest total load.
+ */
+final class OrderSplitPlanner {
+
+    // Above this many candidate branches the exact search gives way to a greedy cover
+    private static final int MAX_EXACT_BRANCHES = 16;
+    // Lines are tracked as bits of a long
+    private static final int MAX_LINES = 64;
+
+    private OrderSplitPlanner() {
+    }
+
+    /**
+     * Split a cart into one sub-cart per branch, the preferred branch first if it is used
+     *
+     * @param items Map of drink IDs to quantities
+     * @param preferredBranchId The branch the customer chose
+     * @param stock Stock levels keyed by branch ID then drink ID
+     * @param load Load score of each branch, lower is better; missing branches count as 0
+     * @return Map of branch ID to the drink quantities that branch supplies
+     * @throws RemoteException if some line cannot be supplied by any single branch
+     */
+    static Map<Long, Map<Long, Integer>> plan(Map<Long, Integer> items, Long preferredBranchId,
+                                             Map<Long, Map<Long, Integer>> stock, Map<Long, Double> load) throws RemoteException {
+        if (items.size() > MAX_LINES) {
+            throw new RemoteException("Cannot split an order of more than " + MAX_LINES + " different drinks");
+        }
+        List<Long> drinkIds = new ArrayList<>(items.keySet());
+        List<Long> branchIds = new ArrayList<>();
+        List<Long> coverage = new ArrayList<>();
+
+        // Bit i of a branch's coverage is set when it can supply line i in full
+        for (Long branchId : new TreeSet<>(stock.keySet())) {
+            long covered = 0;
+            for (int i = 0; i < drinkIds.size(); i++) {
+                Integer onHand = stock.get(branchId).get(drinkIds.get(i));
+                if (onHand != null && onHand >= items.get(drinkIds.get(i))) {
+                    covered |= 1L << i;
+                }
+            }
+            if (covered != 0) {
+                branchIds.add(branchId);
+                coverage.add(covered);
+            }
+        }
+
+        long all = drinkIds.size() == MAX_LINES ? -1L : (1L << drinkIds.size()) - 1;
+        long coverable = 0;
+        for (long covered : coverage) {
+            coverable |= covered;
+        }
+        for (int i = 0; i < drinkIds.size(); i++) {
+            if ((coverable & (1L << i)) == 0) {
+                throw new RemoteException("No branch has enough stock of drink ID " + drinkIds.get(i) +
+                                          " for " + items.get(drinkIds.get(i)) + " units");
+            }
+        }
+
+        List<Long> chosen = branchIds.size() <= MAX_EXACT_BRANCHES
+            ? exactCover(branchIds, coverage, all, preferredBranchId, load)
+            : greedyCover(branchIds, coverage, all, preferredBranchId, load);
+        return assign(items, drinkIds, chosen, preferredBranchId, stock, load);
+    }
+
+    private static List<Long> exactCover(List<Long> branchIds, List<Long> coverage, long all,
+                                         Long preferredBranchId, Map<Long, Double> load) {
+        int n = branchIds.size();
+        int bestMask = 0;
+        int bestSize = Integer.MAX_VALUE;
+        boolean bestHasPreferred = false;
+        double bestLoad = Double.MAX_VALUE;
+
+        for (int mask = 1; mask < (1 << n); mask++) {
+            int size = Integer.bitCount(mask);
+            if (size > bestSize) {
+                continue;
+            }
+            long covered = 0;
+            boolean hasPreferred = false;
+            double totalLoad = 0;
+            for (int b = 0; b < n; b++) {
+                if ((mask & (1 << b)) != 0) {
+                    covered |= coverage.get(b);
+                    hasPreferred |= branchIds.get(b).equals(preferredBranchId);
+                    totalLoad += load.getOrDefault(branchIds.get(b), 0.0);
+                }
+            }
+            if (covered != all) {
+                continue;
+            }
+            boolean better = size < bestSize
+                || (hasPreferred && !bestHasPreferred)
+                || (hasPreferred == bestHasPreferred && totalLoad < bestLoad);
+            if (better) {
+                bestMask = mask;
+                bestSize = size;
+                bestHasPreferred = hasPreferred;
+                bestLoad = totalLoad;
+            }
+        }
+
+        List<Long> chosen = new ArrayList<>();
+        for (int b = 0; b < n; b++) {
+            if ((bestMask & (1 << b)) != 0) {
+                chosen.add(branchIds.get(b));
+            }
+        }
+        return chosen;
+    }
+
+    private static List<Long> greedyCover(List<Long> branchIds, List<Long> coverage, long all,
+                                          Long preferredBranchId, Map<Long, Double> load) {
+        List<Long> chosen = new ArrayList<>();
+        long covered = 0;
+        int preferred = branchIds.indexOf(preferredBranchId);
+        if (preferred >= 0) {
+            chosen.add(preferredBranchId);
+            covered = coverage.get(preferred);
+        }
+        while (covered != all) {
+            int best = -1;
+            int bestGain = 0;
+            for (int b = 0; b < branchIds.size(); b++) {
+                int gain = Long.bitCount(coverage.get(b) & ~covered);
+                if (gain > bestGain || (gain == bestGain && gain > 0
+                        && load.getOrDefault(branchIds.get(b), 0.0) < load.getOrDefault(branchIds.get(best), 0.0))) {
+                    best = b;
+                    bestGain = gain;
+                }
+            }
+            chosen.add(branchIds.get(best));
+            covered |= coverage.get(best);
+        }
+        return chosen;
+    }
+
+    /**
+     * Give each line to a chosen branch that can supply it, preferring the customer's branch, then the least loaded
+     */
+    private static Map<Long, Map<Long, Integer>> assign(Map<Long, Integer> items, List<Long> drinkIds, List<Long> chosen,
+                                                        Long preferredBranchId, Map<Long, Map<Long, Integer>> stock,
+                                                        Map<Long, Double> load) {
+        Map<Long, Map<Long, Integer>> plan = new LinkedHashMap<>();
+        if (chosen.contains(preferredBranchId)) {
+            plan.put(preferredBranchId, new LinkedHashMap<>());
+        }
+
+        for (Long drinkId : drinkIds) {
+            int quantity = items.get(drinkId);
+            Long target = null;
+            for (Long branchId : chosen) {
+                Integer onHand = stock.get(branchId).get(drinkId);
+                if (onHand == null || onHand < quantity) {
+                    continue;
+                }
+                if (target == null || branchId.equals(preferredBranchId)
+                        || (!target.equals(preferredBranchId)
+                            && load.getOrDefault(branchId, 0.0) < load.getOrDefault(target, 0.0))) {
+                    target = branchId;
+                }
+            }
+            plan.computeIfAbsent(target, id -> new LinkedHashMap<>()).put(drinkId, quantity);
+        }
+
+        plan.values().removeIf(Map::isEmpty);
+        return plan;
+    }
+}
@@ -1,6 +1,7 @@
 package com.drinks.rmi.server;
 
 import com.drinks.rmi.common.DatabaseConfig;
+import com.drinks.rmi.common.UnitOfWork;
 import com.drinks.rmi.dto.PaymentDTO;
 import com.drinks.rmi.dto.PaymentResultDTO;
 import com.drinks.rmi.dto.UserDTO;
@@ -16,7 +17,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -29,10 +29,20 @@ import java.util.UUID;
 public class PaymentServiceImpl extends UnicastRemoteObject implements PaymentService {
     private static final Logger logger = LoggerFactory.getLogger(PaymentServiceImpl.class);
     
+    private volatile LoyaltyLedger loyaltyLedger;
+    
     public PaymentServiceImpl() throws RemoteException {
         super();
     }
     
+    /**
+     * Set the loyalty ledger of this process, whose cached balances answer reads; without one
+     * balances are read from the database
+     */
+    public void setLoyaltyLedger(LoyaltyLedger loyaltyLedger) {
+        this.loyaltyLedger = loyaltyLedger;
+    }
+    
     @Override
     public PaymentResultDTO processPayment(UserDTO currentUser, Long orderId, BigDecimal amount, 
                                           String paymentMethod, String paymentDetails) throws RemoteException {
@@ -64,15 +74,22 @@ public class PaymentServiceImpl extends UnicastRemoteObject implements PaymentSe
         boolean paymentSuccessful = simulatePaymentResult(paymentMethod, paymentDetails);
         
         if (paymentSuccessful) {
-            // Save payment record to database
-            if (savePaymentRecord(currentUser, orderId, amount, paymentMethod, transactionId, "SUCCESS")) {
-                // Update order status to PAID
-                updateOrderStatus(orderId, "PAID");
-                
-                return PaymentResultDTO.success(transactionId, amount, orderId, paymentMethod);
-            } else {
-                return PaymentResultDTO.failed("Failed to record payment", amount, orderId, paymentMethod);
+            // Save the payment record and mark the order PAID in one transaction, so neither is kept without the other
+            try {
+                boolean recorded = UnitOfWork.run(conn -> {
+                    if (!savePaymentRecord(currentUser, orderId, amount, paymentMethod, transactionId, "SUCCESS")) {
+                        return false;
+                    }
+                    updateOrderStatus(orderId, "PAID");
+                    return true;
+                });
+                if (recorded) {
+                    return PaymentResultDTO.success(transactionId, amount, orderId, paymentMethod);
+                }
+            } catch (SQLException e) {
+                logger.error("Database error while recording payment for order {}", orderId, e);
             }
+            return PaymentResultDTO.failed("Failed to record payment", amount, orderId, paymentMethod);
         } else {
             // Save failed payment attempt
             savePaymentRecord(currentUser, orderId, amount, paymentMethod, transactionId, "FAILED");
@@ -204,15 +221,16 @@ public class PaymentServiceImpl extends UnicastRemoteObject implements PaymentSe
                                      String paymentMethod, String transactionId, String status) {
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(
-                 "INSERT INTO payments (order_id, customer_id, amount, payment_method, transaction_id, status, created_at) " +
-                 "VALUES (?, ?, ?, ?, ?, ?, NOW())", Statement.RETURN_GENERATED_KEYS)) {
+                 "INSERT INTO payments (id, order_id, customer_id, amount, payment_method, transaction_id, status, created_at) " +
+                 "VALUES (?, ?, ?, ?, ?, ?, ?, NOW())")) {
             
-            stmt.setLong(1, orderId);
-            stmt.setLong(2, currentUser.getCustomerId());
-            stmt.setBigDecimal(3, amount);
-            stmt.setString(4, paymentMethod);
-            stmt.setString(5, transactionId);
-            stmt.setString(6, status);
+            stmt.setLong(1, IdGenerator.shared().nextId());
+            stmt.setLong(2, orderId);
+            stmt.setLong(3, currentUser.getCustomerId());
+            stmt.setBigDecimal(4, amount);
+            stmt.setString(5, paymentMethod);
+            stmt.setString(6, transactionId);
+            stmt.setString(7, status);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -223,18 +241,57 @@ public class PaymentServiceImpl extends UnicastRemoteObject implements PaymentSe
         }
     }
     
+    @Override
+    public long getLoyaltyPoints(UserDTO currentUser, Long customerId) throws RemoteException {
+        if (customerId == null) {
+            throw new RemoteException("Customer is required");
+        }
+        if ("customer".equals(currentUser.getRole())) {
+            if (!customerId.equals(currentUser.getCustomerId())) {
+                throw new RemoteException("You can only view your own loyalty points");
+            }
+        } else {
+            RoleBasedAccessControl.checkPermission(currentUser, "payment:read");
+        }
+        
+        try {
+            LoyaltyLedger ledger = loyaltyLedger;
+            if (ledger != null) {
+                return ledger.getPoints(customerId);
+            }
+            try (Connection conn = DatabaseConfig.getConnection()) {
+                return LoyaltyLedger.readBalance(conn, customerId);
+            }
+        } catch (SQLException e) {
+            logger.error("Database error while reading loyalty points for customer {}", customerId, e);
+            throw new RemoteException("Failed to read loyalty points due to database error", e);
+        }
+    }
+    
     /**
-     * Update order status after payment
+     * Update order status after payment, recording the change in the order outbox in the same transaction
+     * Inside a unit of work a failure rolls back the whole unit, payment record included.
      */
     private void updateOrderStatus(Long orderId, String status) {
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                 "UPDATE orders SET status = ? WHERE id = ?")) {
-            
-            stmt.setString(1, status);
-            stmt.setLong(2, orderId);
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
             
-            stmt.executeUpdate();
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement("UPDATE orders SET status = ? WHERE id = ?")) {
+                    stmt.setString(1, status);
+                    stmt.setLong(2, orderId);
+                    if (stmt.executeUpdate() > 0) {
+                        OrderOutbox.appendStatusChanges(conn, List.of(orderId));
+                    }
+                }
+                conn.commit();
+                
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
             
         } catch (SQLException e) {
             logger.error("Database error while updating order status", e);
@@ -0,0 +1,110 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the promotion rules used to price orders
+ * Rules are read from the promotions table into a new PromotionIndex and swapped in with a single
+ * volatile write, so an order is always priced against one complete rule set. The table is re-read
+ * periodically (every 60 seconds by default, set with -Ddrinks.promotions.refreshSeconds).
+ */
+public class PromotionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionEngine.class);
+    private static final long REFRESH_SECONDS = Long.getLong("drinks.promotions.refreshSeconds", 60);
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "promotion-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile PromotionIndex index = PromotionIndex.EMPTY;
+
+    public PromotionEngine() {
+        reload();
+        refresher.scheduleWithFixedDelay(this::reload, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The rule set to price with; callers take it once per order or batch
+     */
+    PromotionIndex current() {
+        return index;
+    }
+
+    /**
+     * Re-read the active promotions and swap them in
+     * On a database error the previous rules stay in effect
+     */
+    public void reload() {
+        String sql = """
+            SELECT id, name, branch_id, drink_id, discount_percent, min_quantity,
+                   start_time, end_time, valid_from, valid_until
+            FROM promotions
+            WHERE active = TRUE AND (valid_until IS NULL OR valid_until > ?)
+            """;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ResultSet rs = stmt.executeQuery();
+
+            List<PromotionIndex.Rule> rules = new ArrayList<>();
+            while (rs.next()) {
+                Time start = rs.getTime("start_time");
+                Time end = rs.getTime("end_time");
+                Timestamp validFrom = rs.getTimestamp("valid_from");
+                Timestamp validUntil = rs.getTimestamp("valid_until");
+                boolean daily = start != null && end != null;
+
+                rules.add(new PromotionIndex.Rule(
+                    rs.getLong("id"),
+                    rs.getString("name"),
+                    rs.getLong("branch_id"),
+                    rs.getLong("drink_id"),
+                    rs.getBigDecimal("discount_percent"),
+                    rs.getInt("min_quantity"),
+                    daily ? minuteOfDay(start) : -1,
+                    daily ? minuteOfDay(end) : -1,
+                    validFrom != null ? validFrom.toLocalDateTime() : null,
+                    validUntil != null ? validUntil.toLocalDateTime() : null
+                ));
+            }
+
+            PromotionIndex previous = index;
+            index = new PromotionIndex(rules);
+            if (previous.size() != rules.size()) {
+                logger.info("Loaded {} active promotions", rules.size());
+            }
+
+        } catch (SQLException e) {
+            logger.warn("Failed to load promotions, keeping {} current rules", index.size(), e);
+        }
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static int minuteOfDay(Time time) {
+        LocalTime local = time.toLocalTime();
+        return local.getHour() * 60 + local.getMinute();
+    }
+}
@@ -0,0 +1,144 @@
+package com.drinks.rmi.server;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable lookup of active promotions keyed by (branch, drink)
+ * A rule without a branch or drink is stored under 0 and applies to all of them.
+ * Lookups binary-search a sorted key array and scan short rule arrays, so pricing a line
+ * does not allocate and does not touch the database.
+ */
+final class PromotionIndex {
+
+    static final PromotionIndex EMPTY = new PromotionIndex(List.of());
+
+    /**
+     * One discount rule: a percentage off lines of at least minQuantity, inside an optional
+     * daily time window and an optional validity period
+     */
+    static final class Rule {
+        final long id;
+        final String name;
+        final long branchId;
+        final long drinkId;
+        final BigDecimal discountPercent;
+        final int minQuantity;
+        final int startMinute;
+        final int endMinute;
+        final long validFrom;
+        final long validUntil;
+
+        /**
+         * @param branchId The branch, or 0 for all branches
+         * @param drinkId The drink, or 0 for all drinks
+         * @param startMinute Minute of the day the window opens, or -1 for all day
+         * @param endMinute Minute of the day the window closes (exclusive); may be before startMinute to span midnight
+         * @param validFrom First moment the rule applies, or null for no start
+         * @param validUntil Moment the rule stops applying, or null for no end
+         */
+        Rule(long id, String name, long branchId, long drinkId, BigDecimal discountPercent, int minQuantity,
+             int startMinute, int endMinute, LocalDateTime validFrom, LocalDateTime validUntil) {
+            this.id = id;
+            this.name = name;
+            this.branchId = branchId;
+            this.drinkId = drinkId;
+            this.discountPercent = discountPercent;
+            this.minQuantity = Math.max(1, minQuantity);
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+            this.validFrom = validFrom != null ? epochSecond(validFrom) : Long.MIN_VALUE;
+            this.validUntil = validUntil != null ? epochSecond(validUntil) : Long.MAX_VALUE;
+        }
+
+        boolean appliesTo(int quantity, long second, int minuteOfDay) {
+            if (quantity < minQuantity || second < validFrom || second >= validUntil) {
+                return false;
+            }
+            if (startMinute < 0) {
+                return true;
+            }
+            return startMinute <= endMinute
+                ? minuteOfDay >= startMinute && minuteOfDay < endMinute
+                : minuteOfDay >= startMinute || minuteOfDay < endMinute;
+        }
+    }
+
+    private static final Comparator<Rule> BEST_FIRST =
+        Comparator.comparing((Rule rule) -> rule.discountPercent).reversed().thenComparingLong(rule -> rule.id);
+
+    private final long[] keys;
+    private final Rule[][] rules;
+    private final int size;
+
+    PromotionIndex(Collection<Rule> allRules) {
+        Map<Long, List<Rule>> byKey = new TreeMap<>();
+        for (Rule rule : allRules) {
+            byKey.computeIfAbsent(key(rule.branchId, rule.drinkId), k -> new ArrayList<>()).add(rule);
+        }
+
+        this.keys = new long[byKey.size()];
+        this.rules = new Rule[byKey.size()][];
+        int i = 0;
+        for (Map.Entry<Long, List<Rule>> entry : byKey.entrySet()) {
+            Rule[] bucket = entry.getValue().toArray(new Rule[0]);
+            Arrays.sort(bucket, BEST_FIRST);
+            keys[i] = entry.getKey();
+            rules[i] = bucket;
+            i++;
+        }
+        this.size = allRules.size();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Find the rule giving the largest discount on a line, or null if none applies
+     * Rules do not stack; the best one wins and ties go to the oldest rule
+     */
+    Rule bestRule(long branchId, long drinkId, int quantity, LocalDateTime orderTime) {
+        if (keys.length == 0) {
+            return null;
+        }
+        long second = epochSecond(orderTime);
+        int minuteOfDay = orderTime.getHour() * 60 + orderTime.getMinute();
+
+        Rule best = bestIn(key(branchId, drinkId), null, quantity, second, minuteOfDay);
+        best = bestIn(key(branchId, 0), best, quantity, second, minuteOfDay);
+        best = bestIn(key(0, drinkId), best, quantity, second, minuteOfDay);
+        return bestIn(key(0, 0), best, quantity, second, minuteOfDay);
+    }
+
+    private Rule bestIn(long key, Rule best, int quantity, long second, int minuteOfDay) {
+        int slot = Arrays.binarySearch(keys, key);
+        if (slot < 0) {
+            return best;
+        }
+        // Buckets are sorted best first, so the first match is the bucket's best
+        for (Rule rule : rules[slot]) {
+            if (rule.appliesTo(quantity, second, minuteOfDay)) {
+                return best == null || BEST_FIRST.compare(rule, best) < 0 ? rule : best;
+            }
+        }
+        return best;
+    }
+
+    private static long key(long branchId, long drinkId) {
+        return (branchId << 32) | drinkId;
+    }
+
+    // Order times and rule periods are both local wall-clock times, so any fixed offset compares them correctly
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,112 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+import com.drinks.rmi.dto.RecentOrdersDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recently committed orders of one branch
+ * Writers claim a sequence number and publish into its slot; readers copy the slots after a
+ * sequence number without blocking writers. Callers publish their own copy of an order, which is
+ * never modified afterwards; a status change is published as a new copy of the order.
+ */
+public class RecentOrdersBuffer {
+    
+    private static final class Slot {
+        private final long seq;
+        private final OrderDTO order;
+        
+        Slot(long seq, OrderDTO order) {
+            this.seq = seq;
+            this.order = order;
+        }
+    }
+    
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong seq = new AtomicLong();
+    private final int mask;
+    
+    public RecentOrdersBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    public void publish(OrderDTO order) {
+        long next = seq.incrementAndGet();
+        slots.set((int) (next & mask), new Slot(next, order));
+    }
+    
+    /**
+     * Republish buffered orders with a new status; orders no longer in the ring are skipped
+     */
+    public void publishStatus(Collection<Long> orderIds, String status) {
+        List<OrderDTO> updated = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            OrderDTO latest = findLatest(orderId);
+            if (latest != null && !status.equals(latest.getStatus())) {
+                updated.add(copyWithStatus(latest, status));
+            }
+        }
+        for (OrderDTO order : updated) {
+            publish(order);
+        }
+    }
+    
+    /**
+     * Read the orders published after sinceSeq, oldest first
+     */
+    public RecentOrdersDTO readSince(long sinceSeq) {
+        long latest = seq.get();
+        long oldest = Math.max(1, latest - slots.length() + 1);
+        
+        // The caller has missed orders that were already overwritten
+        if (sinceSeq > latest || (sinceSeq > 0 && sinceSeq < oldest - 1)) {
+            return new RecentOrdersDTO(latest, new ArrayList<>(), true);
+        }
+        
+        List<OrderDTO> orders = new ArrayList<>();
+        for (long s = Math.max(sinceSeq + 1, oldest); s <= latest; s++) {
+            Slot slot = slots.get((int) (s & mask));
+            if (slot == null || slot.seq < s) {
+                // Claimed by a writer that has not published yet; the caller picks it up next time
+                return new RecentOrdersDTO(s - 1, orders, false);
+            }
+            if (slot.seq > s) {
+                // Overwritten while reading
+                return new RecentOrdersDTO(seq.get(), new ArrayList<>(), true);
+            }
+            orders.add(slot.order);
+        }
+        return new RecentOrdersDTO(latest, orders, false);
+    }
+    
+    private OrderDTO findLatest(Long orderId) {
+        long latest = seq.get();
+        long oldest = Math.max(1, latest - slots.length() + 1);
+        for (long s = latest; s >= oldest; s--) {
+            Slot slot = slots.get((int) (s & mask));
+            if (slot != null && slot.seq == s && orderId.equals(slot.order.getId())) {
+                return slot.order;
+            }
+        }
+        return null;
+    }
+    
+    static OrderDTO copyWithStatus(OrderDTO order, String status) {
+        OrderDTO copy = new OrderDTO(order.getId(), order.getCustomerId(), order.getCustomerName(),
+                                     order.getBranchId(), order.getBranchName(), order.getOrderTime());
+        copy.setTotalAmount(order.getTotalAmount());
+        copy.setItems(order.getItems() != null ? new ArrayList<>(order.getItems()) : null);
+        copy.setOrderDate(order.getOrderDate());
+        copy.setIdempotencyKey(order.getIdempotencyKey());
+        copy.setSplitGroupId(order.getSplitGroupId());
+        copy.setStatus(status);
+        return copy;
+    }
+}
@@ -3,12 +3,14 @@ package com.drinks.rmi.server;
 import com.drinks.rmi.common.DatabaseConfig;
 import com.drinks.rmi.dto.CustomerReportDTO;
 import com.drinks.rmi.dto.DrinkPopularityReportDTO;
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
 import com.drinks.rmi.dto.OrderDTO;
-import com.drinks.rmi.dto.OrderItemDTO;
 import com.drinks.rmi.dto.SalesReportDTO;
 import com.drinks.rmi.dto.StockDTO;
 import com.drinks.rmi.dto.StockReportDTO;
+import com.drinks.rmi.dto.UserDTO;
 import com.drinks.rmi.interfaces.*;
+import com.drinks.rmi.server.security.RoleBasedAccessControl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,10 +31,19 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
     
     private static final Logger logger = LoggerFactory.getLogger(ReportServiceImpl.class);
     
+    private volatile FulfilmentLatency fulfilmentLatency;
+    
     public ReportServiceImpl() throws RemoteException {
         super();
     }
     
+    /**
+     * Set the fulfilment latency histograms fed by the outbox relay of this process
+     */
+    public void setFulfilmentLatency(FulfilmentLatency fulfilmentLatency) {
+        this.fulfilmentLatency = fulfilmentLatency;
+    }
+    
     @Override
     public SalesReportDTO generateBranchSalesReport(Long branchId, LocalDate startDate, LocalDate endDate) throws RemoteException {
         logger.info("Generating sales report for branch ID: {} from {} to {}", branchId, startDate, endDate);
@@ -54,11 +65,12 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
             // Get total orders and sales
             String totalSql = """
                 SELECT COUNT(DISTINCT o.id) as total_orders, 
-                       COALESCE(SUM(oi.quantity * d.price), 0) as total_sales
+                       COALESCE(SUM(oi.quantity * oi.unit_price - oi.discount_amount), 0) as total_sales,
+                       COALESCE(SUM(oi.discount_amount), 0) as total_discounts
                 FROM orders o
                 LEFT JOIN order_items oi ON o.id = oi.order_id
                 LEFT JOIN drinks d ON oi.drink_id = d.id
-                WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ?
+                WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ? AND o.status <> 'CANCELLED'
                 """;
                 
             try (Connection conn = DatabaseConfig.getConnection();
@@ -72,6 +84,7 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
                 if (rs.next()) {
                     report.setTotalOrders(rs.getInt("total_orders"));
                     report.setTotalSales(BigDecimal.valueOf(rs.getDouble("total_sales")));
+                    report.setTotalDiscounts(rs.getBigDecimal("total_discounts"));
                 }
             }
         } catch (SQLException e) {
@@ -81,11 +94,11 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         
         // Get sales by drink
         String drinkSql = """
-            SELECT d.name as drink_name, SUM(oi.quantity * d.price) as drink_sales
+            SELECT d.name as drink_name, SUM(oi.quantity * oi.unit_price - oi.discount_amount) as drink_sales
             FROM orders o
             JOIN order_items oi ON o.id = oi.order_id
             JOIN drinks d ON oi.drink_id = d.id
-            WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ?
+            WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ? AND o.status <> 'CANCELLED'
             GROUP BY d.id, d.name
             ORDER BY drink_sales DESC
             """;
@@ -113,11 +126,11 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         
         // Get sales by date
         String dateSql = """
-            SELECT DATE(o.order_time) as order_date, SUM(oi.quantity * d.price) as daily_sales
+            SELECT DATE(o.order_time) as order_date, SUM(oi.quantity * oi.unit_price - oi.discount_amount) as daily_sales
             FROM orders o
             JOIN order_items oi ON o.id = oi.order_id
             JOIN drinks d ON oi.drink_id = d.id
-            WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ?
+            WHERE o.branch_id = ? AND DATE(o.order_time) BETWEEN ? AND ? AND o.status <> 'CANCELLED'
             GROUP BY DATE(o.order_time)
             ORDER BY order_date
             """;
@@ -326,16 +339,16 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
                     rs.getTimestamp("order_time").toLocalDateTime()
                 );
                 
-                // Get order items and calculate total
-                List<OrderItemDTO> items = getOrderItems(order.getId());
-                order.setItems(items);
-                
-                double totalAmount = items.stream()
+                orders.add(order);
+            }
+            
+            // Load the items of all orders at once and calculate totals
+            OrderItemLoader.attachItems(conn, orders);
+            for (OrderDTO order : orders) {
+                double totalAmount = order.getItems().stream()
                     .mapToDouble(item -> item.getSubtotal().doubleValue())
                     .sum();
                 order.setTotalAmount(totalAmount);
-                
-                orders.add(order);
             }
             
             report.setOrders(orders);
@@ -358,12 +371,12 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         String sql = """
             SELECT d.id as drink_id, d.name as drink_name, 
                    SUM(oi.quantity) as total_quantity_sold,
-                   SUM(oi.quantity * d.price) as total_revenue,
+                   SUM(oi.quantity * oi.unit_price - oi.discount_amount) as total_revenue,
                    COUNT(DISTINCT o.id) as order_count
             FROM orders o
             JOIN order_items oi ON o.id = oi.order_id
             JOIN drinks d ON oi.drink_id = d.id
-            WHERE DATE(o.order_time) BETWEEN ? AND ?
+            WHERE DATE(o.order_time) BETWEEN ? AND ? AND o.status <> 'CANCELLED'
             GROUP BY d.id, d.name
             ORDER BY total_quantity_sold DESC, total_revenue DESC
             """;
@@ -412,9 +425,9 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         String sql = """
             SELECT c.id, c.name, c.email, c.phone, 
                    COUNT(DISTINCT o.id) as order_count,
-                   COALESCE(SUM(oi.quantity * d.price), 0) as total_spent
+                   COALESCE(SUM(oi.quantity * oi.unit_price - oi.discount_amount), 0) as total_spent
             FROM customers c
-            LEFT JOIN orders o ON c.id = o.customer_id
+            LEFT JOIN orders o ON c.id = o.customer_id AND o.status <> 'CANCELLED'
             LEFT JOIN order_items oi ON o.id = oi.order_id
             LEFT JOIN drinks d ON oi.drink_id = d.id
             WHERE DATE(o.order_time) BETWEEN ? AND ? OR o.id IS NULL
@@ -455,12 +468,12 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         String sql = """
             SELECT d.id as drink_id, d.name as drink_name, 
                    SUM(oi.quantity) as total_quantity,
-                   SUM(oi.quantity * oi.unit_price) as total_revenue,
+                   SUM(oi.quantity * oi.unit_price - oi.discount_amount) as total_revenue,
                    COUNT(DISTINCT o.id) as order_count
             FROM drinks d
             JOIN order_items oi ON d.id = oi.drink_id
             JOIN orders o ON oi.order_id = o.id
-            WHERE DATE(o.order_time) BETWEEN ? AND ?
+            WHERE DATE(o.order_time) BETWEEN ? AND ? AND o.status <> 'CANCELLED'
             GROUP BY d.id, d.name
             ORDER BY total_quantity DESC
             """;
@@ -491,52 +504,68 @@ public class ReportServiceImpl extends UnicastRemoteObject implements ReportServ
         return report;
     }
     
-    private String getBranchName(Long branchId) throws SQLException {
-        String sql = "SELECT name FROM branches WHERE id = ?";
+    @Override
+    public FulfilmentLatencyDTO getBranchFulfilmentLatency(UserDTO currentUser, Long branchId) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "report:read");
+        RoleBasedAccessControl.checkBranchAccess(currentUser, branchId);
+        FulfilmentLatency latency = requireFulfilmentLatency();
+        
+        try {
+            String branchName = getBranchName(branchId);
+            if (branchName == null) {
+                throw new RemoteException("Branch not found with ID: " + branchId);
+            }
+            return latency.describe(branchId, branchName);
+        } catch (SQLException e) {
+            logger.error("Error getting branch name for ID: {}", branchId, e);
+            throw new RemoteException("Failed to generate fulfilment latency report due to database error", e);
+        }
+    }
+    
+    @Override
+    public Map<Long, FulfilmentLatencyDTO> getAllBranchesFulfilmentLatency(UserDTO currentUser) throws RemoteException {
+        RoleBasedAccessControl.checkPermission(currentUser, "report:read");
+        // Only roles with access to every branch pass a check against no particular branch
+        RoleBasedAccessControl.checkBranchAccess(currentUser, null);
+        FulfilmentLatency latency = requireFulfilmentLatency();
         
+        Map<Long, FulfilmentLatencyDTO> reports = new HashMap<>();
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, branchId);
-            ResultSet rs = stmt.executeQuery();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM branches");
+             ResultSet rs = stmt.executeQuery()) {
             
-            if (rs.next()) {
-                return rs.getString("name");
+            while (rs.next()) {
+                Long branchId = rs.getLong("id");
+                reports.put(branchId, latency.describe(branchId, rs.getString("name")));
             }
-            return null;
+        } catch (SQLException e) {
+            logger.error("Error generating all branches fulfilment latency report", e);
+            throw new RemoteException("Failed to generate fulfilment latency report due to database error", e);
         }
+        return reports;
     }
     
-    private List<OrderItemDTO> getOrderItems(Long orderId) throws SQLException {
-        String sql = """
-            SELECT oi.id, oi.order_id, oi.drink_id, d.name as drink_name, oi.quantity, d.price
-            FROM order_items oi
-            JOIN drinks d ON oi.drink_id = d.id
-            WHERE oi.order_id = ?
-            ORDER BY d.name
-            """;
-        
-        List<OrderItemDTO> items = new ArrayList<>();
+    private FulfilmentLatency requireFulfilmentLatency() throws RemoteException {
+        FulfilmentLatency latency = fulfilmentLatency;
+        if (latency == null) {
+            throw new RemoteException("Fulfilment latency is only tracked at the HQ server");
+        }
+        return latency;
+    }
+    
+    private String getBranchName(Long branchId) throws SQLException {
+        String sql = "SELECT name FROM branches WHERE id = ?";
         
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setLong(1, orderId);
+            stmt.setLong(1, branchId);
             ResultSet rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                OrderItemDTO item = new OrderItemDTO(
-                    rs.getLong("id"),
-                    rs.getLong("order_id"),
-                    rs.getLong("drink_id"),
-                    rs.getString("drink_name"),
-                    rs.getInt("quantity"),
-                    rs.getBigDecimal("price")
-                );
-                items.add(item);
+            if (rs.next()) {
+                return rs.getString("name");
             }
+            return null;
         }
-        
-        return items;
     }
 }
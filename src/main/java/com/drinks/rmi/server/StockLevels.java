@@ -0,0 +1,111 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.common.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of every branch's stock levels and branch names, for planning and availability hints
+ * The whole stocks table is re-read periodically (every 5 seconds by default, set with
+ * -Ddrinks.stock.refreshSeconds), and committed reservations are applied in between.
+ * Levels may lag behind the database; the conditional stock UPDATE made when an order is placed
+ * remains the only authoritative check.
+ */
+public class StockLevels {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLevels.class);
+    private static final long REFRESH_SECONDS = Long.getLong("drinks.stock.refreshSeconds", 5);
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-levels-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, Map<Long, Integer>> levels = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> branchNames = Map.of();
+
+    public StockLevels() {
+        reload();
+        refresher.scheduleWithFixedDelay(this::reload, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Units of a drink on hand at a branch, 0 if unknown
+     */
+    public int available(Long branchId, Long drinkId) {
+        Map<Long, Integer> branch = levels.get(branchId);
+        if (branch == null) {
+            return 0;
+        }
+        Integer quantity = branch.get(drinkId);
+        return quantity != null ? quantity : 0;
+    }
+
+    /**
+     * Stock levels of every branch, keyed by branch ID then drink ID
+     */
+    public Map<Long, Map<Long, Integer>> snapshot() {
+        Map<Long, Map<Long, Integer>> copy = new HashMap<>();
+        for (Map.Entry<Long, Map<Long, Integer>> branch : levels.entrySet()) {
+            copy.put(branch.getKey(), new HashMap<>(branch.getValue()));
+        }
+        return copy;
+    }
+
+    public Map<Long, String> getBranchNames() {
+        return branchNames;
+    }
+
+    /**
+     * Apply a committed change of stock, e.g. a negative quantity for a reservation
+     */
+    public void adjust(Long branchId, Long drinkId, int delta) {
+        levels.computeIfAbsent(branchId, id -> new ConcurrentHashMap<>()).merge(drinkId, delta, Integer::sum);
+    }
+
+    /**
+     * Re-read all stock levels and branch names; on a database error the current levels are kept
+     */
+    public void reload() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            Map<Long, String> names = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM branches")) {
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    names.put(rs.getLong("id"), rs.getString("name"));
+                }
+            }
+
+            Map<Long, Map<Long, Integer>> loaded = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT branch_id, drink_id, quantity FROM stocks")) {
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    loaded.computeIfAbsent(rs.getLong("branch_id"), id -> new ConcurrentHashMap<>())
+                          .put(rs.getLong("drink_id"), rs.getInt("quantity"));
+                }
+            }
+
+            branchNames = Map.copyOf(names);
+            levels.keySet().retainAll(loaded.keySet());
+            levels.putAll(loaded);
+
+        } catch (SQLException e) {
+            logger.warn("Failed to refresh stock levels, keeping the previous levels", e);
+        }
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
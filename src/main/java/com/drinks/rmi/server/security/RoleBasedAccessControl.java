@@ -182,9 +182,7 @@ public class RoleBasedAccessControl {
      */
     public static void checkBranchAccess(UserDTO user, Long branchId) throws RemoteException {
         // Admin and global managers have access to all branches
-        if (user.getRole().equalsIgnoreCase("admin") || 
-            user.getRole().equalsIgnoreCase("global_manager") ||
-            user.getRole().equalsIgnoreCase("auditor")) {
+        if (hasAllBranchAccess(user)) {
             return;
         }
         
@@ -196,6 +194,21 @@ public class RoleBasedAccessControl {
         }
     }
     
+    /**
+     * Check if a user's role covers every branch: admin, global manager or auditor
+     * The users table stores the global manager role as "globalmanager"; "global_manager" is accepted too.
+     * 
+     * @param user The user to check
+     * @return true if the user may act on any branch
+     */
+    public static boolean hasAllBranchAccess(UserDTO user) {
+        if (user == null || user.getRole() == null) {
+            return false;
+        }
+        String role = user.getRole().toLowerCase().trim().replace("_", "");
+        return role.equals("admin") || role.equals("globalmanager") || role.equals("auditor");
+    }
+    
     /**
      * Check if a user has access to a specific order
      * Used for order-specific operations
@@ -210,7 +223,7 @@ public class RoleBasedAccessControl {
         String role = user.getRole().toLowerCase();
         
         // Admin, global managers, and auditors have access to all orders
-        if (role.equals("admin") || role.equals("global_manager") || role.equals("auditor")) {
+        if (hasAllBranchAccess(user)) {
             return;
         }
         
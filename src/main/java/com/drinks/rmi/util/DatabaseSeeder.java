@@ -74,6 +74,8 @@ public class DatabaseSeeder {
             // Drop tables in reverse dependency order
             stmt.executeUpdate("DROP TABLE IF EXISTS payments");
             stmt.executeUpdate("DROP TABLE IF EXISTS notifications");
+            stmt.executeUpdate("DROP TABLE IF EXISTS order_outbox");
+            stmt.executeUpdate("DROP TABLE IF EXISTS promotions");
             stmt.executeUpdate("DROP TABLE IF EXISTS order_items");
             stmt.executeUpdate("DROP TABLE IF EXISTS orders");
             stmt.executeUpdate("DROP TABLE IF EXISTS stocks");
@@ -160,6 +162,12 @@ public class DatabaseSeeder {
                 "status VARCHAR(50) DEFAULT 'PENDING', " +
                 "total_amount DECIMAL(10,2) DEFAULT 0.00, " +
                 "payment_status VARCHAR(50) DEFAULT 'PENDING', " +
+                "idempotency_key VARCHAR(64) NULL, " +
+                "split_group_id BIGINT NULL, " +
+                "UNIQUE KEY uk_orders_idempotency_key (idempotency_key), " +
+                "INDEX idx_orders_split_group (split_group_id), " +
+                "INDEX idx_orders_time_id (order_time, id), " +
+                "INDEX idx_orders_branch_time_id (branch_id, order_time, id), " +
                 "FOREIGN KEY (customer_id) REFERENCES customers(id), " +
                 "FOREIGN KEY (branch_id) REFERENCES branches(id)" +
                 ")"
@@ -175,11 +183,48 @@ public class DatabaseSeeder {
                 "quantity INT NOT NULL, " +
                 "unit_price DECIMAL(10,2) NOT NULL, " +
                 "total_price DECIMAL(10,2) GENERATED ALWAYS AS (quantity * unit_price) STORED, " +
+                "discount_amount DECIMAL(10,2) NOT NULL DEFAULT 0.00, " +
                 "FOREIGN KEY (order_id) REFERENCES orders(id), " +
                 "FOREIGN KEY (drink_id) REFERENCES drinks(id)" +
                 ")"
             );
             
+            // Create promotions table
+            stmt.executeUpdate(
+                "CREATE TABLE promotions (" +
+                "id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "name VARCHAR(255) NOT NULL, " +
+                "branch_id BIGINT NULL, " +
+                "drink_id BIGINT NULL, " +
+                "discount_percent DECIMAL(5,2) NOT NULL, " +
+                "min_quantity INT NOT NULL DEFAULT 1, " +
+                "start_time TIME NULL, " +
+                "end_time TIME NULL, " +
+                "valid_from DATETIME NULL, " +
+                "valid_until DATETIME NULL, " +
+                "active BOOLEAN NOT NULL DEFAULT TRUE, " +
+                "FOREIGN KEY (branch_id) REFERENCES branches(id), " +
+                "FOREIGN KEY (drink_id) REFERENCES drinks(id)" +
+                ")"
+            );
+            
+            // Create order_outbox table
+            stmt.executeUpdate(
+                "CREATE TABLE order_outbox (" +
+                "id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "event_type VARCHAR(30) NOT NULL, " +
+                "order_id BIGINT NOT NULL, " +
+                "customer_id BIGINT NOT NULL, " +
+                "branch_id BIGINT NOT NULL, " +
+                "status VARCHAR(50) NOT NULL, " +
+                "total_amount DECIMAL(10,2) NOT NULL, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "dispatched_at TIMESTAMP NULL, " +
+                "INDEX idx_outbox_pending (dispatched_at, id), " +
+                "INDEX idx_outbox_branch (branch_id, id)" +
+                ")"
+            );
+            
             // Create notifications table
             stmt.executeUpdate(
                 "CREATE TABLE notifications (" +
@@ -230,6 +275,8 @@ public class DatabaseSeeder {
             // Clear tables in reverse dependency order (only if they exist)
             clearTableIfExists(stmt, "payments");
             clearTableIfExists(stmt, "notifications");
+            clearTableIfExists(stmt, "order_outbox");
+            clearTableIfExists(stmt, "promotions");
             clearTableIfExists(stmt, "order_items");
             clearTableIfExists(stmt, "orders");
             clearTableIfExists(stmt, "stocks");
@@ -245,6 +292,8 @@ public class DatabaseSeeder {
             resetAutoIncrementIfExists(stmt, "drinks");
             resetAutoIncrementIfExists(stmt, "orders");
             resetAutoIncrementIfExists(stmt, "notifications");
+            resetAutoIncrementIfExists(stmt, "order_outbox");
+            resetAutoIncrementIfExists(stmt, "promotions");
             resetAutoIncrementIfExists(stmt, "payments");
             
             // Re-enable foreign key checks
@@ -541,17 +590,17 @@ public class DatabaseSeeder {
     
     private void seedOrders(Connection conn) throws SQLException {
         logger.info("Seeding orders...");
-        String sql = "INSERT INTO orders (customer_id, branch_id, order_time, status) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO orders (id, customer_id, branch_id, order_time, status) VALUES (?, ?, ?, ?, ?)";
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, 1); stmt.setLong(2, 1); stmt.setString(3, "2024-01-15 10:30:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 2); stmt.setLong(2, 2); stmt.setString(3, "2024-01-15 14:20:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 3); stmt.setLong(2, 3); stmt.setString(3, "2024-01-16 09:15:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 1); stmt.setLong(2, 4); stmt.setString(3, "2024-01-16 16:45:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 2); stmt.setLong(2, 1); stmt.setString(3, "2024-01-17 11:30:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 3); stmt.setLong(2, 2); stmt.setString(3, "2024-01-17 13:45:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 1); stmt.setLong(2, 3); stmt.setString(3, "2024-01-18 08:20:00"); stmt.setString(4, "pending"); stmt.addBatch();
-            stmt.setLong(1, 2); stmt.setLong(2, 4); stmt.setString(3, "2024-01-18 15:30:00"); stmt.setString(4, "pending"); stmt.addBatch();
+            stmt.setLong(1, 1); stmt.setLong(2, 1); stmt.setLong(3, 1); stmt.setString(4, "2024-01-15 10:30:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 2); stmt.setLong(2, 2); stmt.setLong(3, 2); stmt.setString(4, "2024-01-15 14:20:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 3); stmt.setLong(2, 3); stmt.setLong(3, 3); stmt.setString(4, "2024-01-16 09:15:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 4); stmt.setLong(2, 1); stmt.setLong(3, 4); stmt.setString(4, "2024-01-16 16:45:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 5); stmt.setLong(2, 2); stmt.setLong(3, 1); stmt.setString(4, "2024-01-17 11:30:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 6); stmt.setLong(2, 3); stmt.setLong(3, 2); stmt.setString(4, "2024-01-17 13:45:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 7); stmt.setLong(2, 1); stmt.setLong(3, 3); stmt.setString(4, "2024-01-18 08:20:00"); stmt.setString(5, "pending"); stmt.addBatch();
+            stmt.setLong(1, 8); stmt.setLong(2, 2); stmt.setLong(3, 4); stmt.setString(4, "2024-01-18 15:30:00"); stmt.setString(5, "pending"); stmt.addBatch();
             
             stmt.executeBatch();
         }
@@ -609,15 +658,15 @@ public class DatabaseSeeder {
     
     private void seedNotifications(Connection conn) throws SQLException {
         logger.info("Seeding notifications...");
-        String sql = "INSERT INTO notifications (user_id, title, message, type, priority) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO notifications (id, user_id, title, message, type, priority) VALUES (?, ?, ?, ?, ?, ?)";
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, 1); stmt.setString(2, "Welcome!"); stmt.setString(3, "Welcome to the Drink Business RMI System"); stmt.setString(4, "INFO"); stmt.setString(5, "NORMAL"); stmt.addBatch();
-            stmt.setLong(1, 2); stmt.setString(2, "Order Confirmed"); stmt.setString(3, "Your order has been confirmed and is being processed"); stmt.setString(4, "ORDER_CONFIRMED"); stmt.setString(5, "HIGH"); stmt.addBatch();
-            stmt.setLong(1, 3); stmt.setString(2, "Stock Alert"); stmt.setString(3, "Low stock alert for Soda at Kisumu branch"); stmt.setString(4, "STOCK_LOW"); stmt.setString(5, "HIGH"); stmt.addBatch();
-            stmt.setLong(1, 4); stmt.setString(2, "System Update"); stmt.setString(3, "System maintenance scheduled for tonight"); stmt.setString(4, "SYSTEM_ALERT"); stmt.setString(5, "NORMAL"); stmt.addBatch();
-            stmt.setLong(1, 5); stmt.setString(2, "New Drinks Added"); stmt.setString(3, "Check out our new smoothies and protein shakes!"); stmt.setString(4, "PRODUCT_UPDATE"); stmt.setString(5, "NORMAL"); stmt.addBatch();
-            stmt.setLong(1, 6); stmt.setString(2, "Inventory Update"); stmt.setString(3, "Stock levels have been updated across all branches"); stmt.setString(4, "INVENTORY_UPDATE"); stmt.setString(5, "NORMAL"); stmt.addBatch();
+            stmt.setLong(1, 1); stmt.setLong(2, 1); stmt.setString(3, "Welcome!"); stmt.setString(4, "Welcome to the Drink Business RMI System"); stmt.setString(5, "INFO"); stmt.setString(6, "NORMAL"); stmt.addBatch();
+            stmt.setLong(1, 2); stmt.setLong(2, 2); stmt.setString(3, "Order Confirmed"); stmt.setString(4, "Your order has been confirmed and is being processed"); stmt.setString(5, "ORDER_CONFIRMED"); stmt.setString(6, "HIGH"); stmt.addBatch();
+            stmt.setLong(1, 3); stmt.setLong(2, 3); stmt.setString(3, "Stock Alert"); stmt.setString(4, "Low stock alert for Soda at Kisumu branch"); stmt.setString(5, "STOCK_LOW"); stmt.setString(6, "HIGH"); stmt.addBatch();
+            stmt.setLong(1, 4); stmt.setLong(2, 4); stmt.setString(3, "System Update"); stmt.setString(4, "System maintenance scheduled for tonight"); stmt.setString(5, "SYSTEM_ALERT"); stmt.setString(6, "NORMAL"); stmt.addBatch();
+            stmt.setLong(1, 5); stmt.setLong(2, 5); stmt.setString(3, "New Drinks Added"); stmt.setString(4, "Check out our new smoothies and protein shakes!"); stmt.setString(5, "PRODUCT_UPDATE"); stmt.setString(6, "NORMAL"); stmt.addBatch();
+            stmt.setLong(1, 6); stmt.setLong(2, 6); stmt.setString(3, "Inventory Update"); stmt.setString(4, "Stock levels have been updated across all branches"); stmt.setString(5, "INVENTORY_UPDATE"); stmt.setString(6, "NORMAL"); stmt.addBatch();
             
             stmt.executeBatch();
         }
@@ -625,13 +674,13 @@ public class DatabaseSeeder {
     
     private void seedPayments(Connection conn) throws SQLException {
         logger.info("Seeding sample payments...");
-        String sql = "INSERT INTO payments (order_id, customer_id, amount, payment_method, transaction_id, status) VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO payments (id, order_id, customer_id, amount, payment_method, transaction_id, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             // Sample payments for some orders
-            stmt.setLong(1, 1); stmt.setString(2, "1"); stmt.setDouble(3, 130.0); stmt.setString(4, "CREDIT_CARD"); stmt.setString(5, "TXN_001"); stmt.setString(6, "SUCCESS"); stmt.addBatch();
-            stmt.setLong(1, 2); stmt.setString(2, "2"); stmt.setDouble(3, 220.0); stmt.setString(4, "MPESA"); stmt.setString(5, "TXN_002"); stmt.setString(6, "SUCCESS"); stmt.addBatch();
-            stmt.setLong(1, 3); stmt.setString(2, "3"); stmt.setDouble(3, 310.0); stmt.setString(4, "CASH"); stmt.setString(5, "TXN_003"); stmt.setString(6, "PENDING"); stmt.addBatch();
+            stmt.setLong(1, 1); stmt.setLong(2, 1); stmt.setString(3, "1"); stmt.setDouble(4, 130.0); stmt.setString(5, "CREDIT_CARD"); stmt.setString(6, "TXN_001"); stmt.setString(7, "SUCCESS"); stmt.addBatch();
+            stmt.setLong(1, 2); stmt.setLong(2, 2); stmt.setString(3, "2"); stmt.setDouble(4, 220.0); stmt.setString(5, "MPESA"); stmt.setString(6, "TXN_002"); stmt.setString(7, "SUCCESS"); stmt.addBatch();
+            stmt.setLong(1, 3); stmt.setLong(2, 3); stmt.setString(3, "3"); stmt.setDouble(4, 310.0); stmt.setString(5, "CASH"); stmt.setString(6, "TXN_003"); stmt.setString(7, "PENDING"); stmt.addBatch();
             
             stmt.executeBatch();
         }
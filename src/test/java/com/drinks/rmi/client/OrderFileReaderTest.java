@@ -0,0 +1,141 @@
+package com.drinks.rmi.client;
+
+import com.drinks.rmi.dto.OrderRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderFileReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csvRowsOfOneReferenceFormOneOrder() throws Exception {
+        Path file = write("orders.csv", """
+            order_ref,customer_id,branch_id,drink_id,quantity
+            pos7-1,12,1,3,2
+            pos7-1,12,1,7,1
+            pos7-1,12,1,3,1
+            # comment
+            pos7-2,13,2,4,5
+            """);
+
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.CSV, "pos7")) {
+            OrderRequestDTO first = reader.next();
+            assertEquals("pos7:pos7-1", first.getIdempotencyKey());
+            assertEquals(12L, first.getCustomerId());
+            assertEquals(1L, first.getBranchId());
+            assertEquals(Map.of(3L, 3, 7L, 1), first.getItems());
+
+            OrderRequestDTO second = reader.next();
+            assertEquals("pos7:pos7-2", second.getIdempotencyKey());
+            assertEquals(Map.of(4L, 5), second.getItems());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void invalidOrderIsReportedAndReadingContinues() throws Exception {
+        Path file = write("orders.csv", """
+            a,12,1,3,2
+            a,13,1,7,1
+            b,12,1,x,1
+            c,12,1,3,1
+            """);
+
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.CSV, "src")) {
+            OrderFileReader.InvalidOrderException mixed = assertThrows(OrderFileReader.InvalidOrderException.class, reader::next);
+            assertTrue(mixed.getMessage().startsWith("line 1 (a)"), mixed.getMessage());
+            assertThrows(OrderFileReader.InvalidOrderException.class, reader::next);
+            assertEquals("src:c", reader.next().getIdempotencyKey());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void jsonLinesAreParsed() throws Exception {
+        Path file = write("orders.jsonl", """
+            {"orderRef": "pos7-1", "customerId": 12, "branchId": 1, "items": [{"drinkId": 3, "quantity": 2}, {"drinkId": 3, "quantity": 1}]}
+            {"orderRef": "pos7-2", "customerId": 12, "branchId": 1, "items": []}
+            """);
+
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.of(null, file), "pos7")) {
+            OrderRequestDTO order = reader.next();
+            assertEquals("pos7:pos7-1", order.getIdempotencyKey());
+            assertEquals(Map.of(3L, 3), order.getItems());
+
+            OrderFileReader.InvalidOrderException empty = assertThrows(OrderFileReader.InvalidOrderException.class, reader::next);
+            assertTrue(empty.getMessage().contains("order has no items"), empty.getMessage());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void sameReferenceFromTwoSourcesGetsTwoKeys() throws Exception {
+        Path file = write("orders.csv", "pos-1,12,1,3,2\n");
+
+        String first;
+        String second;
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.CSV, "till1")) {
+            first = reader.next().getIdempotencyKey();
+        }
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.CSV, "till2")) {
+            second = reader.next().getIdempotencyKey();
+        }
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void longReferenceKeepsItsStartAndFitsTheKey() throws Exception {
+        String longRef = "r".repeat(60) + "1";
+        String otherRef = "r".repeat(60) + "2";
+        Path file = write("orders.csv", longRef + ",12,1,3,2\n" + otherRef + ",12,1,3,2\n");
+
+        try (OrderFileReader reader = new OrderFileReader(file, OrderFileReader.Format.CSV, "device-0001")) {
+            String first = reader.next().getIdempotencyKey();
+            String second = reader.next().getIdempotencyKey();
+            assertEquals(64, first.length());
+            assertTrue(first.startsWith("device-0001:rrrr"), first);
+            assertNotEquals(first, second);
+        }
+    }
+
+    @Test
+    void defaultSourceDependsOnTheFileContents() throws Exception {
+        Path first = write("a.csv", "pos-1,12,1,3,2\n");
+        Path copy = write("b.csv", "pos-1,12,1,3,2\n");
+        Path other = write("c.csv", "pos-1,12,1,3,3\n");
+
+        String source = OrderFileReader.sourceOf(first);
+        assertTrue(OrderFileReader.validSource(source));
+        assertEquals(source, OrderFileReader.sourceOf(copy));
+        assertNotEquals(source, OrderFileReader.sourceOf(other));
+    }
+
+    @Test
+    void sourcesThatCouldCollideAreRejected() {
+        assertFalse(OrderFileReader.validSource("pos:7"));
+        assertFalse(OrderFileReader.validSource(""));
+        assertFalse(OrderFileReader.validSource("x".repeat(17)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new OrderFileReader(dir.resolve("missing.csv"), OrderFileReader.Format.CSV, "a:b"));
+    }
+}
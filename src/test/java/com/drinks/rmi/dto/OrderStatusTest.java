@@ -0,0 +1,42 @@
+package com.drinks.rmi.dto;
+
+import com.drinks.rmi.dto.OrderDTO.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatusTest {
+
+    @Test
+    void ordersMoveForwardThroughFulfilment() {
+        assertTrue(OrderStatus.PAID.canTransitionFrom("PENDING"));
+        assertTrue(OrderStatus.PROCESSING.canTransitionFrom("PENDING"));
+        assertTrue(OrderStatus.PROCESSING.canTransitionFrom("PAID"));
+        assertTrue(OrderStatus.COMPLETED.canTransitionFrom("PROCESSING"));
+    }
+
+    @Test
+    void finishedOrdersCannotChange() {
+        for (OrderStatus target : OrderStatus.values()) {
+            assertFalse(target.canTransitionFrom("COMPLETED"), target.name());
+            assertFalse(target.canTransitionFrom("CANCELLED"), target.name());
+        }
+    }
+
+    @Test
+    void stagesCannotBeSkippedOrRepeated() {
+        assertFalse(OrderStatus.COMPLETED.canTransitionFrom("PENDING"));
+        assertFalse(OrderStatus.PROCESSING.canTransitionFrom("PROCESSING"));
+        assertFalse(OrderStatus.PAID.canTransitionFrom("PROCESSING"));
+        assertFalse(OrderStatus.PENDING.canTransitionFrom("PAID"));
+        assertFalse(OrderStatus.PAID.canTransitionFrom(null));
+    }
+
+    @Test
+    void openOrdersCanBeCancelled() {
+        assertTrue(OrderStatus.CANCELLED.canTransitionFrom("pending"));
+        assertTrue(OrderStatus.CANCELLED.canTransitionFrom("PAID"));
+        assertTrue(OrderStatus.CANCELLED.canTransitionFrom("PROCESSING"));
+    }
+}
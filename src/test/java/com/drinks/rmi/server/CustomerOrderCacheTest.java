@@ -0,0 +1,134 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.OrderDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CustomerOrderCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 2, 12, 0);
+
+    private CustomerOrderCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CustomerOrderCache(2, 60_000);
+        cache.enable();
+    }
+
+    private static OrderDTO order(long id, long customerId, int minutes) {
+        OrderDTO order = new OrderDTO(id, customerId, "Customer " + customerId, 1L, "Nairobi", START.plusMinutes(minutes));
+        order.setStatus("PENDING");
+        return order;
+    }
+
+    private void load(long customerId, OrderDTO... orders) {
+        Object token = cache.startLoad(customerId);
+        cache.finishLoad(customerId, token, List.of(orders));
+    }
+
+    @Test
+    void nothingIsCachedUntilEnabled() {
+        CustomerOrderCache disabled = new CustomerOrderCache(2, 60_000);
+
+        Object token = disabled.startLoad(7L);
+        disabled.finishLoad(7L, token, List.of(order(1, 7, 0)));
+
+        assertNull(token);
+        assertNull(disabled.get(7L));
+    }
+
+    @Test
+    void loadedHistoryIsReturnedAsACopy() {
+        load(7L, order(2, 7, 5), order(1, 7, 0));
+
+        List<OrderDTO> orders = cache.get(7L);
+        orders.clear();
+
+        assertEquals(2, cache.get(7L).size());
+    }
+
+    @Test
+    void addedOrdersAreKeptNewestFirstAndNamed() {
+        load(7L, order(2, 7, 5), order(1, 7, 0));
+        OrderDTO placed = order(3, 7, 10);
+        placed.setCustomerName(null);
+
+        cache.addOrders(List.of(placed, order(2, 7, 5)));
+
+        List<OrderDTO> orders = cache.get(7L);
+        assertEquals(3, orders.size());
+        assertEquals(3L, orders.get(0).getId());
+        assertEquals("Customer 7", orders.get(0).getCustomerName());
+        // The caller's order is not changed
+        assertNull(placed.getCustomerName());
+    }
+
+    @Test
+    void statusChangeReplacesTheCachedOrder() {
+        OrderDTO handedOut = order(1, 7, 0);
+        load(7L, handedOut);
+
+        cache.updateStatus(List.of(1L), "PAID");
+
+        assertEquals("PAID", cache.get(7L).get(0).getStatus());
+        assertEquals("PENDING", handedOut.getStatus());
+    }
+
+    @Test
+    void loadIsDiscardedWhenTheCustomerChangesMeanwhile() {
+        Object token = cache.startLoad(7L);
+        cache.onOrderEvents(List.of(new OrderEvent(1, OrderEvent.Type.STATUS_CHANGED, 1, 7, 1, "PAID", 10, START)));
+        cache.finishLoad(7L, token, List.of(order(1, 7, 0)));
+
+        assertNull(cache.get(7L));
+    }
+
+    @Test
+    void otherCustomersChangesDoNotDiscardALoad() {
+        Object token = cache.startLoad(7L);
+        cache.onOrderEvents(List.of(new OrderEvent(1, OrderEvent.Type.STATUS_CHANGED, 9, 8, 1, "PAID", 10, START)));
+        cache.finishLoad(7L, token, List.of(order(1, 7, 0)));
+
+        assertNotNull(cache.get(7L));
+    }
+
+    @Test
+    void orderPlacedElsewhereDropsTheHistory() {
+        load(7L, order(1, 7, 0));
+
+        cache.onOrderEvents(List.of(new OrderEvent(1, OrderEvent.Type.PLACED, 5, 7, 1, "PENDING", 10, START)));
+
+        assertNull(cache.get(7L));
+    }
+
+    @Test
+    void leastRecentlyReadCustomerIsEvicted() {
+        load(7L, order(1, 7, 0));
+        load(8L, order(2, 8, 0));
+        cache.get(7L);
+
+        load(9L, order(3, 9, 0));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(7L));
+        assertNull(cache.get(8L));
+    }
+
+    @Test
+    void expiredHistoryIsReloaded() {
+        CustomerOrderCache expiring = new CustomerOrderCache(2, -1);
+        expiring.enable();
+        Object token = expiring.startLoad(7L);
+        expiring.finishLoad(7L, token, List.of(order(1, 7, 0)));
+
+        assertNull(expiring.get(7L));
+    }
+}
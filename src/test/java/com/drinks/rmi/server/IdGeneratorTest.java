@@ -0,0 +1,51 @@
+package com.drinks.rmi.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+
+    @Test
+    void idsIncreaseAndDoNotRepeat() {
+        IdGenerator generator = new IdGenerator(5);
+        Set<Long> seen = new HashSet<>();
+        long previous = 0;
+        // More than one millisecond's worth of sequence numbers
+        for (int i = 0; i < 20000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "IDs must increase");
+            assertTrue(seen.add(id), "IDs must be unique");
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodeIsEncodedInTheId() {
+        long id = new IdGenerator(IdGenerator.MAX_NODE).nextId();
+
+        assertEquals(IdGenerator.MAX_NODE, (id >> 12) & IdGenerator.MAX_NODE);
+    }
+
+    @Test
+    void nodesNeverProduceTheSameId() {
+        IdGenerator first = new IdGenerator(1);
+        IdGenerator second = new IdGenerator(2);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(seen.add(first.nextId()));
+            assertTrue(seen.add(second.nextId()));
+        }
+    }
+
+    @Test
+    void nodeOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE + 1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.drinks.rmi.server;
+
+import com.drinks.rmi.dto.FulfilmentLatencyDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long NOW = 1000 * HOUR + HOUR / 2;
+
+    @Test
+    void emptyHistogramReportsZero() {
+        FulfilmentLatencyDTO.StageLatency latency = new LatencyHistogram(24, HOUR).describe("stage", NOW);
+
+        assertEquals(0, latency.getCount());
+        assertEquals(0, latency.getP50Seconds());
+        assertEquals(0, latency.getMaxSeconds());
+    }
+
+    @Test
+    void percentilesAreWithinTwentyPercent() {
+        LatencyHistogram histogram = new LatencyHistogram(24, HOUR);
+        for (int seconds = 1; seconds <= 1000; seconds++) {
+            histogram.record(NOW, seconds * 1000L);
+        }
+
+        FulfilmentLatencyDTO.StageLatency latency = histogram.describe("stage", NOW);
+        assertEquals(1000, latency.getCount());
+        assertEquals(1000, latency.getMaxSeconds());
+        assertWithin(500, latency.getP50Seconds());
+        assertWithin(900, latency.getP90Seconds());
+        assertWithin(990, latency.getP99Seconds());
+    }
+
+    @Test
+    void durationsOutsideTheWindowAreNotCounted() {
+        LatencyHistogram histogram = new LatencyHistogram(24, HOUR);
+        histogram.record(NOW - 30 * HOUR, 5000);
+        histogram.record(NOW - 2 * HOUR, 7000);
+        histogram.record(NOW, 9000);
+
+        assertEquals(2, histogram.describe("stage", NOW).getCount());
+        // A day later only the newest slice would remain, and then none
+        assertEquals(1, histogram.describe("stage", NOW + 22 * HOUR).getCount());
+        assertEquals(0, histogram.describe("stage", NOW + 25 * HOUR).getCount());
+    }
+
+    @Test
+    void reusedSliceDropsItsOldCounts() {
+        LatencyHistogram histogram = new LatencyHistogram(2, HOUR);
+        histogram.record(NOW, 5000);
+        // Same slot two slices later
+        histogram.record(NOW + 2 * HOUR, 60000);
+
+        FulfilmentLatencyDTO.StageLatency latency = histogram.describe("stage", NOW + 2 * HOUR);
+        assertEquals(1, latency.getCount());
+        assertEquals(60, latency.getMaxSeconds());
+    }
+
+    @Test
+    void lateDurationForAReusedSliceIsIgnored() {
+        LatencyHistogram histogram = new LatencyHistogram(2, HOUR);
+        histogram.record(NOW + 2 * HOUR, 60000);
+        histogram.record(NOW, 5000);
+
+        assertEquals(1, histogram.describe("stage", NOW + 2 * HOUR).getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected * 0.8 && actual <= expected * 1.2,
+                   "expected about " + expected + " but was " + actual);
+    }
+}
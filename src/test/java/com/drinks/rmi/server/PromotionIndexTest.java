@@ -0,0 +1,78 @@
+package com.drinks.rmi.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PromotionIndexTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 6, 2, 12, 0);
+
+    private static PromotionIndex.Rule rule(long id, long branchId, long drinkId, String percent) {
+        return new PromotionIndex.Rule(id, "rule " + id, branchId, drinkId, new BigDecimal(percent), 1, -1, 0, null, null);
+    }
+
+    @Test
+    void emptyIndexHasNoRule() {
+        assertNull(PromotionIndex.EMPTY.bestRule(1, 1, 1, NOON));
+    }
+
+    @Test
+    void largestDiscountWinsAcrossSpecificAndGlobalRules() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            rule(1, 1, 3, "5"),
+            rule(2, 1, 0, "10"),
+            rule(3, 0, 3, "15"),
+            rule(4, 0, 0, "2")));
+
+        assertEquals(3, index.bestRule(1, 3, 1, NOON).id);
+        assertEquals(2, index.bestRule(1, 7, 1, NOON).id);
+        assertEquals(3, index.bestRule(2, 3, 1, NOON).id);
+        assertEquals(4, index.bestRule(2, 7, 1, NOON).id);
+    }
+
+    @Test
+    void tiesGoToTheOldestRule() {
+        PromotionIndex index = new PromotionIndex(List.of(rule(9, 1, 3, "10"), rule(4, 0, 0, "10")));
+
+        assertEquals(4, index.bestRule(1, 3, 1, NOON).id);
+    }
+
+    @Test
+    void minimumQuantityIsRequired() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            new PromotionIndex.Rule(1, "bulk", 0, 3, new BigDecimal("20"), 6, -1, 0, null, null),
+            rule(2, 0, 3, "5")));
+
+        assertEquals(2, index.bestRule(1, 3, 5, NOON).id);
+        assertEquals(1, index.bestRule(1, 3, 6, NOON).id);
+    }
+
+    @Test
+    void dailyWindowMaySpanMidnight() {
+        // 22:00 to 02:00
+        PromotionIndex index = new PromotionIndex(List.of(
+            new PromotionIndex.Rule(1, "late", 0, 0, new BigDecimal("10"), 1, 22 * 60, 2 * 60, null, null)));
+
+        assertEquals(1, index.bestRule(1, 3, 1, NOON.withHour(23)).id);
+        assertEquals(1, index.bestRule(1, 3, 1, NOON.withHour(1)).id);
+        assertNull(index.bestRule(1, 3, 1, NOON.withHour(2)));
+        assertNull(index.bestRule(1, 3, 1, NOON));
+    }
+
+    @Test
+    void validityPeriodIncludesStartAndExcludesEnd() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            new PromotionIndex.Rule(1, "june", 0, 0, new BigDecimal("10"), 1, -1, 0,
+                LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0))));
+
+        assertEquals(1, index.bestRule(1, 3, 1, LocalDateTime.of(2025, 6, 1, 0, 0)).id);
+        assertNull(index.bestRule(1, 3, 1, LocalDateTime.of(2025, 5, 31, 23, 59)));
+        assertNull(index.bestRule(1, 3, 1, LocalDateTime.of(2025, 7, 1, 0, 0)));
+    }
+}